@@ -5,15 +5,24 @@ import com.google.gson.JsonObject;
 import rocks.blackblock.nbt.api.NbtElement;
 import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
 import rocks.blackblock.nbt.api.snbt.SnbtConfig;
+import rocks.blackblock.nbt.api.visitor.NbtVisitor;
+import rocks.blackblock.nbt.io.ByteBufferInput;
 import rocks.blackblock.nbt.io.CompressionType;
+import rocks.blackblock.nbt.io.NbtProjection;
 import rocks.blackblock.nbt.io.NbtReader;
+import rocks.blackblock.nbt.io.NbtStreamReader;
 import rocks.blackblock.nbt.io.NbtWriter;
+import rocks.blackblock.nbt.io.SnbtParser;
+import rocks.blackblock.nbt.elements.collection.MapStrategy;
 import rocks.blackblock.nbt.elements.collection.NbtCompound;
 import lombok.Cleanup;
 import lombok.NonNull;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.Base64;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
@@ -133,6 +142,55 @@ public class Nbt {
         return compound.toSnbt(0, this.typeRegistry, this.snbtConfig);
     }
 
+    /**
+     * Serializes the given root {@link NbtCompound} to SNBT (Stringified NBT), writing it straight to the given output
+     * (like a {@link Writer} or a {@link StringBuilder}) instead of building it as a {@code String} first.
+     *
+     * @since   1.6.0
+     *
+     * @param compound the NBT structure to serialize to SNBT, contained within a {@link NbtCompound}.
+     * @param output the output to write to.
+     * @throws IOException if any I/O error occurs.
+     */
+    public void toSnbt(@NonNull NbtCompound compound, @NonNull Appendable output) throws IOException {
+        compound.writeSnbt(output, 0, this.typeRegistry, this.snbtConfig);
+    }
+
+    /**
+     * Serializes the given root {@link NbtCompound} to a UTF-8 encoded SNBT {@link File}.
+     *
+     * @since   1.6.0
+     *
+     * @param compound the NBT structure to serialize to SNBT, contained within a {@link NbtCompound}.
+     * @param file the file to write to.
+     * @throws IOException if any I/O error occurs.
+     */
+    public void toSnbt(@NonNull NbtCompound compound, @NonNull File file) throws IOException {
+        @Cleanup Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+
+        this.toSnbt(compound, writer);
+    }
+
+    /**
+     * Parses a SNBT (Stringified NBT) value, like a compound from a command or data pack.
+     * Compounds are backed by the {@link MapStrategy} of this instance, and share values if it does (see {@link #setSharingValues(boolean)}).
+     *
+     * @since   1.6.0
+     *
+     * @param snbt the SNBT string to parse.
+     * @param <T> the expected type of the tag.
+     * @return the parsed tag, without a name.
+     * @throws IOException if the string is not valid SNBT.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends NbtElement> T fromSnbt(@NonNull String snbt) throws IOException {
+        SnbtParser parser = new SnbtParser();
+        parser.setMapStrategy(this.getMapStrategy());
+        parser.setSharingValues(this.isSharingValues());
+
+        return (T) parser.parse(snbt);
+    }
+
     /**
      * Serializes the given root {@link NbtCompound} to a JSON {@link File}.
      *
@@ -154,12 +212,34 @@ public class Nbt {
      * @throws IOException if any I/O error occurs.
      */
     public byte[] toByteArray(@NonNull NbtCompound compound) throws IOException {
-        @Cleanup ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        @Cleanup DataOutputStream w = new DataOutputStream(baos);
+        return this.writer.toByteArray(compound);
+    }
 
-        this.toStream(compound, w);
+    /**
+     * Writes the given root {@link NbtCompound} into a {@link ByteBuffer}, starting at its position and advancing it.
+     *
+     * @since   1.6.0
+     *
+     * @param compound the NBT structure to write, contained within a {@link NbtCompound}.
+     * @param buffer the buffer to write to.
+     * @return the number of bytes written.
+     * @throws java.nio.BufferOverflowException if the structure does not fit in the remaining space of the buffer.
+     * @throws IOException if any I/O error occurs.
+     */
+    public int toBuffer(@NonNull NbtCompound compound, @NonNull ByteBuffer buffer) throws IOException {
+        return this.writer.toBuffer(compound, buffer);
+    }
 
-        return baos.toByteArray();
+    /**
+     * Returns the exact number of bytes the given root {@link NbtCompound} takes up when written.
+     *
+     * @since   1.6.0
+     *
+     * @param compound the NBT structure to measure, contained within a {@link NbtCompound}.
+     * @return the encoded size of the structure, in bytes.
+     */
+    public int getEncodedSize(@NonNull NbtCompound compound) {
+        return this.writer.getEncodedSize(compound);
     }
 
     /**
@@ -195,6 +275,55 @@ public class Nbt {
         return this.reader.rootFromStream(input);
     }
 
+    /**
+     * Drives a {@link NbtVisitor} straight from a {@link DataInput} stream containing a root tag, without building the tree.
+     *
+     * @param input the stream to read from.
+     * @param visitor the visitor to report to.
+     * @throws IOException if any I/O error occurs.
+     */
+    public void accept(@NonNull DataInput input, @NonNull NbtVisitor visitor) throws IOException {
+        this.reader.accept(input, visitor);
+    }
+
+    /**
+     * Drives a {@link NbtVisitor} from the given root {@link NbtCompound}, reporting callbacks in the same order as {@link #accept(DataInput, NbtVisitor)}.
+     *
+     * @param compound the NBT structure to walk, contained within a {@link NbtCompound}.
+     * @param visitor the visitor to report to.
+     * @throws IOException if the visitor throws one.
+     */
+    public void accept(@NonNull NbtCompound compound, @NonNull NbtVisitor visitor) throws IOException {
+        String name = compound.getName() == null ? "" : compound.getName();
+
+        if (visitor.visitKey(name, compound.getTypeId()) != NbtVisitor.Result.SKIP) {
+            compound.accept(visitor);
+        }
+    }
+
+    /**
+     * Reads a sparse NBT data structure (root {@link NbtCompound}) from a {@link DataInput} stream, containing only the paths in the given {@link NbtProjection}.
+     * Everything else is skipped by length without being decoded.
+     *
+     * @param input the stream to read from.
+     * @param projection the paths to read.
+     * @return the sparse root {@link NbtCompound} read from the stream.
+     * @throws IOException if any I/O error occurs.
+     */
+    public NbtCompound rootFromStream(@NonNull DataInput input, @NonNull NbtProjection projection) throws IOException {
+        return this.reader.rootFromStream(input, projection);
+    }
+
+    /**
+     * Creates a pull-based {@link NbtStreamReader} over a {@link DataInput} stream, which never builds the tree.
+     *
+     * @param input the stream to read from.
+     * @return a new {@link NbtStreamReader} positioned before the root tag.
+     */
+    public NbtStreamReader createStreamReader(@NonNull DataInput input) {
+        return this.reader.createStreamReader(input);
+    }
+
     /**
      * Reads an NBT data structure (root {@link NbtCompound}) from a {@link File}.
      *
@@ -203,25 +332,73 @@ public class Nbt {
      * @throws IOException if any I/O error occurs.
      */
     public NbtCompound fromFile(@NonNull File file) throws IOException {
-        @Cleanup BufferedInputStream bis = new BufferedInputStream(new FileInputStream(file));
-        @Cleanup DataInputStream in = null;
+        return this.fromFile(file, null);
+    }
 
-        @Cleanup FileInputStream fis = new FileInputStream(file);
-        switch (CompressionType.getCompression(fis)) {
-            case NONE:
-                in = new DataInputStream(bis);
-                break;
+    /**
+     * Reads a sparse NBT data structure (root {@link NbtCompound}) from a {@link File}, containing only the paths in the given {@link NbtProjection}.
+     *
+     * @param file the file to read from.
+     * @param projection the paths to read, or {@code null} to read everything.
+     * @return the root {@link NbtCompound} read from the stream.
+     * @throws IOException if any I/O error occurs.
+     */
+    public NbtCompound fromFile(@NonNull File file, NbtProjection projection) throws IOException {
+        CompressionType compression;
+
+        try (FileInputStream fis = new FileInputStream(file)) {
+            compression = CompressionType.getCompression(fis);
+        }
+
+        if (compression == CompressionType.NONE) {
+            // Uncompressed files are read onto the heap in one go and decoded without any stream
+            return this.rootFromInput(new ByteBufferInput(readFile(file)), projection);
+        }
+
+        // The file is opened before it is wrapped, so it is closed even if the decompressor fails on a broken header
+        try (FileInputStream fis = new FileInputStream(file);
+             InputStream stream = decompress(new BufferedInputStream(fis), compression)) {
+            return this.rootFromInput(new DataInputStream(stream), projection);
+        }
+    }
+
+    private NbtCompound rootFromInput(DataInput input, NbtProjection projection) throws IOException {
+        if (projection != null) {
+            return this.rootFromStream(input, projection);
+        }
+
+        return this.rootFromStream(input);
+    }
+
+    private static InputStream decompress(InputStream input, CompressionType compression) throws IOException {
+        switch (compression) {
             case GZIP:
-                in = new DataInputStream(new GZIPInputStream(bis));
-                break;
+                return new GZIPInputStream(input);
             case ZLIB:
-                in = new DataInputStream(new InflaterInputStream(bis));
-                break;
+                return new InflaterInputStream(input);
             default:
                 throw new IllegalStateException("Illegal compression type. This should never happen.");
         }
+    }
 
-        return this.rootFromStream(in);
+    /**
+     * Reads an NBT data structure (root {@link NbtCompound}) from a {@link ByteBuffer}, such as a direct buffer, a network frame or a memory-mapped file.
+     * The data must not be compressed. The buffer's position is left untouched.
+     * <p>
+     * {@link #fromFile(File)} reads files onto the heap. To decode a large file without copying it, map it and pass the mapping here:
+     * <pre>{@code
+     * try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+     *     root = nbt.rootFromByteBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+     * }
+     * }</pre>
+     * The mapping stays alive until it is garbage collected, and on Windows the file cannot be rewritten or deleted until then.
+     *
+     * @param buffer the buffer to read from, positioned at the root tag.
+     * @return the root {@link NbtCompound} read from the buffer.
+     * @throws IOException if any I/O error occurs.
+     */
+    public NbtCompound rootFromByteBuffer(@NonNull ByteBuffer buffer) throws IOException {
+        return this.rootFromStream(new ByteBufferInput(buffer));
     }
 
     /**
@@ -245,9 +422,20 @@ public class Nbt {
      * @throws IOException if any I/O error occurs.
      */
     public NbtElement fromByteArray(@NonNull byte[] bytes) throws IOException {
-        @Cleanup DataInputStream bais = new DataInputStream(new BufferedInputStream(new ByteArrayInputStream(bytes)));
+        return this.elementFromStream(new ByteBufferInput(bytes));
+    }
 
-        return this.elementFromStream(bais);
+    /**
+     * Reads an NBT data structure (named root {@link NbtCompound}, as written by {@link #toByteArray(NbtCompound)}) from a {@code byte[]} array, lazily.
+     * Children are only decoded when accessed, and untouched children are copied verbatim when the compound is written again.
+     * The array must not be modified while the result is in use.
+     *
+     * @param bytes the {@code byte[]} array to read from.
+     * @return the lazy root {@link NbtCompound}.
+     * @throws IOException if any I/O error occurs.
+     */
+    public NbtCompound lazyFromByteArray(@NonNull byte[] bytes) throws IOException {
+        return this.reader.lazyRootFromByteArray(bytes);
     }
 
     /**
@@ -261,6 +449,33 @@ public class Nbt {
         return fromByteArray(Base64.getDecoder().decode(encoded));
     }
 
+    /**
+     * Reads a whole file into a heap buffer.
+     *
+     * @param file the file to read.
+     * @return the buffer holding the file's contents.
+     * @throws IOException if any I/O error occurs, or the file is too large to read into a buffer.
+     */
+    private static ByteBuffer readFile(File file) throws IOException {
+        @Cleanup FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+        if (channel.size() > Integer.MAX_VALUE) {
+            throw new IOException("File " + file + " is too large to be read.");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("File " + file + " ended before its size was read.");
+            }
+        }
+
+        buffer.flip();
+
+        return buffer;
+    }
+
     /**
      * Returns the {@link NbtTypeRegistry} currently in use by this instance.
      *
@@ -282,6 +497,52 @@ public class Nbt {
         this.reader.setTypeRegistry(typeRegistry);
     }
 
+    /**
+     * Returns the kind of map the compound tags read by this instance are backed by.
+     *
+     * @since   1.6.0
+     *
+     * @return the {@link MapStrategy} currently in use by this instance.
+     */
+    public MapStrategy getMapStrategy() {
+        return this.reader.getMapStrategy();
+    }
+
+    /**
+     * Sets the kind of map the compound tags read by this instance are backed by.
+     *
+     * @since   1.6.0
+     *
+     * @param mapStrategy the new {@link MapStrategy} to be set.
+     */
+    public void setMapStrategy(@NonNull MapStrategy mapStrategy) {
+        this.reader.setMapStrategy(mapStrategy);
+    }
+
+    /**
+     * Returns true if this instance freezes the byte, short, int and empty string entries of the compounds it reads,
+     * sharing one tag per value where possible.
+     *
+     * @since   1.6.0
+     *
+     * @return true if values are shared.
+     */
+    public boolean isSharingValues() {
+        return this.reader.isSharingValues();
+    }
+
+    /**
+     * Sets whether this instance freezes the byte, short, int and empty string entries of the compounds it reads,
+     * sharing one tag per value where possible. See {@link NbtReader#setSharingValues(boolean)}.
+     *
+     * @since   1.6.0
+     *
+     * @param sharingValues true to share values.
+     */
+    public void setSharingValues(boolean sharingValues) {
+        this.reader.setSharingValues(sharingValues);
+    }
+
     /**
      * Returns the {@code Gson} currently in use by this instance.
      *
@@ -0,0 +1,70 @@
+package rocks.blackblock.nbt.anvil;
+
+import rocks.blackblock.nbt.api.NbtElement;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns a dense, stable {@code int} id to every distinct palette entry (like a block state compound or a biome name),
+ * shared by all sections that are decoded with it. The ids are only meaningful to this palette; they are never written.
+ * <p>
+ * Entries are stored frozen (see {@link NbtElement#freeze()}), so the encoded sections can share them.
+ * All methods may be called concurrently from multiple threads.
+ *
+ * @since   1.6.0
+ */
+public class GlobalPalette {
+    private final Map<NbtElement, Integer> ids = new ConcurrentHashMap<>();
+
+    // The entries by id, guarded by itself
+    private final List<NbtElement> entries = new ArrayList<>();
+
+    /**
+     * Returns the id of the given palette entry, assigning the next free id if it has not been seen before.
+     *
+     * @param entry the palette entry.
+     * @return the id of the entry.
+     */
+    public int getId(@NonNull NbtElement entry) {
+        Integer id = this.ids.get(entry);
+
+        if (id != null) {
+            return id;
+        }
+
+        return this.ids.computeIfAbsent(entry.toImmutable(), key -> {
+            synchronized (this.entries) {
+                this.entries.add(key);
+                return this.entries.size() - 1;
+            }
+        });
+    }
+
+    /**
+     * Returns the palette entry with the given id.
+     *
+     * @param id the id of the entry.
+     * @return the frozen palette entry.
+     * @throws IndexOutOfBoundsException if no entry has that id.
+     */
+    public NbtElement getEntry(int id) {
+        synchronized (this.entries) {
+            return this.entries.get(id);
+        }
+    }
+
+    /**
+     * Returns the number of distinct entries seen so far, which is one more than the highest id.
+     *
+     * @return the number of entries.
+     */
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+}
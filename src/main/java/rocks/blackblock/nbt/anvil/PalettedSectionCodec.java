@@ -0,0 +1,271 @@
+package rocks.blackblock.nbt.anvil;
+
+import rocks.blackblock.nbt.api.NbtElement;
+import rocks.blackblock.nbt.elements.NbtType;
+import rocks.blackblock.nbt.elements.array.NbtLongArray;
+import rocks.blackblock.nbt.elements.array.PackedLongArrayView;
+import rocks.blackblock.nbt.elements.collection.NbtCompound;
+import rocks.blackblock.nbt.elements.collection.NbtList;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Converts the paletted containers of a chunk section (like {@code block_states} and {@code biomes}, as stored since Minecraft 1.18)
+ * to and from a flat {@code int[]} of ids, one per entry, assigned by a {@link GlobalPalette}.
+ * <p>
+ * A container is a compound holding a {@code palette} list and a {@code data} long array, which packs the palette index of every entry
+ * (see {@link PackedLongArrayView}). The {@code data} array is left out when the palette has a single entry.
+ * Palette entries are resolved against the global palette once per container, not once per entry.
+ * <p>
+ * Codecs hold no state, so one can be used by multiple threads at once.
+ *
+ * @since   1.6.0
+ */
+public class PalettedSectionCodec {
+    /**
+     * The codec for the {@code block_states} of a section: 4096 entries of at least 4 bits.
+     */
+    public static final PalettedSectionCodec BLOCK_STATES = new PalettedSectionCodec(4096, 4, PackedLongArrayView.Layout.ALIGNED);
+
+    /**
+     * The codec for the {@code biomes} of a section: 64 entries of at least 1 bit.
+     */
+    public static final PalettedSectionCodec BIOMES = new PalettedSectionCodec(64, 1, PackedLongArrayView.Layout.ALIGNED);
+
+    private final int entries;
+    private final int minBits;
+    private final PackedLongArrayView.Layout layout;
+
+    /**
+     * Constructs a codec for containers of the given number of entries.
+     *
+     * @param entries the number of entries in a container.
+     * @param minBits the smallest number of bits per entry the data is packed with.
+     * @param layout the way the data is packed.
+     */
+    public PalettedSectionCodec(int entries, int minBits, @NonNull PackedLongArrayView.Layout layout) {
+        if (entries <= 0 || minBits < 1 || minBits > 32) {
+            throw new IllegalArgumentException("Invalid container size (" + entries + ") or bits per entry (" + minBits + ").");
+        }
+
+        this.entries = entries;
+        this.minBits = minBits;
+        this.layout = layout;
+    }
+
+    /**
+     * Returns the number of entries in a container.
+     *
+     * @return the number of entries.
+     */
+    public int getEntries() {
+        return this.entries;
+    }
+
+    /**
+     * Decodes a container into a new array of global ids.
+     *
+     * @param container the container compound, holding a {@code palette} and (usually) a {@code data} tag.
+     * @param palette the global palette assigning the ids.
+     * @return the global id of every entry.
+     * @throws IOException if the container is malformed.
+     */
+    public int[] decode(@NonNull NbtCompound container, @NonNull GlobalPalette palette) throws IOException {
+        int[] result = new int[this.entries];
+        this.decode(container, palette, result);
+
+        return result;
+    }
+
+    /**
+     * Decodes a container into the given array of global ids.
+     *
+     * @param container the container compound, holding a {@code palette} and (usually) a {@code data} tag.
+     * @param palette the global palette assigning the ids.
+     * @param ids the array to decode into, at least as long as the number of entries.
+     * @throws IOException if the container is malformed.
+     */
+    public void decode(@NonNull NbtCompound container, @NonNull GlobalPalette palette, @NonNull int[] ids) throws IOException {
+        if (ids.length < this.entries) {
+            throw new IllegalArgumentException("Array of length " + ids.length + " is too short for " + this.entries + " entries.");
+        }
+
+        if (!container.contains("palette", NbtType.LIST.getId())) {
+            throw new IOException("Paletted container has no palette.");
+        }
+
+        NbtList<NbtElement> entries = container.getList("palette");
+        int paletteSize = entries.size();
+
+        if (paletteSize == 0) {
+            throw new IOException("Paletted container has an empty palette.");
+        }
+
+        // Resolve every palette entry once
+        int[] globalIds = new int[paletteSize];
+
+        for (int i = 0; i < paletteSize; i++) {
+            globalIds[i] = palette.getId(entries.get(i));
+        }
+
+        if (!container.contains("data", NbtType.LONG_ARRAY.getId())) {
+            if (paletteSize != 1) {
+                throw new IOException("Paletted container with " + paletteSize + " palette entries has no data.");
+            }
+
+            Arrays.fill(ids, 0, this.entries, globalIds[0]);
+            return;
+        }
+
+        NbtLongArray data = container.getLongArray("data");
+        PackedLongArrayView view;
+
+        try {
+            view = new PackedLongArrayView(data, this.entries, this.bitsFor(paletteSize, data.size()), this.layout);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed paletted container data.", e);
+        }
+
+        view.unpackTo(ids);
+
+        for (int i = 0; i < this.entries; i++) {
+            int local = ids[i];
+
+            if (local < 0 || local >= paletteSize) {
+                throw new IOException("Palette index " + local + " out of range (palette size " + paletteSize + ").");
+            }
+
+            ids[i] = globalIds[local];
+        }
+    }
+
+    /**
+     * Encodes an array of global ids into a new container, with a palette holding only the ids that are used,
+     * in the order they are first used.
+     *
+     * @param ids the global id of every entry.
+     * @param palette the global palette that assigned the ids.
+     * @return the container compound.
+     * @throws IndexOutOfBoundsException if an id is not known to the palette.
+     */
+    public NbtCompound encode(@NonNull int[] ids, @NonNull GlobalPalette palette) {
+        if (ids.length < this.entries) {
+            throw new IllegalArgumentException("Array of length " + ids.length + " is too short for " + this.entries + " entries.");
+        }
+
+        // Maps global ids to palette indices, open-addressed on id + 1 (0 marks an empty slot)
+        int capacity = 16;
+        int[] keys = new int[capacity];
+        int[] slots = new int[capacity];
+
+        int[] locals = new int[this.entries];
+        int[] used = new int[8];
+        int paletteSize = 0;
+
+        int lastId = ids[0];
+        int lastLocal = -1;
+
+        for (int i = 0; i < this.entries; i++) {
+            int id = ids[i];
+
+            // Runs of the same id are common, so skip the lookup for those
+            if (id == lastId && lastLocal >= 0) {
+                locals[i] = lastLocal;
+                continue;
+            }
+
+            int mask = capacity - 1;
+            int h = mix(id) & mask;
+
+            while (keys[h] != 0 && keys[h] != id + 1) {
+                h = (h + 1) & mask;
+            }
+
+            int local;
+
+            if (keys[h] == 0) {
+                local = paletteSize++;
+
+                if (local == used.length) {
+                    used = Arrays.copyOf(used, local * 2);
+                }
+
+                used[local] = id;
+                keys[h] = id + 1;
+                slots[h] = local;
+
+                if (paletteSize * 2 > capacity) {
+                    capacity *= 2;
+                    keys = new int[capacity];
+                    slots = new int[capacity];
+
+                    for (int j = 0; j < paletteSize; j++) {
+                        int k = mix(used[j]) & (capacity - 1);
+
+                        while (keys[k] != 0) {
+                            k = (k + 1) & (capacity - 1);
+                        }
+
+                        keys[k] = used[j] + 1;
+                        slots[k] = j;
+                    }
+                }
+            } else {
+                local = slots[h];
+            }
+
+            locals[i] = local;
+            lastId = id;
+            lastLocal = local;
+        }
+
+        List<NbtElement> entries = new ArrayList<>(paletteSize);
+
+        for (int i = 0; i < paletteSize; i++) {
+            entries.add(palette.getEntry(used[i]));
+        }
+
+        NbtCompound result = new NbtCompound();
+        result.put("palette", new NbtList<>(entries, entries.get(0).getTypeId()));
+
+        if (paletteSize > 1) {
+            PackedLongArrayView view = PackedLongArrayView.allocate(this.entries, this.bitsFor(paletteSize, -1), this.layout);
+            view.packFrom(locals);
+
+            result.put("data", view.getArray());
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of bits the data of a container with the given palette size is packed with.
+     * When the length of the data is known and does not match, the bits it was actually packed with are used instead,
+     * as long as they can hold every palette index.
+     */
+    private int bitsFor(int paletteSize, int dataLength) {
+        int bits = Math.max(this.minBits, 32 - Integer.numberOfLeadingZeros(paletteSize - 1));
+
+        if (dataLength < 0 || PackedLongArrayView.requiredLength(this.entries, bits, this.layout) == dataLength) {
+            return bits;
+        }
+
+        for (int candidate = bits + 1; candidate <= 32; candidate++) {
+            if (PackedLongArrayView.requiredLength(this.entries, candidate, this.layout) == dataLength) {
+                return candidate;
+            }
+        }
+
+        // Let the view report the length mismatch
+        return bits;
+    }
+
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
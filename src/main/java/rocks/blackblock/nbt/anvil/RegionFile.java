@@ -0,0 +1,312 @@
+package rocks.blackblock.nbt.anvil;
+
+import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
+import rocks.blackblock.nbt.elements.collection.NbtCompound;
+import rocks.blackblock.nbt.io.ByteBufferInput;
+import rocks.blackblock.nbt.io.CompressionType;
+import rocks.blackblock.nbt.io.NbtProjection;
+import rocks.blackblock.nbt.io.NbtReader;
+import rocks.blackblock.nbt.io.NbtStreamReader;
+import lombok.Cleanup;
+import lombok.NonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads chunks from a Minecraft Anvil region file ({@code r.<x>.<z>.mca}).
+ * <p>
+ * The 8 KiB header holding the chunk locations and timestamps is memory-mapped,
+ * and every chunk is fetched with a single positioned read of its sectors, so random access stays cheap.
+ * Chunks stored in external {@code c.<x>.<z>.mcc} files are read from those instead.
+ * <p>
+ * All reading methods may be called concurrently from multiple threads.
+ *
+ * @since   1.6.0
+ */
+public class RegionFile implements Closeable {
+    /**
+     * The size of a sector in a region file, in bytes.
+     */
+    public static final int SECTOR_SIZE = 4096;
+
+    /**
+     * The size of the location and timestamp tables at the start of a region file, in bytes.
+     */
+    public static final int HEADER_SIZE = 2 * SECTOR_SIZE;
+
+    /**
+     * The flag set in the compression byte of chunks that are stored in an external {@code .mcc} file.
+     */
+    public static final int EXTERNAL_FLAG = 0x80;
+
+    static final Pattern REGION_NAME = Pattern.compile("^r\\.(-?\\d+)\\.(-?\\d+)\\.mca$");
+
+    private final File file;
+    private final FileChannel channel;
+    private final ByteBuffer header;
+    private final NbtTypeRegistry registry;
+    private final int regionX;
+    private final int regionZ;
+
+    /**
+     * Opens a region file for reading, using the default {@link NbtTypeRegistry}.
+     *
+     * @param file the region file.
+     * @throws IOException if any I/O error occurs.
+     */
+    public RegionFile(@NonNull File file) throws IOException {
+        this(file, NbtTypeRegistry.getDefault());
+    }
+
+    /**
+     * Opens a region file for reading, using a given {@link NbtTypeRegistry}, which is used for custom tag types.
+     *
+     * @param file the region file.
+     * @param registry the tag type registry to be used.
+     * @throws IOException if any I/O error occurs.
+     */
+    public RegionFile(@NonNull File file, @NonNull NbtTypeRegistry registry) throws IOException {
+        this.file = file;
+        this.registry = registry;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+        try {
+            if (this.channel.size() >= HEADER_SIZE) {
+                this.header = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            } else {
+                // A new (or truncated) region file does not contain any chunks yet
+                this.header = ByteBuffer.allocate(HEADER_SIZE);
+            }
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+
+        Matcher matcher = REGION_NAME.matcher(file.getName());
+
+        if (matcher.matches()) {
+            this.regionX = Integer.parseInt(matcher.group(1));
+            this.regionZ = Integer.parseInt(matcher.group(2));
+        } else {
+            this.regionX = 0;
+            this.regionZ = 0;
+        }
+    }
+
+    /**
+     * Returns the index of a chunk in the location and timestamp tables.
+     * Only the lowest 5 bits of the coordinates are used, so both local and world chunk coordinates are accepted.
+     *
+     * @param chunkX the x coordinate of the chunk.
+     * @param chunkZ the z coordinate of the chunk.
+     * @return the index of the chunk, between 0 and 1023.
+     */
+    public static int getChunkIndex(int chunkX, int chunkZ) {
+        return (chunkX & 31) + (chunkZ & 31) * 32;
+    }
+
+    public File getFile() {
+        return this.file;
+    }
+
+    public int getRegionX() {
+        return this.regionX;
+    }
+
+    public int getRegionZ() {
+        return this.regionZ;
+    }
+
+    /**
+     * Returns true if the region file contains the given chunk.
+     *
+     * @param chunkX the x coordinate of the chunk.
+     * @param chunkZ the z coordinate of the chunk.
+     * @return true if the chunk is present.
+     */
+    public boolean hasChunk(int chunkX, int chunkZ) {
+        return this.getLocation(chunkX, chunkZ) != 0;
+    }
+
+    /**
+     * Returns the time the given chunk was last saved, in seconds since the epoch, or 0 if it is not present.
+     *
+     * @param chunkX the x coordinate of the chunk.
+     * @param chunkZ the z coordinate of the chunk.
+     * @return the timestamp of the chunk.
+     */
+    public int getTimestamp(int chunkX, int chunkZ) {
+        return this.header.getInt(SECTOR_SIZE + getChunkIndex(chunkX, chunkZ) * 4);
+    }
+
+    /**
+     * Reads the given chunk.
+     *
+     * @param chunkX the x coordinate of the chunk.
+     * @param chunkZ the z coordinate of the chunk.
+     * @return the root {@link NbtCompound} of the chunk, or {@code null} if it is not present.
+     * @throws IOException if any I/O error occurs.
+     */
+    public NbtCompound readChunk(int chunkX, int chunkZ) throws IOException {
+        return this.readChunk(chunkX, chunkZ, null);
+    }
+
+    /**
+     * Reads only the given paths of a chunk, skipping everything else.
+     *
+     * @param chunkX the x coordinate of the chunk.
+     * @param chunkZ the z coordinate of the chunk.
+     * @param projection the paths to read, or {@code null} to read the whole chunk.
+     * @return the root {@link NbtCompound} of the chunk, or {@code null} if it is not present.
+     * @throws IOException if any I/O error occurs.
+     * @see NbtProjection
+     */
+    public NbtCompound readChunk(int chunkX, int chunkZ, NbtProjection projection) throws IOException {
+        ByteBuffer data = this.readChunkData(chunkX, chunkZ);
+
+        if (data == null) {
+            return null;
+        }
+
+        NbtReader reader = new NbtReader(this.registry);
+        ByteBufferInput input = new ByteBufferInput(data);
+
+        if (projection == null) {
+            return reader.rootFromStream(input);
+        }
+
+        return reader.rootFromStream(input, projection);
+    }
+
+    /**
+     * Returns a {@link NbtStreamReader} over the given chunk, positioned before its root tag.
+     *
+     * @param chunkX the x coordinate of the chunk.
+     * @param chunkZ the z coordinate of the chunk.
+     * @return a stream reader over the chunk, or {@code null} if it is not present.
+     * @throws IOException if any I/O error occurs.
+     */
+    public NbtStreamReader streamChunk(int chunkX, int chunkZ) throws IOException {
+        ByteBuffer data = this.readChunkData(chunkX, chunkZ);
+
+        if (data == null) {
+            return null;
+        }
+
+        return new NbtStreamReader(data, this.registry);
+    }
+
+    /**
+     * Reads and decompresses the given chunk.
+     *
+     * @param chunkX the x coordinate of the chunk.
+     * @param chunkZ the z coordinate of the chunk.
+     * @return a buffer containing the uncompressed NBT data of the chunk, or {@code null} if it is not present.
+     * @throws IOException if any I/O error occurs.
+     */
+    public ByteBuffer readChunkData(int chunkX, int chunkZ) throws IOException {
+        int location = this.getLocation(chunkX, chunkZ);
+
+        if (location == 0) {
+            return null;
+        }
+
+        long offset = (long) (location >>> 8) * SECTOR_SIZE;
+        int sectors = location & 0xFF;
+
+        if (offset < HEADER_SIZE || sectors == 0) {
+            throw new IOException("Chunk " + chunkX + ", " + chunkZ + " has an invalid location in " + this.file.getName() + ".");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(sectors * SECTOR_SIZE);
+        readFully(this.channel, buffer, offset);
+        buffer.flip();
+
+        if (buffer.remaining() < 5) {
+            throw new EOFException("Chunk " + chunkX + ", " + chunkZ + " is truncated in " + this.file.getName() + ".");
+        }
+
+        int length = buffer.getInt();
+        int compressionId = buffer.get() & 0xFF;
+
+        CompressionType compression = CompressionType.fromRegionId(compressionId & ~EXTERNAL_FLAG);
+
+        if (compression == null) {
+            throw new IOException("Chunk " + chunkX + ", " + chunkZ + " uses unsupported compression type " + (compressionId & ~EXTERNAL_FLAG) + ".");
+        }
+
+        if ((compressionId & EXTERNAL_FLAG) != 0) {
+            byte[] external = Files.readAllBytes(this.getExternalFile(chunkX, chunkZ).toPath());
+            return decompress(compression, external, 0, external.length);
+        }
+
+        // The length includes the compression byte
+        if (length < 1 || length - 1 > buffer.remaining()) {
+            throw new EOFException("Chunk " + chunkX + ", " + chunkZ + " is truncated in " + this.file.getName() + ".");
+        }
+
+        if (compression == CompressionType.NONE) {
+            ByteBuffer result = buffer.slice();
+            result.limit(length - 1);
+            return result;
+        }
+
+        return decompress(compression, buffer.array(), buffer.position(), length - 1);
+    }
+
+    /**
+     * Returns the file an oversized chunk is stored in, next to this region file.
+     *
+     * @param chunkX the x coordinate of the chunk.
+     * @param chunkZ the z coordinate of the chunk.
+     * @return the external chunk file.
+     */
+    public File getExternalFile(int chunkX, int chunkZ) {
+        int x = this.regionX * 32 + (chunkX & 31);
+        int z = this.regionZ * 32 + (chunkZ & 31);
+
+        return new File(this.file.getAbsoluteFile().getParentFile(), "c." + x + "." + z + ".mcc");
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private int getLocation(int chunkX, int chunkZ) {
+        return this.header.getInt(getChunkIndex(chunkX, chunkZ) * 4);
+    }
+
+    /**
+     * Fills the buffer from the given position, stopping early only at the end of the file.
+     */
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+
+            if (read < 0) {
+                break;
+            }
+
+            position += read;
+        }
+    }
+
+    private static ByteBuffer decompress(CompressionType compression, byte[] bytes, int offset, int length) throws IOException {
+        @Cleanup InputStream stream = compression.decompress(new ByteArrayInputStream(bytes, offset, length));
+
+        return ByteBuffer.wrap(stream.readAllBytes()).order(ByteOrder.BIG_ENDIAN);
+    }
+}
@@ -0,0 +1,419 @@
+package rocks.blackblock.nbt.anvil;
+
+import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
+import rocks.blackblock.nbt.elements.collection.NbtCompound;
+import rocks.blackblock.nbt.io.CompressionType;
+import rocks.blackblock.nbt.io.NbtWriter;
+import lombok.NonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.regex.Matcher;
+
+/**
+ * Writes chunks to a Minecraft Anvil region file ({@code r.<x>.<z>.mca}), creating it if needed.
+ * <p>
+ * Sectors are tracked in a free-sector bitmap, and every chunk is written to the first run of free sectors
+ * that is large enough, so space freed by rewritten or deleted chunks is reused.
+ * Chunks are serialized and compressed before any lock is taken; writes to different chunks then proceed in parallel,
+ * and only the sector allocation itself is serialized.
+ * The chunk data is written before its location entry, so a {@link RegionFile} reading the same file never sees
+ * a location pointing to incomplete data. The sectors a chunk occupied before are not reused until the next {@link #flush()},
+ * so a reader that looked up a location before the chunk was rewritten can still read the old data until then.
+ * Chunks that need more than 1 MiB are written to an external {@code c.<x>.<z>.mcc} file.
+ *
+ * @since   1.6.0
+ */
+public class RegionFileWriter implements Closeable {
+    /**
+     * The largest number of sectors a chunk can occupy inside the region file.
+     */
+    public static final int MAX_CHUNK_SECTORS = 255;
+
+    private final File file;
+    private final FileChannel channel;
+    private final NbtTypeRegistry registry;
+    private final CompressionType compression;
+    private final int regionX;
+    private final int regionZ;
+
+    private final int[] locations = new int[1024];
+    private final int[] timestamps = new int[1024];
+    private final Object[] chunkLocks = new Object[1024];
+
+    // Sectors in use, and sectors released since the last flush (still marked as used), guarded by allocatorLock
+    private final BitSet usedSectors = new BitSet();
+    private final BitSet releasedSectors = new BitSet();
+    private final Object allocatorLock = new Object();
+
+    /**
+     * Opens a region file for writing ZLIB-compressed chunks, using the default {@link NbtTypeRegistry}.
+     *
+     * @param file the region file.
+     * @throws IOException if any I/O error occurs.
+     */
+    public RegionFileWriter(@NonNull File file) throws IOException {
+        this(file, CompressionType.ZLIB, NbtTypeRegistry.getDefault());
+    }
+
+    /**
+     * Opens a region file for writing chunks with the given compression, using the default {@link NbtTypeRegistry}.
+     *
+     * @param file the region file.
+     * @param compression the compression to apply to written chunks.
+     * @throws IOException if any I/O error occurs.
+     */
+    public RegionFileWriter(@NonNull File file, @NonNull CompressionType compression) throws IOException {
+        this(file, compression, NbtTypeRegistry.getDefault());
+    }
+
+    /**
+     * Opens a region file for writing chunks with the given compression, using a given {@link NbtTypeRegistry}.
+     *
+     * @param file the region file.
+     * @param compression the compression to apply to written chunks.
+     * @param registry the tag type registry to be used.
+     * @throws IOException if any I/O error occurs.
+     */
+    public RegionFileWriter(@NonNull File file, @NonNull CompressionType compression, @NonNull NbtTypeRegistry registry) throws IOException {
+        this.file = file;
+        this.compression = compression;
+        this.registry = registry;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+
+        for (int i = 0; i < this.chunkLocks.length; i++) {
+            this.chunkLocks[i] = new Object();
+        }
+
+        try {
+            this.readHeader();
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+
+        Matcher matcher = RegionFile.REGION_NAME.matcher(file.getName());
+
+        if (matcher.matches()) {
+            this.regionX = Integer.parseInt(matcher.group(1));
+            this.regionZ = Integer.parseInt(matcher.group(2));
+        } else {
+            this.regionX = 0;
+            this.regionZ = 0;
+        }
+    }
+
+    private void readHeader() throws IOException {
+        long size = this.channel.size();
+        ByteBuffer header = ByteBuffer.allocate(RegionFile.HEADER_SIZE);
+
+        if (size < RegionFile.HEADER_SIZE) {
+            // New (or truncated) file: start with an empty header
+            writeFully(this.channel, header, 0);
+            size = RegionFile.HEADER_SIZE;
+        } else {
+            RegionFile.readFully(this.channel, header, 0);
+            header.flip();
+        }
+
+        long fileSectors = (size + RegionFile.SECTOR_SIZE - 1) / RegionFile.SECTOR_SIZE;
+
+        this.usedSectors.set(0, 2);
+
+        for (int i = 0; i < 1024; i++) {
+            int location = header.getInt(i * 4);
+            int offset = location >>> 8;
+            int sectors = location & 0xFF;
+
+            this.timestamps[i] = header.getInt(RegionFile.SECTOR_SIZE + i * 4);
+
+            if (location == 0) {
+                continue;
+            }
+
+            if (offset < 2 || sectors == 0 || offset + sectors > fileSectors) {
+                // Points outside the file (or into the header), so it can never be read back
+                this.locations[i] = 0;
+                continue;
+            }
+
+            this.locations[i] = location;
+            this.usedSectors.set(offset, offset + sectors);
+        }
+    }
+
+    public File getFile() {
+        return this.file;
+    }
+
+    public CompressionType getCompression() {
+        return this.compression;
+    }
+
+    /**
+     * Returns true if the region file contains the given chunk.
+     *
+     * @param chunkX the x coordinate of the chunk.
+     * @param chunkZ the z coordinate of the chunk.
+     * @return true if the chunk is present.
+     */
+    public boolean hasChunk(int chunkX, int chunkZ) {
+        int index = RegionFile.getChunkIndex(chunkX, chunkZ);
+
+        synchronized (this.chunkLocks[index]) {
+            return this.locations[index] != 0;
+        }
+    }
+
+    /**
+     * Returns the time the given chunk was last saved, in seconds since the epoch, or 0 if it is not present.
+     *
+     * @param chunkX the x coordinate of the chunk.
+     * @param chunkZ the z coordinate of the chunk.
+     * @return the timestamp of the chunk.
+     */
+    public int getTimestamp(int chunkX, int chunkZ) {
+        int index = RegionFile.getChunkIndex(chunkX, chunkZ);
+
+        synchronized (this.chunkLocks[index]) {
+            return this.timestamps[index];
+        }
+    }
+
+    /**
+     * Writes the given chunk, replacing any previous version of it.
+     *
+     * @param chunkX the x coordinate of the chunk.
+     * @param chunkZ the z coordinate of the chunk.
+     * @param chunk the root {@link NbtCompound} of the chunk.
+     * @throws IOException if any I/O error occurs.
+     */
+    public void writeChunk(int chunkX, int chunkZ, @NonNull NbtCompound chunk) throws IOException {
+        this.writeChunk(chunkX, chunkZ, chunk, (int) (System.currentTimeMillis() / 1000L));
+    }
+
+    /**
+     * Writes the given chunk with the given timestamp, replacing any previous version of it.
+     *
+     * @param chunkX the x coordinate of the chunk.
+     * @param chunkZ the z coordinate of the chunk.
+     * @param chunk the root {@link NbtCompound} of the chunk.
+     * @param timestamp the time the chunk was saved, in seconds since the epoch.
+     * @throws IOException if any I/O error occurs.
+     */
+    public void writeChunk(int chunkX, int chunkZ, @NonNull NbtCompound chunk, int timestamp) throws IOException {
+        int index = RegionFile.getChunkIndex(chunkX, chunkZ);
+
+        // Serialize and compress before taking any lock, leaving room for the length and compression byte
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(RegionFile.SECTOR_SIZE);
+        baos.write(new byte[5], 0, 5);
+
+        DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(this.compression.compress(baos)));
+        new NbtWriter(this.registry).toStream(chunk, dos);
+        dos.close();
+
+        byte[] data = baos.toByteArray();
+        int sectors = sectorsFor(data.length);
+        boolean external = sectors > MAX_CHUNK_SECTORS;
+
+        synchronized (this.chunkLocks[index]) {
+            // The external file is written under the chunk lock too, so a concurrent write of the same chunk
+            // can neither replace it nor delete it before the header points to it
+            if (external) {
+                writeExternal(this.getExternalFile(chunkX, chunkZ), data);
+
+                data = new byte[5];
+                ByteBuffer.wrap(data).putInt(1).put((byte) (this.compression.getRegionId() | RegionFile.EXTERNAL_FLAG));
+                sectors = 1;
+            } else {
+                ByteBuffer.wrap(data).putInt(data.length - 4).put((byte) this.compression.getRegionId());
+            }
+
+            int offset = this.allocate(sectors);
+
+            try {
+                // Pad to whole sectors, so the file always ends on a sector boundary
+                writeFully(this.channel, ByteBuffer.wrap(Arrays.copyOf(data, sectors * RegionFile.SECTOR_SIZE)), (long) offset * RegionFile.SECTOR_SIZE);
+            } catch (IOException e) {
+                // Never published, so it can be reused right away
+                synchronized (this.allocatorLock) {
+                    this.usedSectors.clear(offset, offset + sectors);
+                }
+
+                throw e;
+            }
+
+            int previous = this.locations[index];
+            this.writeHeaderEntry(index, (offset << 8) | sectors, timestamp);
+            this.free(previous);
+
+            if (!external) {
+                Files.deleteIfExists(this.getExternalFile(chunkX, chunkZ).toPath());
+            }
+        }
+    }
+
+    /**
+     * Removes the given chunk from the region file, releasing its sectors.
+     *
+     * @param chunkX the x coordinate of the chunk.
+     * @param chunkZ the z coordinate of the chunk.
+     * @throws IOException if any I/O error occurs.
+     */
+    public void deleteChunk(int chunkX, int chunkZ) throws IOException {
+        int index = RegionFile.getChunkIndex(chunkX, chunkZ);
+
+        synchronized (this.chunkLocks[index]) {
+            int previous = this.locations[index];
+
+            if (previous == 0) {
+                return;
+            }
+
+            this.writeHeaderEntry(index, 0, 0);
+            this.free(previous);
+
+            Files.deleteIfExists(this.getExternalFile(chunkX, chunkZ).toPath());
+        }
+    }
+
+    /**
+     * Returns the file an oversized chunk is stored in, next to this region file.
+     *
+     * @param chunkX the x coordinate of the chunk.
+     * @param chunkZ the z coordinate of the chunk.
+     * @return the external chunk file.
+     */
+    public File getExternalFile(int chunkX, int chunkZ) {
+        int x = this.regionX * 32 + (chunkX & 31);
+        int z = this.regionZ * 32 + (chunkZ & 31);
+
+        return new File(this.file.getAbsoluteFile().getParentFile(), "c." + x + "." + z + ".mcc");
+    }
+
+    /**
+     * Forces all written chunks to the storage device, and makes the sectors released since the last flush available again.
+     *
+     * @throws IOException if any I/O error occurs.
+     */
+    public void flush() throws IOException {
+        this.channel.force(true);
+
+        synchronized (this.allocatorLock) {
+            this.usedSectors.andNot(this.releasedSectors);
+            this.releasedSectors.clear();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.flush();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Writes the timestamp and then the location of a chunk. The location is a single aligned int,
+     * so readers see either the old or the new location, never a mix of both.
+     */
+    private void writeHeaderEntry(int index, int location, int timestamp) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+
+        buffer.putInt(0, timestamp);
+        writeFully(this.channel, buffer, RegionFile.SECTOR_SIZE + index * 4L);
+
+        buffer.clear();
+        buffer.putInt(0, location);
+        writeFully(this.channel, buffer, index * 4L);
+
+        this.locations[index] = location;
+        this.timestamps[index] = timestamp;
+    }
+
+    /**
+     * Reserves the first run of free sectors that is large enough.
+     */
+    private int allocate(int sectors) throws IOException {
+        synchronized (this.allocatorLock) {
+            int start = this.usedSectors.nextClearBit(2);
+
+            while (true) {
+                int end = this.usedSectors.nextSetBit(start);
+
+                if (end < 0 || end - start >= sectors) {
+                    break;
+                }
+
+                start = this.usedSectors.nextClearBit(end);
+            }
+
+            if (start + sectors > 0xFFFFFF) {
+                throw new IOException("Region file " + this.file.getName() + " is full.");
+            }
+
+            this.usedSectors.set(start, start + sectors);
+
+            return start;
+        }
+    }
+
+    /**
+     * Releases the sectors of a location that is no longer in the header. They stay reserved until the next flush,
+     * as readers may still be reading them.
+     */
+    private void free(int location) {
+        if (location == 0) {
+            return;
+        }
+
+        int offset = location >>> 8;
+
+        synchronized (this.allocatorLock) {
+            this.releasedSectors.set(offset, offset + (location & 0xFF));
+        }
+    }
+
+    private static int sectorsFor(int length) {
+        return (length + RegionFile.SECTOR_SIZE - 1) / RegionFile.SECTOR_SIZE;
+    }
+
+    /**
+     * Writes the compressed data (without the length and compression byte) to a uniquely named temporary file,
+     * and moves it into place so a reader never sees a partial external chunk.
+     */
+    private static void writeExternal(File external, byte[] data) throws IOException {
+        Path temporary = Files.createTempFile(external.getParentFile().toPath(), external.getName(), ".tmp");
+
+        try {
+            Files.write(temporary, Arrays.copyOfRange(data, 5, data.length));
+
+            try {
+                Files.move(temporary, external.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temporary, external.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package rocks.blackblock.nbt.api;
 
 import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
+import rocks.blackblock.nbt.api.visitor.NbtVisitor;
+import rocks.blackblock.nbt.io.ByteBufferInput;
+import rocks.blackblock.nbt.io.ByteBufferOutput;
 
 import java.io.DataInput;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.util.Objects;
 
 /**
  * An abstract NBT tag.
@@ -12,7 +20,23 @@ import java.io.IOException;
  * @author dewy
  */
 public abstract class NbtElement {
+    // The no-args constructors that tag types without a copy() of their own are copied with, looked up once per type
+    private static final ClassValue<Constructor<?>> CONSTRUCTORS = new ClassValue<Constructor<?>>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> type) {
+            try {
+                Constructor<?> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+
+                return constructor;
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("Tag type class " + type.getSimpleName() + " has no no-args constructor, so it cannot be copied.", e);
+            }
+        }
+    };
+
     private String name;
+    private boolean frozen;
 
     /**
      * Returns the name (key) of this tag.
@@ -29,9 +53,136 @@ public abstract class NbtElement {
      * @param name the new name to be set.
      */
     public void setName(String name) {
+        if (this.frozen && !Objects.equals(this.name, name)) {
+            this.checkMutable();
+        }
+
         this.name = name;
     }
 
+    /**
+     * Makes this tag, and every tag inside it, immutable. This can not be undone.
+     * Mutators of a frozen tag throw an {@link UnsupportedOperationException}, and its views are unmodifiable.
+     * <p>
+     * Frozen tags cache their hash code and encoded size, which makes them cheap {@code HashMap} keys.
+     * A frozen tree can be handed to other threads without copying it.
+     *
+     * @since   1.6.0
+     *
+     * @return this tag.
+     */
+    public NbtElement freeze() {
+        this.frozen = true;
+        return this;
+    }
+
+    /**
+     * Returns true if this tag has been frozen.
+     *
+     * @since   1.6.0
+     *
+     * @return true if this tag is immutable.
+     */
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    /**
+     * Returns an immutable version of this tag: this tag itself if it is frozen already, or a frozen copy otherwise.
+     *
+     * @since   1.6.0
+     *
+     * @return a frozen tag equal to this one.
+     */
+    public NbtElement toImmutable() {
+        return this.frozen ? this : this.copy().freeze();
+    }
+
+    /**
+     * Returns a deep copy of this tag, sharing nothing that can be changed with it. The copy is never frozen.
+     * <p>
+     * Tag types that do not override this are copied by writing them and reading them back into a new instance of their class,
+     * which takes its no-args constructor (like a tag type registered without an instantiator).
+     *
+     * @since   1.6.0
+     *
+     * @return a deep copy of this tag.
+     */
+    public NbtElement copy() {
+        return this.reencode();
+    }
+
+    /**
+     * Returns a copy of this tag, either a deep one (see {@link #copy()}) or a copy-on-write one (see {@link #snapshot()}).
+     * A copy-on-write copy of a frozen tag is a deep one, so that the copy can always be changed.
+     *
+     * @since   1.6.0
+     *
+     * @param copyOnWrite true to share the contents until either side is changed.
+     * @return a copy of this tag that is not frozen.
+     */
+    public NbtElement copy(boolean copyOnWrite) {
+        return copyOnWrite && !this.frozen ? this.snapshot() : this.copy();
+    }
+
+    /**
+     * Returns a copy of this tag that can be changed independently of it.
+     * Compounds, lists and arrays do this in constant time: the copy shares the contents,
+     * and whichever of the two is changed first copies just the part it changes (copy-on-write).
+     * That makes this suited for handing a consistent view of live data to another thread, like a save thread.
+     * <p>
+     * This is not safe for tags that were taken out of the tree before the snapshot was made: the snapshot holds those
+     * very tags, so changing them changes the snapshot as well. Take them out of the tree again before changing them;
+     * the tags handed out after the snapshot are copy-on-write copies of their own. A frozen tag is its own snapshot.
+     * <p>
+     * Tag types that do not override this are copied by writing them and reading them back into a new instance of their class,
+     * which takes its no-args constructor (like a tag type registered without an instantiator).
+     * Within a compound or list that is snapshotted, such tags are not copied at all: the tree and its snapshot share them as they are.
+     *
+     * @since   1.6.0
+     *
+     * @return an independent copy of this tag.
+     */
+    public NbtElement snapshot() {
+        return this.frozen ? this : this.reencode();
+    }
+
+    /**
+     * Copies this tag by encoding and decoding it.
+     * The copy is created from the class of this tag rather than from a registry, so custom tag types can be copied too.
+     */
+    private NbtElement reencode() {
+        NbtTypeRegistry registry = NbtTypeRegistry.getDefault();
+
+        try {
+            byte[] bytes = new byte[this.getEncodedSize()];
+            this.write(new ByteBufferOutput(bytes), 0, registry);
+
+            NbtElement result = (NbtElement) CONSTRUCTORS.get(this.getClass()).newInstance();
+            result.read(new ByteBufferInput(bytes), 0, registry);
+            result.setName(this.name);
+
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Instance of tag type class " + this.getClass().getSimpleName() + " could not be created.", e);
+        }
+    }
+
+    /**
+     * Throws if this tag is frozen. To be called by every method that modifies a tag.
+     *
+     * @since   1.6.0
+     *
+     * @throws UnsupportedOperationException if this tag is frozen.
+     */
+    protected final void checkMutable() {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("This tag is frozen and can not be modified.");
+        }
+    }
+
     /**
      * Returns a unique ID for this NBT tag type. 0 to 12 (inclusive) are reserved.
      *
@@ -66,4 +217,37 @@ public abstract class NbtElement {
      * @throws IOException if any I/O error occurs.
      */
     public abstract NbtElement read(DataInput input, int depth, NbtTypeRegistry registry) throws IOException;
+
+    /**
+     * Returns the exact number of bytes the payload of this tag takes up when written,
+     * not including its type ID and name. Used to write into a right-sized buffer in one go.
+     * <p>
+     * Tag types that do not override this are measured by writing them (with the default {@link NbtTypeRegistry}) and counting the bytes.
+     *
+     * @since   1.6.0
+     *
+     * @return the encoded size of the payload, in bytes.
+     */
+    public int getEncodedSize() {
+        DataOutputStream counter = new DataOutputStream(OutputStream.nullOutputStream());
+
+        try {
+            this.write(counter, 0, NbtTypeRegistry.getDefault());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return counter.size();
+    }
+
+    /**
+     * Reports the value of this tag to a {@link NbtVisitor}. The tag's own name is not reported.
+     * Tag types that are not standard are reported as a whole through {@link NbtVisitor#visitElement(NbtElement)}.
+     *
+     * @param visitor the visitor to report to.
+     * @throws IOException if the visitor throws one.
+     */
+    public void accept(NbtVisitor visitor) throws IOException {
+        visitor.visitElement(this);
+    }
 }
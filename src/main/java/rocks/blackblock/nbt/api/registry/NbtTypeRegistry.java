@@ -16,20 +16,49 @@ import java.util.function.Supplier;
  * @author dewy
  */
 public class NbtTypeRegistry {
+    private static final NbtTypeRegistry DEFAULT = new NbtTypeRegistry().lock();
+
     private final Map<Byte, NbtElementInfo<? extends NbtElement>> registry = new HashMap<>();
 
+    // True for the shared default registry, which cannot be changed
+    private boolean locked;
+
+    /**
+     * Immutable snapshot of the registry, indexed by {@code id & 0xFF}.
+     * Rebuilt on every (de)registration so readers never have to lock or box the ID.
+     */
+    private volatile NbtElementInfo<?>[] table = new NbtElementInfo<?>[256];
+
     {
         NbtType.registerAll(this);
     }
 
+    /**
+     * Returns a shared registry containing only the standard 12 tag types.
+     * Meant for places that need a registry but have none at hand, like {@code toString()}.
+     * It cannot be changed: construct a registry of your own to register custom tag types with.
+     *
+     * @since   1.6.0
+     *
+     * @return the shared default {@link NbtTypeRegistry}.
+     */
+    public static NbtTypeRegistry getDefault() {
+        return DEFAULT;
+    }
+
     /**
      * Register a custom-made tag type with a unique {@code byte} ID. IDs 0-12 (inclusive) are reserved and may not be used.
      *
      * @param id the tag type's unique ID used in reading and writing.
      * @param clazz the tag type class.
-     * @throws NbtTypeRegistryException if the ID provided is either registered already or is a reserved ID (0-12 inclusive).
+     * @throws NbtTypeRegistryException if the ID provided is either registered already or is a reserved ID (0-12 inclusive),
+     *                                  or if this is the default registry.
      */
     public <T extends NbtElement> void registerTagType(byte id, @NonNull Class<T> clazz, Supplier<T> instantiator) throws NbtTypeRegistryException {
+        if (this.locked) {
+            throw new NbtTypeRegistryException("Cannot register NBT tag type " + clazz + " with the default registry, construct a registry of your own instead.");
+        }
+
         if (id == 0) {
             throw new NbtTypeRegistryException("Cannot register NBT tag type " + clazz + " with ID " + id + ", as that ID is reserved.");
         }
@@ -38,23 +67,34 @@ public class NbtTypeRegistry {
             throw new NbtTypeRegistryException("Cannot register NBT tag type " + clazz + " with ID " + id + ", as that ID is already in use by the tag type " + this.registry.get(id).getElementClass().getSimpleName());
         }
 
+        if (instantiator == null) {
+            instantiator = reflectiveInstantiator(clazz);
+        }
+
         NbtElementInfo<T> info = new NbtElementInfo<>(clazz, instantiator);
 
         this.registry.put(id, info);
+        this.compile();
     }
 
     /**
-     * Deregister a custom-made tag type with a provided tag type ID.
+     * Deregister a custom-made tag type with a provided tag type ID. The default registry has none, so this always fails for it.
      *
      * @param id the ID of the tag type to deregister.
      * @return if the tag type was deregistered successfully.
      */
     public boolean deregisterTagType(byte id)  {
-        if (id >= 0 && id <= 12) {
+        if (this.locked || (id >= 0 && id <= 12)) {
             return false;
         }
 
-        return this.registry.remove(id) != null;
+        boolean removed = this.registry.remove(id) != null;
+
+        if (removed) {
+            this.compile();
+        }
+
+        return removed;
     }
 
     /**
@@ -65,7 +105,13 @@ public class NbtTypeRegistry {
      * @return if the tag type was deregistered successfully.
      */
     public boolean deregisterTagType(byte id, Class<? extends NbtElement> clazz) {
-        return this.registry.remove(id, clazz);
+        NbtElementInfo<?> info = this.registry.get(id);
+
+        if (info == null || info.getElementClass() != clazz) {
+            return false;
+        }
+
+        return this.deregisterTagType(id);
     }
 
     /**
@@ -75,7 +121,13 @@ public class NbtTypeRegistry {
      * @return a tag type class value from the registry from a provided {@code byte} ID.
      */
     public Class<? extends NbtElement> getClassFromId(byte id) {
-        return this.registry.get(id).getElementClass();
+        NbtElementInfo<?> info = this.table[id & 0xFF];
+
+        if (info == null) {
+            return null;
+        }
+
+        return info.getElementClass();
     }
 
     /**
@@ -84,7 +136,7 @@ public class NbtTypeRegistry {
      * @since   1.6.0
      */
     public NbtElement createInstanceFromId(byte id) {
-        NbtElementInfo info = this.registry.get(id);
+        NbtElementInfo<?> info = this.table[id & 0xFF];
 
         if (info == null) {
             return null;
@@ -93,6 +145,52 @@ public class NbtTypeRegistry {
         return info.createInstance();
     }
 
+    /**
+     * Makes this registry unchangeable, for the default registry.
+     */
+    private NbtTypeRegistry lock() {
+        this.locked = true;
+
+        return this;
+    }
+
+    /**
+     * Rebuild the byte-indexed lookup table from the registry map.
+     * The previous table is never modified, so readers holding it stay consistent.
+     */
+    private void compile() {
+        NbtElementInfo<?>[] compiled = new NbtElementInfo<?>[256];
+
+        for (Map.Entry<Byte, NbtElementInfo<? extends NbtElement>> entry : this.registry.entrySet()) {
+            compiled[entry.getKey() & 0xFF] = entry.getValue();
+        }
+
+        this.table = compiled;
+    }
+
+    /**
+     * Create an instantiator for tag types registered without one.
+     * The constructor is looked up once, instead of on every instantiation.
+     */
+    private static <T extends NbtElement> Supplier<T> reflectiveInstantiator(Class<T> clazz) throws NbtTypeRegistryException {
+        Constructor<T> constructor;
+
+        try {
+            constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (ReflectiveOperationException e) {
+            throw new NbtTypeRegistryException("Tag type class " + clazz.getSimpleName() + " has no no-args constructor.", e);
+        }
+
+        return () -> {
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Instance of tag type class " + clazz.getSimpleName() + " could not be created.", e);
+            }
+        };
+    }
+
     /**
      * Returns an empty instance of the given {@link NbtElement} type, with a {@code null} name and a default (possibly {@code null}) value.
      * Only use this if you really know what you're doing.
@@ -2,11 +2,31 @@ package rocks.blackblock.nbt.api.snbt;
 
 import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
 
+import java.io.IOException;
+
 /**
- * Interface for SNBT serialization. Must be implemented if your tag will be SNBT serializable. Reading is not yet supported.
+ * Interface for SNBT serialization. Must be implemented if your tag will be SNBT serializable.
+ * Reading is done by {@link rocks.blackblock.nbt.io.SnbtParser}.
  *
  * @author dewy
  */
 public interface SnbtSerializable {
     String toSnbt(int depth, NbtTypeRegistry registry, SnbtConfig config);
+
+    /**
+     * Writes the SNBT of this tag to the given output, like a {@link StringBuilder} or a {@link java.io.Writer}.
+     * The default implementation appends the result of {@link #toSnbt(int, NbtTypeRegistry, SnbtConfig)};
+     * compounds, lists and arrays write their children straight to the output instead, so a tree is never built up as nested strings.
+     *
+     * @since   1.6.0
+     *
+     * @param output the output to write to.
+     * @param depth the depth of this tag, for indentation.
+     * @param registry the tag type registry.
+     * @param config the SNBT config.
+     * @throws IOException if the output throws one.
+     */
+    default void writeSnbt(Appendable output, int depth, NbtTypeRegistry registry, SnbtConfig config) throws IOException {
+        output.append(this.toSnbt(depth, registry, config));
+    }
 }
@@ -0,0 +1,127 @@
+package rocks.blackblock.nbt.api.visitor;
+
+import rocks.blackblock.nbt.api.NbtElement;
+
+import java.io.IOException;
+
+/**
+ * Push-style interface for single-pass processing of NBT structures.
+ * It can be driven straight from bytes by {@link rocks.blackblock.nbt.io.NbtReader#accept(java.io.DataInput, NbtVisitor)}
+ * or from a tree by {@link NbtElement#accept(NbtVisitor)}, and no intermediate {@link NbtElement}s are created for the standard tag types.
+ * <p>
+ * Every method has an empty default implementation, so only the interesting ones need to be overridden.
+ * Returning {@link Result#SKIP} from {@link #visitKey}, {@link #visitCompoundStart()} or {@link #visitListStart}
+ * drops the value or subtree: it is skipped by length without being decoded, and no further callbacks are made for it.
+ * <p>
+ * Callbacks arrive in this order: a named tag (including the root) gets {@link #visitKey} followed by its value.
+ * A compound value is {@link #visitCompoundStart()}, its named entries, then {@link #visitCompoundEnd()}.
+ * A list value is {@link #visitListStart}, its unnamed elements, then {@link #visitListEnd()}.
+ *
+ * @since   1.6.0
+ */
+public interface NbtVisitor {
+
+    /**
+     * What a visitor wants to happen with the value it was just told about.
+     */
+    enum Result {
+        /**
+         * Visit the value (and its children).
+         */
+        CONTINUE,
+
+        /**
+         * Skip the value (and its children).
+         */
+        SKIP
+    }
+
+    /**
+     * Called before the value of a named tag.
+     *
+     * @param key the name of the tag.
+     * @param typeId the type ID of the tag.
+     * @return {@link Result#SKIP} to skip the value.
+     * @throws IOException if any I/O error occurs.
+     */
+    default Result visitKey(String key, byte typeId) throws IOException {
+        return Result.CONTINUE;
+    }
+
+    /**
+     * Called when a compound tag starts.
+     *
+     * @return {@link Result#SKIP} to skip the whole compound, in which case {@link #visitCompoundEnd()} is not called.
+     * @throws IOException if any I/O error occurs.
+     */
+    default Result visitCompoundStart() throws IOException {
+        return Result.CONTINUE;
+    }
+
+    /**
+     * Called after the last entry of a compound tag.
+     *
+     * @throws IOException if any I/O error occurs.
+     */
+    default void visitCompoundEnd() throws IOException {
+    }
+
+    /**
+     * Called when a list tag starts.
+     *
+     * @param typeId the type ID of the list's elements.
+     * @param length the number of elements in the list.
+     * @return {@link Result#SKIP} to skip the whole list, in which case {@link #visitListEnd()} is not called.
+     * @throws IOException if any I/O error occurs.
+     */
+    default Result visitListStart(byte typeId, int length) throws IOException {
+        return Result.CONTINUE;
+    }
+
+    /**
+     * Called after the last element of a list tag.
+     *
+     * @throws IOException if any I/O error occurs.
+     */
+    default void visitListEnd() throws IOException {
+    }
+
+    default void visitByte(byte value) throws IOException {
+    }
+
+    default void visitShort(short value) throws IOException {
+    }
+
+    default void visitInt(int value) throws IOException {
+    }
+
+    default void visitLong(long value) throws IOException {
+    }
+
+    default void visitFloat(float value) throws IOException {
+    }
+
+    default void visitDouble(double value) throws IOException {
+    }
+
+    default void visitString(String value) throws IOException {
+    }
+
+    default void visitByteArray(byte[] value) throws IOException {
+    }
+
+    default void visitIntArray(int[] value) throws IOException {
+    }
+
+    default void visitLongArray(long[] value) throws IOException {
+    }
+
+    /**
+     * Called for tags of a custom-made type, which can only be read as a whole.
+     *
+     * @param element the custom tag.
+     * @throws IOException if any I/O error occurs.
+     */
+    default void visitElement(NbtElement element) throws IOException {
+    }
+}
@@ -9,8 +9,6 @@ import rocks.blackblock.nbt.elements.collection.NbtCompound;
 import rocks.blackblock.nbt.elements.collection.NbtList;
 import rocks.blackblock.nbt.elements.primitive.*;
 
-import java.util.ArrayList;
-
 /**
  * Defines the 12 standard NBT tag types and their IDs supported by this library, laid out in the Notchian spec.
  *
@@ -119,12 +117,12 @@ public enum NbtType {
             registry.registerTagType(LONG.getId(), NbtLong.class, () -> new NbtLong(0));
             registry.registerTagType(FLOAT.getId(), NbtFloat.class, () -> new NbtFloat(0));
             registry.registerTagType(DOUBLE.getId(), NbtDouble.class, () -> new NbtDouble(0));
-            registry.registerTagType(BYTE_ARRAY.getId(), NbtByteArray.class, () -> new NbtByteArray(new ArrayList<>()));
+            registry.registerTagType(BYTE_ARRAY.getId(), NbtByteArray.class, NbtByteArray::new);
             registry.registerTagType(STRING.getId(), NbtString.class, () -> new NbtString(""));
             registry.registerTagType(LIST.getId(), NbtList.class, NbtList::new);
             registry.registerTagType(COMPOUND.getId(), NbtCompound.class, NbtCompound::new);
-            registry.registerTagType(INT_ARRAY.getId(), NbtIntArray.class, () -> new NbtIntArray(new ArrayList<>()));
-            registry.registerTagType(LONG_ARRAY.getId(), NbtLongArray.class, () -> new NbtLongArray(new ArrayList<>()));
+            registry.registerTagType(INT_ARRAY.getId(), NbtIntArray.class, NbtIntArray::new);
+            registry.registerTagType(LONG_ARRAY.getId(), NbtLongArray.class, NbtLongArray::new);
         } catch (NbtTypeRegistryException e) {
             // Should never happen.
             e.printStackTrace();
@@ -5,7 +5,9 @@ import rocks.blackblock.nbt.api.json.JsonSerializable;
 import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
 import rocks.blackblock.nbt.api.snbt.SnbtConfig;
 import rocks.blackblock.nbt.api.snbt.SnbtSerializable;
+import rocks.blackblock.nbt.utils.StringUtils;
 
+import java.io.IOException;
 import java.util.regex.Pattern;
 
 /**
@@ -57,7 +59,7 @@ public abstract class AbstractNbtList<T> extends NbtElement implements SnbtSeria
      */
     @SafeVarargs
     public final void add(T... elements) {
-        this.insert(this.size() - 1, elements);
+        this.insert(this.size(), elements);
     }
 
     /**
@@ -74,8 +76,70 @@ public abstract class AbstractNbtList<T> extends NbtElement implements SnbtSeria
      */
     public abstract void clear();
 
+    @Override
+    public String toSnbt(int depth, NbtTypeRegistry registry, SnbtConfig config) {
+        return StringUtils.toSnbt(this, depth, registry, config);
+    }
+
+    @Override
+    public void writeSnbt(Appendable output, int depth, NbtTypeRegistry registry, SnbtConfig config) throws IOException {
+        int size = this.size();
+        boolean block = config.isPrettyPrint() && size < config.getInlineThreshold();
+
+        output.append('[').append(this.getSnbtType()).append(';');
+
+        if (block) {
+            output.append('\n');
+            StringUtils.appendIndent(output, depth + 1, config);
+        } else if (config.isPrettyPrint()) {
+            output.append(' ');
+        }
+
+        for (int i = 0; i < size; ++i) {
+            if (i != 0) {
+                if (block) {
+                    output.append(",\n");
+                    StringUtils.appendIndent(output, depth + 1, config);
+                } else if (config.isPrettyPrint()) {
+                    output.append(", ");
+                } else {
+                    output.append(',');
+                }
+            }
+
+            this.writeSnbtElement(output, i);
+        }
+
+        if (block) {
+            output.append('\n');
+            StringUtils.appendIndent(output, depth, config);
+        }
+
+        output.append(']');
+    }
+
+    /**
+     * Returns the letter that marks the type of this array in SNBT, like the {@code I} in {@code [I;1,2,3]}.
+     *
+     * @since   1.6.0
+     *
+     * @return the SNBT type letter.
+     */
+    protected abstract char getSnbtType();
+
+    /**
+     * Writes the SNBT of the element at the given index, including its suffix.
+     *
+     * @since   1.6.0
+     *
+     * @param output the output to write to.
+     * @param index the index of the element.
+     * @throws IOException if the output throws one.
+     */
+    protected abstract void writeSnbtElement(Appendable output, int index) throws IOException;
+
     @Override
     public String toString() {
-        return this.toSnbt(0, new NbtTypeRegistry(), new SnbtConfig());
+        return this.toSnbt(0, NbtTypeRegistry.getDefault(), new SnbtConfig());
     }
 }
@@ -3,11 +3,11 @@ package rocks.blackblock.nbt.elements.array;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
-import rocks.blackblock.nbt.api.snbt.SnbtConfig;
+import rocks.blackblock.nbt.api.visitor.NbtVisitor;
 import rocks.blackblock.nbt.elements.NbtType;
 import rocks.blackblock.nbt.elements.primitive.NbtByte;
+import rocks.blackblock.nbt.utils.IoUtils;
 import rocks.blackblock.nbt.utils.StringUtils;
-import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import org.apache.commons.lang3.ArrayUtils;
@@ -18,7 +18,10 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.Consumer;
 
 /**
@@ -28,9 +31,24 @@ import java.util.function.Consumer;
  * @author dewy
  */
 @NoArgsConstructor
-@AllArgsConstructor
 public class NbtByteArray extends AbstractNbtList<Byte> {
-    private @NonNull byte[] value;
+    // The values, possibly followed by spare capacity
+    private @NonNull byte[] value = ArrayUtils.EMPTY_BYTE_ARRAY;
+
+    // The number of values in use
+    private int size;
+
+    // True while the array may be shared with a snapshot, so it is copied before being changed in place
+    private boolean shared;
+
+    /**
+     * Constructs an unnamed byte array tag with a given value.
+     *
+     * @param value the tag's {@code byte[]} value.
+     */
+    public NbtByteArray(@NonNull byte[] value) {
+        this(null, value);
+    }
 
     /**
      * Constructs a byte array tag with a given name and value.
@@ -68,8 +86,21 @@ public class NbtByteArray extends AbstractNbtList<Byte> {
         return NbtType.BYTE_ARRAY.getId();
     }
 
+    /**
+     * Returns the {@code byte[]} value of this tag, trimmed to its size (see {@link #trimToSize()}).
+     * If the tag is frozen, this is a copy.
+     *
+     * @return the {@code byte[]} value of this tag.
+     */
     @Override
     public byte[] getValue() {
+        if (this.isFrozen()) {
+            return Arrays.copyOf(this.value, this.size);
+        }
+
+        this.trimToSize();
+        this.unshare();
+
         return this.value;
     }
 
@@ -79,25 +110,131 @@ public class NbtByteArray extends AbstractNbtList<Byte> {
      * @param value new {@code byte[]} value to be set.
      */
     public void setValue(@NonNull byte[] value) {
+        this.checkMutable();
+
         this.value = value;
+        this.size = value.length;
+        this.shared = false;
+    }
+
+    @Override
+    public NbtByteArray copy() {
+        return new NbtByteArray(this.getName(), Arrays.copyOf(this.value, this.size));
+    }
+
+    @Override
+    public NbtByteArray snapshot() {
+        if (this.isFrozen()) {
+            return this;
+        }
+
+        NbtByteArray result = new NbtByteArray(this.getName(), this.value);
+        result.size = this.size;
+        result.shared = true;
+        this.shared = true;
+
+        return result;
+    }
+
+    /**
+     * Copies the array if it may be shared with a snapshot.
+     */
+    private void unshare() {
+        if (this.shared) {
+            this.value = this.value.clone();
+            this.shared = false;
+        }
+    }
+
+    @Override
+    public NbtByteArray freeze() {
+        if (!this.isFrozen()) {
+            this.trimToSize();
+        }
+
+        super.freeze();
+
+        return this;
+    }
+
+    /**
+     * Makes sure this array can hold at least the given number of values without growing its backing array again.
+     *
+     * @since   1.6.0
+     *
+     * @param minCapacity the number of values this array should be able to hold.
+     */
+    public void ensureCapacity(int minCapacity) {
+        this.checkMutable();
+        this.unshare();
+
+        this.grow(minCapacity);
+    }
+
+    /**
+     * Shrinks the backing array to the number of values in use, releasing the spare capacity left by adding values.
+     * Writing this tag only ever writes the values in use, so this is not needed for serialization;
+     * it is for arrays that are kept around once they have been built.
+     *
+     * @since   1.6.0
+     */
+    public void trimToSize() {
+        this.checkMutable();
+
+        if (this.value.length != this.size) {
+            this.value = Arrays.copyOf(this.value, this.size);
+            this.shared = false;
+        }
+    }
+
+    /**
+     * Grows the (unshared) backing array by half at least, to hold at least the given number of values.
+     */
+    private void grow(int minCapacity) {
+        int capacity = this.value.length;
+
+        if (minCapacity > capacity) {
+            this.value = Arrays.copyOf(this.value, Math.max(minCapacity, capacity < 8 ? 8 : capacity + (capacity >> 1)));
+        }
+    }
+
+    /**
+     * Returns the values in use, as the backing array itself if it has no spare capacity.
+     */
+    private byte[] values() {
+        return this.value.length == this.size ? this.value : Arrays.copyOf(this.value, this.size);
+    }
+
+    @Override
+    public int getEncodedSize() {
+        return 4 + this.size;
     }
 
     @Override
     public void write(DataOutput output, int depth, NbtTypeRegistry registry) throws IOException {
-        output.writeInt(this.value.length);
-        output.write(this.value);
+        output.writeInt(this.size);
+        output.write(this.value, 0, this.size);
     }
 
     @Override
     public NbtByteArray read(DataInput input, int depth, NbtTypeRegistry registry) throws IOException {
-        byte[] tmp = new byte[input.readInt()];
+        this.checkMutable();
+
+        byte[] tmp = new byte[IoUtils.readLength(input)];
         input.readFully(tmp);
 
         this.value = tmp;
+        this.size = tmp.length;
+        this.shared = false;
 
         return this;
     }
 
+    @Override
+    public void accept(NbtVisitor visitor) throws IOException {
+        visitor.visitByteArray(this.values());
+    }
+
     @Override
     public JsonObject toJson(int depth, NbtTypeRegistry registry) throws IOException {
         JsonObject json = new JsonObject();
@@ -108,8 +245,8 @@ public class NbtByteArray extends AbstractNbtList<Byte> {
             json.addProperty("name", this.getName());
         }
 
-        for (byte b : this) {
-            array.add(b);
+        for (int i = 0; i < this.size; i++) {
+            array.add(this.value[i]);
         }
 
         json.add("value", array);
@@ -119,6 +256,8 @@ public class NbtByteArray extends AbstractNbtList<Byte> {
 
     @Override
     public NbtByteArray fromJson(JsonObject json, int depth, NbtTypeRegistry registry) throws IOException {
+        this.checkMutable();
+
         JsonArray array = json.getAsJsonArray("value");
 
         if (json.has("name")) {
@@ -128,6 +267,8 @@ public class NbtByteArray extends AbstractNbtList<Byte> {
         }
 
         this.value = new byte[array.size()];
+        this.size = this.value.length;
+        this.shared = false;
 
         for (int i = 0; i < array.size(); i++) {
             this.value[i] = array.get(i).getAsByte();
@@ -137,88 +278,148 @@ public class NbtByteArray extends AbstractNbtList<Byte> {
     }
 
     @Override
-    public String toSnbt(int depth, NbtTypeRegistry registry, SnbtConfig config) {
-        StringBuilder sb = new StringBuilder("[B;");
-
-        if (config.isPrettyPrint()) {
-            if (this.value.length < config.getInlineThreshold()) {
-                sb.append('\n').append(StringUtils.multiplyIndent(depth + 1, config));
-            } else {
-                sb.append(' ');
-            }
-        }
-
-        for (int i = 0; i < this.value.length; ++i) {
-            if (i != 0) {
-                if (config.isPrettyPrint()) {
-                    if (this.value.length < config.getInlineThreshold()) {
-                        sb.append(",\n").append(StringUtils.multiplyIndent(depth + 1, config));
-                    } else {
-                        sb.append(", ");
-                    }
-                } else {
-                    sb.append(',');
-                }
-            }
-
-            sb.append(this.value[i]).append('B');
-        }
-
-        if (config.isPrettyPrint() && this.value.length < config.getInlineThreshold()) {
-            sb.append("\n").append(StringUtils.multiplyIndent(depth , config)).append(']');
-        } else {
-            sb.append(']');
-        }
+    protected char getSnbtType() {
+        return 'B';
+    }
 
-        return sb.toString();
+    @Override
+    protected void writeSnbtElement(Appendable output, int index) throws IOException {
+        StringUtils.appendLong(output, this.value[index]);
+        output.append('B');
     }
 
     @Override
     public int size() {
-        return this.value.length;
+        return this.size;
     }
 
     @Override
     public Byte get(int index) {
+        Objects.checkIndex(index, this.size);
+
         return this.value[index];
     }
 
     @Override
     public Byte set(int index, @NonNull Byte element) {
+        Objects.checkIndex(index, this.size);
+
+        this.checkMutable();
+        this.unshare();
+
         return this.value[index] = element;
     }
 
     @Override
     public void insert(int index, @NonNull Byte... elements) {
-        this.value = ArrayUtils.insert(index, this.value, ArrayUtils.toPrimitive(elements));
+        byte[] values = ArrayUtils.toPrimitive(elements);
+
+        this.insert(index, values, values.length);
+    }
+
+    /**
+     * Appends the given value to the end of this array, growing it by half when it is full.
+     *
+     * @since   1.6.0
+     *
+     * @param element the value to be added.
+     */
+    public void add(byte element) {
+        this.checkMutable();
+        this.unshare();
+
+        this.grow(this.size + 1);
+        this.value[this.size++] = element;
+    }
+
+    /**
+     * Appends the given values to the end of this array.
+     *
+     * @since   1.6.0
+     *
+     * @param elements the values to be added.
+     */
+    public void addAll(@NonNull byte[] elements) {
+        this.insert(this.size, elements, elements.length);
+    }
+
+    /**
+     * Inserts the first {@code count} of the given values at the given position.
+     */
+    private void insert(int index, byte[] elements, int count) {
+        if (index < 0 || index > this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+
+        this.checkMutable();
+        this.unshare();
+
+        this.grow(this.size + count);
+        System.arraycopy(this.value, index, this.value, index + count, this.size - index);
+        System.arraycopy(elements, 0, this.value, index, count);
+        this.size += count;
     }
 
     @Override
     public Byte remove(int index) {
+        Objects.checkIndex(index, this.size);
+
+        this.checkMutable();
+        this.unshare();
+
         Byte previous = this.value[index];
-        this.value = ArrayUtils.remove(this.value, index);
+        System.arraycopy(this.value, index + 1, this.value, index, this.size - index - 1);
+        this.size--;
 
         return previous;
     }
 
     @Override
     public void clear() {
-        this.value = new byte[0];
+        this.checkMutable();
+
+        if (this.shared) {
+            this.value = ArrayUtils.EMPTY_BYTE_ARRAY;
+            this.shared = false;
+        }
+
+        this.size = 0;
     }
 
     @Override
     public Iterator<Byte> iterator() {
-        return Arrays.asList(ArrayUtils.toObject(this.value)).iterator();
+        byte[] values = this.value;
+        int size = this.size;
+
+        return new Iterator<Byte>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.next < size;
+            }
+
+            @Override
+            public Byte next() {
+                if (this.next >= size) {
+                    throw new NoSuchElementException();
+                }
+
+                return values[this.next++];
+            }
+        };
     }
 
     @Override
     public void forEach(Consumer<? super Byte> action) {
-        Arrays.asList(ArrayUtils.toObject(this.value)).forEach(action);
+        for (int i = 0; i < this.size; i++) {
+            action.accept(this.value[i]);
+        }
     }
 
     @Override
     public Spliterator<Byte> spliterator() {
-        return Arrays.asList(ArrayUtils.toObject(this.value)).spliterator();
+        return Spliterators.spliterator(this.iterator(), this.size, Spliterator.ORDERED);
     }
 
     @Override
@@ -228,11 +429,17 @@ public class NbtByteArray extends AbstractNbtList<Byte> {
 
         NbtByteArray that = (NbtByteArray) o;
 
-        return Arrays.equals(value, that.value);
+        return Arrays.equals(this.value, 0, this.size, that.value, 0, that.size);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(value);
+        int result = 1;
+
+        for (int i = 0; i < this.size; i++) {
+            result = 31 * result + this.value[i];
+        }
+
+        return result;
     }
 }
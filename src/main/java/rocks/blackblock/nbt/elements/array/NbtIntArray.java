@@ -3,11 +3,11 @@ package rocks.blackblock.nbt.elements.array;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
-import rocks.blackblock.nbt.api.snbt.SnbtConfig;
+import rocks.blackblock.nbt.api.visitor.NbtVisitor;
 import rocks.blackblock.nbt.elements.NbtType;
 import rocks.blackblock.nbt.elements.primitive.NbtInt;
+import rocks.blackblock.nbt.utils.IoUtils;
 import rocks.blackblock.nbt.utils.StringUtils;
-import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import org.apache.commons.lang3.ArrayUtils;
@@ -18,8 +18,13 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
 import java.util.Spliterator;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * The int array tag (type ID 11) is used for storing {@code int[]} arrays in NBT structures.
@@ -28,9 +33,24 @@ import java.util.function.Consumer;
  * @author dewy
  */
 @NoArgsConstructor
-@AllArgsConstructor
 public class NbtIntArray extends AbstractNbtList<Integer> {
-    private @NonNull int[] value;
+    // The values, possibly followed by spare capacity
+    private @NonNull int[] value = ArrayUtils.EMPTY_INT_ARRAY;
+
+    // The number of values in use
+    private int size;
+
+    // True while the array may be shared with a snapshot, so it is copied before being changed in place
+    private boolean shared;
+
+    /**
+     * Constructs an unnamed int array tag with a given value.
+     *
+     * @param value the tag's {@code int[]} value.
+     */
+    public NbtIntArray(@NonNull int[] value) {
+        this(null, value);
+    }
 
     /**
      * Constructs an int array tag with a given name and value.
@@ -68,8 +88,21 @@ public class NbtIntArray extends AbstractNbtList<Integer> {
         return NbtType.INT_ARRAY.getId();
     }
 
+    /**
+     * Returns the {@code int[]} value of this tag, trimmed to its size (see {@link #trimToSize()}).
+     * If the tag is frozen, this is a copy.
+     *
+     * @return the {@code int[]} value of this tag.
+     */
     @Override
     public int[] getValue() {
+        if (this.isFrozen()) {
+            return Arrays.copyOf(this.value, this.size);
+        }
+
+        this.trimToSize();
+        this.unshare();
+
         return this.value;
     }
 
@@ -79,29 +112,131 @@ public class NbtIntArray extends AbstractNbtList<Integer> {
      * @param value new {@code int[]} value to be set.
      */
     public void setValue(@NonNull int[] value) {
+        this.checkMutable();
+
         this.value = value;
+        this.size = value.length;
+        this.shared = false;
     }
 
     @Override
-    public void write(DataOutput output, int depth, NbtTypeRegistry registry) throws IOException {
-        output.writeInt(this.value.length);
+    public NbtIntArray copy() {
+        return new NbtIntArray(this.getName(), Arrays.copyOf(this.value, this.size));
+    }
 
-        for (int i : this) {
-            output.writeInt(i);
+    @Override
+    public NbtIntArray snapshot() {
+        if (this.isFrozen()) {
+            return this;
+        }
+
+        NbtIntArray result = new NbtIntArray(this.getName(), this.value);
+        result.size = this.size;
+        result.shared = true;
+        this.shared = true;
+
+        return result;
+    }
+
+    /**
+     * Copies the array if it may be shared with a snapshot.
+     */
+    private void unshare() {
+        if (this.shared) {
+            this.value = this.value.clone();
+            this.shared = false;
         }
     }
 
     @Override
-    public NbtIntArray read(DataInput input, int depth, NbtTypeRegistry registry) throws IOException {
-        this.value = new int[input.readInt()];
+    public NbtIntArray freeze() {
+        if (!this.isFrozen()) {
+            this.trimToSize();
+        }
+
+        super.freeze();
+
+        return this;
+    }
+
+    /**
+     * Makes sure this array can hold at least the given number of values without growing its backing array again.
+     *
+     * @since   1.6.0
+     *
+     * @param minCapacity the number of values this array should be able to hold.
+     */
+    public void ensureCapacity(int minCapacity) {
+        this.checkMutable();
+        this.unshare();
+
+        this.grow(minCapacity);
+    }
+
+    /**
+     * Shrinks the backing array to the number of values in use, releasing the spare capacity left by adding values.
+     * Writing this tag only ever writes the values in use, so this is not needed for serialization;
+     * it is for arrays that are kept around once they have been built.
+     *
+     * @since   1.6.0
+     */
+    public void trimToSize() {
+        this.checkMutable();
+
+        if (this.value.length != this.size) {
+            this.value = Arrays.copyOf(this.value, this.size);
+            this.shared = false;
+        }
+    }
 
-        for (int i = 0; i < this.value.length; i++) {
-            this.value[i] = input.readInt();
+    /**
+     * Grows the (unshared) backing array by half at least, to hold at least the given number of values.
+     */
+    private void grow(int minCapacity) {
+        int capacity = this.value.length;
+
+        if (minCapacity > capacity) {
+            this.value = Arrays.copyOf(this.value, Math.max(minCapacity, capacity < 8 ? 8 : capacity + (capacity >> 1)));
         }
+    }
+
+    /**
+     * Returns the values in use, as the backing array itself if it has no spare capacity.
+     */
+    private int[] values() {
+        return this.value.length == this.size ? this.value : Arrays.copyOf(this.value, this.size);
+    }
+
+    @Override
+    public int getEncodedSize() {
+        return 4 + this.size * 4;
+    }
+
+    @Override
+    public void write(DataOutput output, int depth, NbtTypeRegistry registry) throws IOException {
+        output.writeInt(this.size);
+        IoUtils.writeInts(output, this.value, this.size);
+    }
+
+    @Override
+    public NbtIntArray read(DataInput input, int depth, NbtTypeRegistry registry) throws IOException {
+        this.checkMutable();
+
+        int[] value = new int[IoUtils.readLength(input)];
+        IoUtils.readInts(input, value, value.length);
+
+        this.value = value;
+        this.size = value.length;
+        this.shared = false;
 
         return this;
     }
 
+    @Override
+    public void accept(NbtVisitor visitor) throws IOException {
+        visitor.visitIntArray(this.values());
+    }
+
     @Override
     public JsonObject toJson(int depth, NbtTypeRegistry registry) throws IOException {
         JsonObject json = new JsonObject();
@@ -112,8 +247,8 @@ public class NbtIntArray extends AbstractNbtList<Integer> {
             json.addProperty("name", this.getName());
         }
 
-        for (int i : this) {
-            array.add(i);
+        for (int i = 0; i < this.size; i++) {
+            array.add(this.value[i]);
         }
 
         json.add("value", array);
@@ -123,6 +258,8 @@ public class NbtIntArray extends AbstractNbtList<Integer> {
 
     @Override
     public NbtIntArray fromJson(JsonObject json, int depth, NbtTypeRegistry registry) throws IOException {
+        this.checkMutable();
+
         JsonArray array = json.getAsJsonArray("value");
 
         if (json.has("name")) {
@@ -132,6 +269,8 @@ public class NbtIntArray extends AbstractNbtList<Integer> {
         }
 
         this.value = new int[array.size()];
+        this.size = this.value.length;
+        this.shared = false;
 
         for (int i = 0; i < array.size(); i++) {
             this.value[i] = array.get(i).getAsInt();
@@ -141,88 +280,182 @@ public class NbtIntArray extends AbstractNbtList<Integer> {
     }
 
     @Override
-    public String toSnbt(int depth, NbtTypeRegistry registry, SnbtConfig config) {
-        StringBuilder sb = new StringBuilder("[I;");
-
-        if (config.isPrettyPrint()) {
-            if (this.value.length < config.getInlineThreshold()) {
-                sb.append('\n').append(StringUtils.multiplyIndent(depth + 1, config));
-            } else {
-                sb.append(' ');
-            }
-        }
-
-        for (int i = 0; i < this.value.length; ++i) {
-            if (i != 0) {
-                if (config.isPrettyPrint()) {
-                    if (this.value.length < config.getInlineThreshold()) {
-                        sb.append(",\n").append(StringUtils.multiplyIndent(depth + 1, config));
-                    } else {
-                        sb.append(", ");
-                    }
-                } else {
-                    sb.append(',');
-                }
-            }
-
-            sb.append(this.value[i]);
-        }
-
-        if (config.isPrettyPrint() && this.value.length < config.getInlineThreshold()) {
-            sb.append("\n").append(StringUtils.multiplyIndent(depth , config)).append(']');
-        } else {
-            sb.append(']');
-        }
+    protected char getSnbtType() {
+        return 'I';
+    }
 
-        return sb.toString();
+    @Override
+    protected void writeSnbtElement(Appendable output, int index) throws IOException {
+        StringUtils.appendLong(output, this.value[index]);
     }
 
     @Override
     public int size() {
-        return this.value.length;
+        return this.size;
     }
 
     @Override
     public Integer get(int index) {
+        Objects.checkIndex(index, this.size);
+
         return this.value[index];
     }
 
     @Override
     public Integer set(int index, @NonNull Integer element) {
+        Objects.checkIndex(index, this.size);
+
+        this.checkMutable();
+        this.unshare();
+
         return this.value[index] = element;
     }
 
     @Override
     public void insert(int index, @NonNull Integer... elements) {
-        this.value = ArrayUtils.insert(index, this.value, ArrayUtils.toPrimitive(elements));
+        int[] values = ArrayUtils.toPrimitive(elements);
+
+        this.insert(index, values, values.length);
+    }
+
+    /**
+     * Appends the given value to the end of this array, growing it by half when it is full.
+     *
+     * @since   1.6.0
+     *
+     * @param element the value to be added.
+     */
+    public void add(int element) {
+        this.checkMutable();
+        this.unshare();
+
+        this.grow(this.size + 1);
+        this.value[this.size++] = element;
+    }
+
+    /**
+     * Appends the given values to the end of this array.
+     *
+     * @since   1.6.0
+     *
+     * @param elements the values to be added.
+     */
+    public void addAll(@NonNull int[] elements) {
+        this.insert(this.size, elements, elements.length);
+    }
+
+    /**
+     * Inserts the first {@code count} of the given values at the given position.
+     */
+    private void insert(int index, int[] elements, int count) {
+        if (index < 0 || index > this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+
+        this.checkMutable();
+        this.unshare();
+
+        this.grow(this.size + count);
+        System.arraycopy(this.value, index, this.value, index + count, this.size - index);
+        System.arraycopy(elements, 0, this.value, index, count);
+        this.size += count;
     }
 
     @Override
     public Integer remove(int index) {
+        Objects.checkIndex(index, this.size);
+
+        this.checkMutable();
+        this.unshare();
+
         Integer previous = this.value[index];
-        this.value = ArrayUtils.remove(this.value, index);
+        System.arraycopy(this.value, index + 1, this.value, index, this.size - index - 1);
+        this.size--;
 
         return previous;
     }
 
     @Override
     public void clear() {
-        this.value = new int[0];
+        this.checkMutable();
+
+        if (this.shared) {
+            this.value = ArrayUtils.EMPTY_INT_ARRAY;
+            this.shared = false;
+        }
+
+        this.size = 0;
     }
 
     @Override
     public Iterator<Integer> iterator() {
-        return Arrays.asList(ArrayUtils.toObject(this.value)).iterator();
+        return this.intIterator();
     }
 
     @Override
     public void forEach(Consumer<? super Integer> action) {
-        Arrays.asList(ArrayUtils.toObject(this.value)).forEach(action);
+        for (int i = 0; i < this.size; i++) {
+            action.accept(this.value[i]);
+        }
     }
 
     @Override
     public Spliterator<Integer> spliterator() {
-        return Arrays.asList(ArrayUtils.toObject(this.value)).spliterator();
+        return Arrays.spliterator(this.value, 0, this.size);
+    }
+
+    /**
+     * Returns an iterator over the values of this array, without boxing them.
+     *
+     * @since   1.6.0
+     *
+     * @return a primitive iterator over the values.
+     */
+    public PrimitiveIterator.OfInt intIterator() {
+        int[] values = this.value;
+        int size = this.size;
+
+        return new PrimitiveIterator.OfInt() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.next < size;
+            }
+
+            @Override
+            public int nextInt() {
+                if (this.next >= size) {
+                    throw new NoSuchElementException();
+                }
+
+                return values[this.next++];
+            }
+        };
+    }
+
+    /**
+     * Performs the given action for every value of this array, without boxing them.
+     *
+     * @since   1.6.0
+     *
+     * @param action the action to be performed.
+     */
+    public void forEachInt(@NonNull IntConsumer action) {
+        for (int i = 0; i < this.size; i++) {
+            action.accept(this.value[i]);
+        }
+    }
+
+    /**
+     * Returns a sequential stream over the values of this array.
+     *
+     * @since   1.6.0
+     *
+     * @return a stream over the values.
+     */
+    public IntStream intStream() {
+        return Arrays.stream(this.value, 0, this.size);
     }
 
     @Override
@@ -232,11 +465,17 @@ public class NbtIntArray extends AbstractNbtList<Integer> {
 
         NbtIntArray that = (NbtIntArray) o;
 
-        return Arrays.equals(value, that.value);
+        return Arrays.equals(this.value, 0, this.size, that.value, 0, that.size);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(value);
+        int result = 1;
+
+        for (int i = 0; i < this.size; i++) {
+            result = 31 * result + this.value[i];
+        }
+
+        return result;
     }
 }
@@ -0,0 +1,382 @@
+package rocks.blackblock.nbt.elements.array;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A view of a {@link NbtLongArray} as a fixed number of unsigned entries of a given number of bits each,
+ * like the block states, heightmaps and biomes of a chunk. Entries are read and written in place, without unpacking the array.
+ * <p>
+ * Two layouts are supported: {@link Layout#SPANNING}, where entries are packed back to back and may span two longs
+ * (chunks before Minecraft 1.16), and {@link Layout#ALIGNED}, where as many entries as fit are packed into each long
+ * and the remaining bits are left unused (1.16 and up).
+ *
+ * @since   1.6.0
+ */
+public class PackedLongArrayView {
+    /**
+     * The ways entries can be packed into longs.
+     */
+    public enum Layout {
+        /**
+         * Entries are packed back to back, so an entry can start in one long and end in the next.
+         */
+        SPANNING,
+
+        /**
+         * Entries never span two longs: each long holds {@code 64 / bits} entries, starting at its lowest bit.
+         */
+        ALIGNED
+    }
+
+    private final NbtLongArray array;
+    private final int size;
+    private final Layout layout;
+
+    private int bits;
+    private long mask;
+
+    // The number of entries per long, and the constants to divide an index by it with a multiplication and a shift
+    // (or 0, if the indices are too large for that), for the aligned layout
+    private int valuesPerLong;
+    private long divideMultiplier;
+
+    /**
+     * Constructs a view of the given array.
+     *
+     * @param array the array holding the packed entries.
+     * @param size the number of entries.
+     * @param bits the number of bits per entry, from 1 to 32.
+     * @param layout the way the entries are packed.
+     * @throws IllegalArgumentException if the number of bits is out of range, or the array is too short to hold the entries.
+     */
+    public PackedLongArrayView(@NonNull NbtLongArray array, int size, int bits, @NonNull Layout layout) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Negative size (" + size + ").");
+        }
+
+        if (array.size() < requiredLength(size, bits, layout)) {
+            throw new IllegalArgumentException("Long array of length " + array.size() + " is too short to hold " + size
+                    + " entries of " + bits + " bits (" + requiredLength(size, bits, layout) + " longs needed).");
+        }
+
+        this.array = array;
+        this.size = size;
+        this.layout = layout;
+        this.setBits(bits);
+    }
+
+    /**
+     * Creates a view of a new, zeroed array of the exact length needed for the given entries.
+     *
+     * @param size the number of entries.
+     * @param bits the number of bits per entry, from 1 to 32.
+     * @param layout the way the entries are packed.
+     * @return the new view.
+     */
+    public static PackedLongArrayView allocate(int size, int bits, @NonNull Layout layout) {
+        return new PackedLongArrayView(new NbtLongArray(new long[requiredLength(size, bits, layout)]), size, bits, layout);
+    }
+
+    /**
+     * Returns the number of longs needed to pack the given entries.
+     *
+     * @param size the number of entries.
+     * @param bits the number of bits per entry, from 1 to 32.
+     * @param layout the way the entries are packed.
+     * @return the number of longs needed.
+     * @throws IllegalArgumentException if the number of bits is out of range.
+     */
+    public static int requiredLength(int size, int bits, @NonNull Layout layout) {
+        checkBits(bits);
+
+        if (layout == Layout.ALIGNED) {
+            int valuesPerLong = 64 / bits;
+            return (size + valuesPerLong - 1) / valuesPerLong;
+        }
+
+        return (int) (((long) size * bits + 63) >>> 6);
+    }
+
+    /**
+     * Returns the array this is a view of.
+     *
+     * @return the underlying {@link NbtLongArray}.
+     */
+    public NbtLongArray getArray() {
+        return this.array;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int getBits() {
+        return this.bits;
+    }
+
+    public Layout getLayout() {
+        return this.layout;
+    }
+
+    /**
+     * Returns the entry at the given index.
+     *
+     * @param index the index of the entry.
+     * @return the entry, as an unsigned value.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public int get(int index) {
+        Objects.checkIndex(index, this.size);
+
+        long[] data = this.array.backing();
+
+        if (this.layout == Layout.ALIGNED) {
+            int longIndex = this.divide(index);
+            int offset = (index - longIndex * this.valuesPerLong) * this.bits;
+
+            return (int) ((data[longIndex] >>> offset) & this.mask);
+        }
+
+        long bitIndex = (long) index * this.bits;
+        int longIndex = (int) (bitIndex >>> 6);
+        int offset = (int) (bitIndex & 63);
+        long value = data[longIndex] >>> offset;
+
+        if (offset + this.bits > 64) {
+            value |= data[longIndex + 1] << (64 - offset);
+        }
+
+        return (int) (value & this.mask);
+    }
+
+    /**
+     * Sets the entry at the given index, changing the underlying array in place.
+     *
+     * @param index the index of the entry.
+     * @param value the new entry, which must fit in the number of bits of this view.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     * @throws IllegalArgumentException if the value does not fit.
+     * @throws UnsupportedOperationException if the array is frozen.
+     */
+    public void set(int index, int value) {
+        Objects.checkIndex(index, this.size);
+        this.checkValue(value);
+
+        long[] data = this.array.writable();
+        long v = value & 0xFFFFFFFFL;
+
+        if (this.layout == Layout.ALIGNED) {
+            int longIndex = this.divide(index);
+            int offset = (index - longIndex * this.valuesPerLong) * this.bits;
+
+            data[longIndex] = (data[longIndex] & ~(this.mask << offset)) | (v << offset);
+            return;
+        }
+
+        long bitIndex = (long) index * this.bits;
+        int longIndex = (int) (bitIndex >>> 6);
+        int offset = (int) (bitIndex & 63);
+
+        data[longIndex] = (data[longIndex] & ~(this.mask << offset)) | (v << offset);
+
+        if (offset + this.bits > 64) {
+            int shift = 64 - offset;
+            data[longIndex + 1] = (data[longIndex + 1] & ~(this.mask >>> shift)) | (v >>> shift);
+        }
+    }
+
+    /**
+     * Unpacks all entries into the given array, walking the longs once instead of locating every entry.
+     *
+     * @param values the array to unpack into, at least as long as the number of entries.
+     * @throws IllegalArgumentException if the array is too short.
+     */
+    public void unpackTo(@NonNull int[] values) {
+        if (values.length < this.size) {
+            throw new IllegalArgumentException("Array of length " + values.length + " is too short for " + this.size + " entries.");
+        }
+
+        long[] data = this.array.backing();
+        int bits = this.bits;
+        long mask = this.mask;
+
+        if (this.layout == Layout.ALIGNED) {
+            int index = 0;
+
+            for (int i = 0; index < this.size; i++) {
+                long word = data[i];
+                int end = Math.min(index + this.valuesPerLong, this.size);
+
+                while (index < end) {
+                    values[index++] = (int) (word & mask);
+                    word >>>= bits;
+                }
+            }
+
+            return;
+        }
+
+        long bitIndex = 0;
+
+        for (int index = 0; index < this.size; index++, bitIndex += bits) {
+            int longIndex = (int) (bitIndex >>> 6);
+            int offset = (int) (bitIndex & 63);
+            long value = data[longIndex] >>> offset;
+
+            if (offset + bits > 64) {
+                value |= data[longIndex + 1] << (64 - offset);
+            }
+
+            values[index] = (int) (value & mask);
+        }
+    }
+
+    /**
+     * Returns all entries, unpacked into a new array.
+     *
+     * @return the entries.
+     */
+    public int[] unpack() {
+        int[] result = new int[this.size];
+        this.unpackTo(result);
+
+        return result;
+    }
+
+    /**
+     * Packs the given values into the underlying array in place, replacing all entries.
+     *
+     * @param values the new entries, at least as many as this view holds; any extra values are ignored.
+     * @throws IllegalArgumentException if the array is too short, or a value does not fit.
+     * @throws UnsupportedOperationException if the array is frozen.
+     */
+    public void packFrom(@NonNull int[] values) {
+        if (values.length < this.size) {
+            throw new IllegalArgumentException("Array of length " + values.length + " is too short for " + this.size + " entries.");
+        }
+
+        for (int i = 0; i < this.size; i++) {
+            this.checkValue(values[i]);
+        }
+
+        pack(this.array.writable(), this.size, this.bits, this.layout, i -> values[i]);
+    }
+
+    /**
+     * Re-packs all entries with a different number of bits, like when a palette outgrows the current one.
+     * The underlying tag is kept, so the view stays valid and the tag stays in its place in the tree;
+     * only its backing array is replaced by one of the new length.
+     *
+     * @param bits the new number of bits per entry, from 1 to 32.
+     * @throws IllegalArgumentException if the number of bits is out of range, or too small for an entry.
+     * @throws UnsupportedOperationException if the array is frozen.
+     */
+    public void resize(int bits) {
+        checkBits(bits);
+
+        if (bits == this.bits) {
+            return;
+        }
+
+        int[] values = this.unpack();
+
+        if (bits < this.bits) {
+            long max = (1L << bits) - 1;
+
+            for (int value : values) {
+                if ((value & 0xFFFFFFFFL) > max) {
+                    throw new IllegalArgumentException("Entry " + (value & 0xFFFFFFFFL) + " does not fit in " + bits + " bits.");
+                }
+            }
+        }
+
+        long[] data = new long[requiredLength(this.size, bits, this.layout)];
+        pack(data, this.size, bits, this.layout, i -> values[i]);
+
+        this.array.setValue(data);
+        this.setBits(bits);
+    }
+
+    /**
+     * Packs the given values into a zeroed part of the given array, one after the other.
+     */
+    private static void pack(long[] data, int size, int bits, Layout layout, IntUnaryOperator values) {
+        long mask = bits == 32 ? 0xFFFFFFFFL : (1L << bits) - 1;
+        int length = requiredLength(size, bits, layout);
+
+        if (layout == Layout.ALIGNED) {
+            int valuesPerLong = 64 / bits;
+            int index = 0;
+
+            for (int i = 0; i < length; i++) {
+                long word = 0;
+                int end = Math.min(index + valuesPerLong, size);
+
+                for (int offset = 0; index < end; index++, offset += bits) {
+                    word |= (values.applyAsInt(index) & mask) << offset;
+                }
+
+                data[i] = word;
+            }
+
+            return;
+        }
+
+        Arrays.fill(data, 0, length, 0L);
+        long bitIndex = 0;
+
+        for (int index = 0; index < size; index++, bitIndex += bits) {
+            long value = values.applyAsInt(index) & mask;
+            int longIndex = (int) (bitIndex >>> 6);
+            int offset = (int) (bitIndex & 63);
+
+            data[longIndex] |= value << offset;
+
+            if (offset + bits > 64) {
+                data[longIndex + 1] |= value >>> (64 - offset);
+            }
+        }
+    }
+
+    /**
+     * Divides an index by the number of entries per long, with a multiplication instead of a division when possible.
+     */
+    private int divide(int index) {
+        if (this.divideMultiplier != 0) {
+            return (int) ((index * this.divideMultiplier) >>> 32);
+        }
+
+        return index / this.valuesPerLong;
+    }
+
+    private void setBits(int bits) {
+        checkBits(bits);
+
+        this.bits = bits;
+        this.mask = bits == 32 ? 0xFFFFFFFFL : (1L << bits) - 1;
+        this.valuesPerLong = 64 / bits;
+
+        // floor(2^32 / d) + 1 divides exactly for every index below 2^32 / d
+        if ((long) this.size * this.valuesPerLong < 1L << 32) {
+            this.divideMultiplier = (1L << 32) / this.valuesPerLong + 1;
+        } else {
+            this.divideMultiplier = 0;
+        }
+    }
+
+    private void checkValue(int value) {
+        if ((value & 0xFFFFFFFFL) > this.mask) {
+            throw new IllegalArgumentException("Entry " + (value & 0xFFFFFFFFL) + " does not fit in " + this.bits + " bits.");
+        }
+    }
+
+    private static void checkBits(int bits) {
+        if (bits < 1 || bits > 32) {
+            throw new IllegalArgumentException("Bits per entry must be between 1 and 32, not " + bits + ".");
+        }
+    }
+}
@@ -0,0 +1,465 @@
+package rocks.blackblock.nbt.elements.collection;
+
+import rocks.blackblock.nbt.api.NbtElement;
+import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
+import rocks.blackblock.nbt.elements.NbtType;
+import rocks.blackblock.nbt.io.ByteBufferInput;
+import rocks.blackblock.nbt.utils.IoUtils;
+import rocks.blackblock.nbt.utils.ModifiedUtf8;
+import lombok.NonNull;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * A compound tag that is backed by the bytes it was read from, and only decodes a child when it is accessed.
+ * On first access the entries are scanned (skipped by length) to record where each child is.
+ * Child compounds are lazy as well, so touching a single nested value only decodes the path to it.
+ * <p>
+ * When written, children that were never accessed are copied verbatim from the original bytes,
+ * and a compound that was not accessed at all is copied as a whole.
+ * The backing array must not be modified while this compound (or any child of it) is in use.
+ *
+ * @since   1.6.0
+ */
+public class LazyNbtCompound extends NbtCompound {
+
+    /**
+     * Constructs a lazy compound tag over the payload of a compound tag (the entries, up to and including the end tag).
+     *
+     * @param bytes the array containing the payload.
+     * @param offset the offset of the payload in the array.
+     * @param end the offset at which the payload is known to end at the latest.
+     * @param registry the {@link NbtTypeRegistry} to be used when decoding children.
+     * @param depth the depth of this compound in the NBT data structure.
+     */
+    public LazyNbtCompound(@NonNull byte[] bytes, int offset, int end, @NonNull NbtTypeRegistry registry, int depth) {
+        super(null, new LazyMap(bytes, offset, end, registry, depth));
+    }
+
+    private LazyNbtCompound(LazyMap map) {
+        super(null, map);
+    }
+
+    /**
+     * Returns true if the entries of this compound have been scanned.
+     *
+     * @return true if the entries of this compound have been scanned.
+     */
+    public boolean isScanned() {
+        return this.map() instanceof LazyMap && ((LazyMap) this.map()).entries != null;
+    }
+
+    /**
+     * Returns true if nothing in this compound has been decoded or changed, so it would be written as a verbatim copy.
+     *
+     * @return true if this compound would be written as a verbatim copy of its original bytes.
+     */
+    public boolean isPristine() {
+        return this.map() instanceof LazyMap && ((LazyMap) this.map()).isPristine();
+    }
+
+    /**
+     * Returns a lazy copy of this compound. Unlike other compounds, the copy does not share its entries with this one,
+     * as decoding them changes them; it only shares the original bytes and the children that were decoded already (as snapshots).
+     * A compound that was not accessed at all is copied in constant time.
+     *
+     * @return an independent copy of this compound.
+     */
+    @Override
+    public NbtCompound snapshot() {
+        if (this.isFrozen() || !(this.map() instanceof LazyMap)) {
+            return super.snapshot();
+        }
+
+        NbtCompound result = new LazyNbtCompound(((LazyMap) this.map()).copy(false));
+        result.setName(this.getName());
+
+        return result;
+    }
+
+    /**
+     * Returns a lazy deep copy of this compound. The original bytes are never changed, so they are shared;
+     * only the children that were decoded already are copied.
+     *
+     * @return a deep copy of this compound.
+     */
+    @Override
+    public NbtCompound copy() {
+        if (!(this.map() instanceof LazyMap)) {
+            return super.copy();
+        }
+
+        NbtCompound result = new LazyNbtCompound(((LazyMap) this.map()).copy(true));
+        result.setName(this.getName());
+
+        return result;
+    }
+
+    @Override
+    public int getEncodedSize() {
+        if (!(this.map() instanceof LazyMap)) {
+            return super.getEncodedSize();
+        }
+
+        return ((LazyMap) this.map()).getEncodedSize();
+    }
+
+    @Override
+    public void write(DataOutput output, int depth, NbtTypeRegistry registry) throws IOException {
+        if (!(this.map() instanceof LazyMap)) {
+            // The value was replaced, so there is nothing to copy from
+            super.write(output, depth, registry);
+            return;
+        }
+
+        ((LazyMap) this.map()).write(output, depth, registry);
+    }
+
+    /**
+     * The location of a child that has not been decoded yet.
+     */
+    private static class RawEntry {
+        final byte type;
+        final int start;
+        final int payload;
+        final int end;
+
+        RawEntry(byte type, int start, int payload, int end) {
+            this.type = type;
+            this.start = start;
+            this.payload = payload;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Map holding either decoded {@link NbtElement}s or {@link RawEntry} locations, in the original order.
+     */
+    private static class LazyMap extends AbstractMap<String, NbtElement> {
+        private final byte[] bytes;
+        private final int offset;
+        private final NbtTypeRegistry registry;
+        private final int depth;
+        private int end;
+
+        private LinkedHashMap<String, Object> entries;
+        private boolean modified = false;
+        private int decoded = 0;
+
+        LazyMap(byte[] bytes, int offset, int end, NbtTypeRegistry registry, int depth) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.end = end;
+            this.registry = registry;
+            this.depth = depth;
+        }
+
+        /**
+         * Copy the entries, sharing the raw ones and taking deep copies or snapshots of the decoded ones.
+         * Synchronized, as both sides of a snapshot may copy the same map.
+         */
+        synchronized LazyMap copy(boolean deep) {
+            LazyMap result = new LazyMap(this.bytes, this.offset, this.end, this.registry, this.depth);
+
+            if (this.entries != null) {
+                result.entries = new LinkedHashMap<>(this.entries);
+
+                for (Map.Entry<String, Object> entry : result.entries.entrySet()) {
+                    if (entry.getValue() instanceof NbtElement) {
+                        NbtElement tag = (NbtElement) entry.getValue();
+                        entry.setValue(deep ? tag.copy() : NbtCompound.snapshotOf(tag));
+                    }
+                }
+            }
+
+            result.modified = this.modified;
+            result.decoded = this.decoded;
+
+            return result;
+        }
+
+        boolean isPristine() {
+            if (this.entries == null) {
+                return true;
+            }
+
+            if (this.modified) {
+                return false;
+            }
+
+            if (this.decoded == 0) {
+                return true;
+            }
+
+            for (Object value : this.entries.values()) {
+                if (value instanceof RawEntry) {
+                    continue;
+                }
+
+                if (!(value instanceof LazyNbtCompound) || !((LazyNbtCompound) value).isPristine()) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Record where every child is, without decoding any of them.
+         */
+        private LinkedHashMap<String, Object> scan() {
+            if (this.entries != null) {
+                return this.entries;
+            }
+
+            if (this.depth > 512) {
+                throw new UncheckedIOException(new IOException("NBT structure too complex (depth > 512)."));
+            }
+
+            LinkedHashMap<String, Object> result = new LinkedHashMap<>();
+            ByteBufferInput input = new ByteBufferInput(this.bytes, this.offset, this.end - this.offset);
+
+            try {
+                byte nextTypeId;
+                int start = this.offset;
+
+                while ((nextTypeId = input.readByte()) != 0) {
+                    String name = input.readUTF();
+                    int payload = this.offset + input.position();
+
+                    IoUtils.skipPayload(input, nextTypeId, this.depth + 1, this.registry);
+
+                    int entryEnd = this.offset + input.position();
+                    result.put(name, new RawEntry(nextTypeId, start, payload, entryEnd));
+                    start = entryEnd;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            this.end = this.offset + input.position();
+            this.entries = result;
+
+            return result;
+        }
+
+        /**
+         * Decode the given value if it is still raw.
+         */
+        private NbtElement materialize(String name, Object value) {
+            if (!(value instanceof RawEntry)) {
+                return (NbtElement) value;
+            }
+
+            RawEntry raw = (RawEntry) value;
+            NbtElement result;
+
+            if (raw.type == NbtType.COMPOUND.getId()) {
+                result = new LazyNbtCompound(this.bytes, raw.payload, raw.end, this.registry, this.depth + 1);
+            } else {
+                result = this.registry.createInstanceFromId(raw.type);
+
+                if (result == null) {
+                    throw new UncheckedIOException(new IOException("Tag type with ID " + raw.type + " not present in tag type registry."));
+                }
+
+                try {
+                    result.read(new ByteBufferInput(this.bytes, raw.payload, raw.end - raw.payload), this.depth + 1, this.registry);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            result.setName(name);
+            this.decoded++;
+
+            return result;
+        }
+
+        @Override
+        public NbtElement get(Object key) {
+            Object value = this.scan().get(key);
+
+            if (value instanceof RawEntry) {
+                NbtElement result = this.materialize((String) key, value);
+                this.entries.put((String) key, result);
+                return result;
+            }
+
+            return (NbtElement) value;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return this.scan().containsKey(key);
+        }
+
+        @Override
+        public NbtElement put(String key, NbtElement value) {
+            this.modified = true;
+            return this.materialize(key, this.scan().put(key, value));
+        }
+
+        @Override
+        public NbtElement remove(Object key) {
+            Object previous = this.scan().remove(key);
+
+            if (previous == null) {
+                return null;
+            }
+
+            this.modified = true;
+
+            return this.materialize((String) key, previous);
+        }
+
+        @Override
+        public void clear() {
+            this.modified = true;
+            this.entries = new LinkedHashMap<>();
+        }
+
+        @Override
+        public int size() {
+            return this.scan().size();
+        }
+
+        @Override
+        public Set<Entry<String, NbtElement>> entrySet() {
+            return new AbstractSet<Entry<String, NbtElement>>() {
+                @Override
+                public Iterator<Entry<String, NbtElement>> iterator() {
+                    Iterator<Entry<String, Object>> iterator = LazyMap.this.scan().entrySet().iterator();
+
+                    return new Iterator<Entry<String, NbtElement>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, NbtElement> next() {
+                            Entry<String, Object> entry = iterator.next();
+
+                            return new Entry<String, NbtElement>() {
+                                @Override
+                                public String getKey() {
+                                    return entry.getKey();
+                                }
+
+                                @Override
+                                public NbtElement getValue() {
+                                    if (entry.getValue() instanceof RawEntry) {
+                                        entry.setValue(LazyMap.this.materialize(entry.getKey(), entry.getValue()));
+                                    }
+
+                                    return (NbtElement) entry.getValue();
+                                }
+
+                                @Override
+                                public NbtElement setValue(NbtElement value) {
+                                    NbtElement previous = this.getValue();
+                                    LazyMap.this.modified = true;
+                                    entry.setValue(value);
+                                    return previous;
+                                }
+
+                                @Override
+                                public boolean equals(Object o) {
+                                    if (!(o instanceof Entry)) return false;
+                                    Entry<?, ?> that = (Entry<?, ?>) o;
+                                    return Objects.equals(this.getKey(), that.getKey()) && Objects.equals(this.getValue(), that.getValue());
+                                }
+
+                                @Override
+                                public int hashCode() {
+                                    return Objects.hashCode(this.getKey()) ^ Objects.hashCode(this.getValue());
+                                }
+                            };
+                        }
+
+                        @Override
+                        public void remove() {
+                            iterator.remove();
+                            LazyMap.this.modified = true;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return LazyMap.this.size();
+                }
+            };
+        }
+
+        /**
+         * The size of the payload as {@link #write} would write it.
+         */
+        int getEncodedSize() {
+            LinkedHashMap<String, Object> scanned = this.scan();
+
+            if (this.isPristine()) {
+                return this.end - this.offset;
+            }
+
+            int result = 1;
+
+            for (Map.Entry<String, Object> entry : scanned.entrySet()) {
+                Object value = entry.getValue();
+
+                if (value instanceof RawEntry) {
+                    result += ((RawEntry) value).end - ((RawEntry) value).start;
+                } else {
+                    result += 3 + ModifiedUtf8.getEncodedLength(entry.getKey()) + ((NbtElement) value).getEncodedSize();
+                }
+            }
+
+            return result;
+        }
+
+        /**
+         * Write the payload, copying everything that was not decoded straight from the original bytes.
+         */
+        void write(DataOutput output, int depth, NbtTypeRegistry registry) throws IOException {
+            if (depth > 512) {
+                throw new IOException("NBT structure too complex (depth > 512).");
+            }
+
+            LinkedHashMap<String, Object> scanned;
+
+            try {
+                scanned = this.scan();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            if (this.isPristine()) {
+                output.write(this.bytes, this.offset, this.end - this.offset);
+                return;
+            }
+
+            for (Map.Entry<String, Object> entry : scanned.entrySet()) {
+                Object value = entry.getValue();
+
+                if (value instanceof RawEntry) {
+                    RawEntry raw = (RawEntry) value;
+                    output.write(this.bytes, raw.start, raw.end - raw.start);
+                    continue;
+                }
+
+                NbtElement tag = (NbtElement) value;
+
+                output.writeByte(tag.getTypeId());
+                ModifiedUtf8.writeKey(output, entry.getKey());
+
+                tag.write(output, depth + 1, registry);
+            }
+
+            output.writeByte(0);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package rocks.blackblock.nbt.elements.collection;
+
+import rocks.blackblock.nbt.utils.CompactMap;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The kinds of {@code Map<>} a {@link NbtCompound} can be backed by when it is read.
+ *
+ * @since   1.6.0
+ */
+public enum MapStrategy {
+    /**
+     * A {@link CompactMap}: insertion-ordered, with the smallest footprint. This is the default.
+     */
+    COMPACT {
+        @Override
+        public <V> Map<String, V> create(int expectedSize) {
+            return new CompactMap<>(expectedSize > 0 ? expectedSize : 4);
+        }
+    },
+
+    /**
+     * A {@link LinkedHashMap}: insertion-ordered.
+     */
+    LINKED {
+        @Override
+        public <V> Map<String, V> create(int expectedSize) {
+            return new LinkedHashMap<>(capacityFor(expectedSize));
+        }
+    },
+
+    /**
+     * A {@link HashMap}: for when the order of the entries does not matter.
+     */
+    UNORDERED {
+        @Override
+        public <V> Map<String, V> create(int expectedSize) {
+            return new HashMap<>(capacityFor(expectedSize));
+        }
+    };
+
+    /**
+     * Creates an empty map of this kind.
+     *
+     * @param expectedSize the number of entries the map is expected to hold, or 0 if unknown.
+     * @param <V> the type of the values.
+     * @return the new map.
+     */
+    public abstract <V> Map<String, V> create(int expectedSize);
+
+    private static int capacityFor(int expectedSize) {
+        return expectedSize > 0 ? (int) (expectedSize / 0.75f) + 1 : 16;
+    }
+}
@@ -5,7 +5,7 @@ import com.google.gson.JsonObject;
 import rocks.blackblock.nbt.api.NbtElement;
 import rocks.blackblock.nbt.api.json.JsonSerializable;
 import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
-import rocks.blackblock.nbt.api.registry.NbtTypeRegistryException;
+import rocks.blackblock.nbt.api.visitor.NbtVisitor;
 import rocks.blackblock.nbt.api.snbt.SnbtConfig;
 import rocks.blackblock.nbt.api.snbt.SnbtSerializable;
 import rocks.blackblock.nbt.elements.NbtType;
@@ -13,8 +13,11 @@ import rocks.blackblock.nbt.elements.array.NbtByteArray;
 import rocks.blackblock.nbt.elements.array.NbtIntArray;
 import rocks.blackblock.nbt.elements.array.NbtLongArray;
 import rocks.blackblock.nbt.elements.primitive.*;
+import rocks.blackblock.nbt.io.ByteBufferOutput;
+import rocks.blackblock.nbt.io.NbtInput;
+import rocks.blackblock.nbt.utils.CompactMap;
+import rocks.blackblock.nbt.utils.ModifiedUtf8;
 import rocks.blackblock.nbt.utils.StringUtils;
-import lombok.AllArgsConstructor;
 import lombok.NonNull;
 
 import java.io.DataInput;
@@ -29,15 +32,50 @@ import java.util.function.Consumer;
  *
  * @author dewy
  */
-@AllArgsConstructor
 public class NbtCompound extends NbtElement implements SnbtSerializable, JsonSerializable, Iterable<NbtElement> {
+    // Marks a frozen compound whose encoded payload is to be cached on the first write
+    private static final Encoded NOT_ENCODED = new Encoded(null, null);
+
+    // Whether a tag type takes snapshots of its own, rather than falling back to encoding and decoding the tag
+    private static final ClassValue<Boolean> OWN_SNAPSHOT = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("snapshot").getDeclaringClass() != NbtElement.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
     private @NonNull Map<String, NbtElement> value;
 
+    // Cached while frozen: the hash code and encoded size (0 if not yet computed), and optionally the encoded payload
+    private int hash;
+    private int encodedSize;
+    private volatile Encoded encoded;
+
+    // True while the map may be shared with a snapshot, so it is copied before being changed or handed out
+    private boolean shared;
+
+    // The map that the map of this compound was last copied from. Tags that are still found in it are shared with a snapshot,
+    // so they are swapped for snapshots of their own before they are handed out
+    private Map<String, NbtElement> source;
+
+    /**
+     * Constructs an unnamed compound tag with a given {@code Map<>} value.
+     *
+     * @param value the tag's {@code Map<>} value.
+     */
+    public NbtCompound(@NonNull Map<String, NbtElement> value) {
+        this(null, value);
+    }
+
     /**
      * Constructs an empty, unnamed compound tag.
      */
     public NbtCompound() {
-        this(null, new LinkedHashMap<>());
+        this(null, new CompactMap<>());
     }
 
     /**
@@ -46,7 +84,7 @@ public class NbtCompound extends NbtElement implements SnbtSerializable, JsonSer
      * @param name the tag's name.
      */
     public NbtCompound(String name) {
-        this(name, new LinkedHashMap<>());
+        this(name, new CompactMap<>());
     }
 
     /**
@@ -65,8 +103,26 @@ public class NbtCompound extends NbtElement implements SnbtSerializable, JsonSer
         return NbtType.COMPOUND.getId();
     }
 
+    /**
+     * Returns the {@code Map<>} value of this compound tag. If the tag is frozen, this is an unmodifiable view.
+     *
+     * @return the {@code Map<>} value of this compound tag.
+     */
     @Override
     public Map<String, NbtElement> getValue() {
+        if (this.isFrozen()) {
+            return Collections.unmodifiableMap(this.value);
+        }
+
+        this.unshareAll();
+
+        return this.value;
+    }
+
+    /**
+     * Returns the backing map itself, even when frozen.
+     */
+    Map<String, NbtElement> map() {
         return this.value;
     }
 
@@ -76,18 +132,214 @@ public class NbtCompound extends NbtElement implements SnbtSerializable, JsonSer
      * @param value new {@code Map<>} value to be set.
      */
     public void setValue(@NonNull Map<String, NbtElement> value) {
+        this.checkMutable();
+
         this.value = value;
+        this.shared = false;
+        this.source = null;
+    }
+
+    @Override
+    public NbtCompound freeze() {
+        if (!this.isFrozen()) {
+            this.unshareAll();
+
+            for (NbtElement tag : this.value.values()) {
+                tag.freeze();
+            }
+
+            super.freeze();
+        }
+
+        return this;
+    }
+
+    /**
+     * Freezes this compound, optionally also caching its encoded payload the first time it is written.
+     * From then on, writing it is a single copy of the cached bytes.
+     * This is meant for compounds that are written often, like the root of a chunk that is saved repeatedly.
+     *
+     * @since   1.6.0
+     *
+     * @param cacheEncoded true to cache the encoded payload.
+     * @return this compound.
+     */
+    public NbtCompound freeze(boolean cacheEncoded) {
+        this.freeze();
+
+        if (cacheEncoded && this.encoded == null) {
+            this.encoded = NOT_ENCODED;
+        }
+
+        return this;
+    }
+
+    @Override
+    public NbtCompound toImmutable() {
+        return (NbtCompound) super.toImmutable();
+    }
+
+    @Override
+    public NbtCompound snapshot() {
+        if (this.isFrozen()) {
+            return this;
+        }
+
+        NbtCompound result = new NbtCompound(this.getName(), this.value);
+        result.shared = true;
+        this.shared = true;
+
+        return result;
+    }
+
+    @Override
+    public NbtCompound copy() {
+        return new NbtCompound(this.getName(), this.copyMap(true));
+    }
+
+    @Override
+    public NbtCompound copy(boolean copyOnWrite) {
+        return (NbtCompound) super.copy(copyOnWrite);
+    }
+
+    /**
+     * Gives this compound a map of its own if it may be shared with a snapshot.
+     * This copies only the map; the tags in it are still shared until they are handed out (see {@link #own(String, NbtElement)}).
+     */
+    private void unshare() {
+        if (!this.shared) {
+            return;
+        }
+
+        this.source = this.value;
+        this.value = this.copyMap(false);
+        this.shared = false;
+    }
+
+    /**
+     * Gives this compound a map of its own, holding no tags that are shared with a snapshot.
+     * This is needed before the tags can be reached without going through {@link #get(String)}.
+     */
+    private void unshareAll() {
+        this.unshare();
+
+        if (this.source == null) {
+            return;
+        }
+
+        for (Map.Entry<String, NbtElement> entry : this.value.entrySet()) {
+            NbtElement tag = entry.getValue();
+
+            if (!tag.isFrozen() && this.source.get(entry.getKey()) == tag) {
+                entry.setValue(snapshotOf(tag));
+            }
+        }
+
+        this.source = null;
+    }
+
+    /**
+     * Returns the tag to hand out for the given entry of an unshared map:
+     * the tag itself if it belongs to this compound, or a snapshot of it that replaces it if it is still shared.
+     */
+    private NbtElement own(String key, NbtElement tag) {
+        if (tag == null || tag.isFrozen() || this.source == null || this.source.get(key) != tag) {
+            return tag;
+        }
+
+        NbtElement result = snapshotOf(tag);
+        this.value.put(key, result);
+
+        return result;
+    }
+
+    /**
+     * Returns a snapshot of a tag that is shared with a snapshot of its container.
+     * Tag types without a snapshot of their own (like custom ones) are opaque to copy-on-write: they are shared as they are,
+     * so handing them out never depends on encoding and decoding them.
+     */
+    static NbtElement snapshotOf(NbtElement tag) {
+        return OWN_SNAPSHOT.get(tag.getClass()) ? tag.snapshot() : tag;
+    }
+
+    /**
+     * Copies the map of this compound into a map of the same kind.
+     *
+     * @param deep true to deep copy the tags, false to keep the same tags.
+     * @return the new map.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, NbtElement> copyMap(boolean deep) {
+        Map<String, NbtElement> copy;
+
+        if (this.value instanceof ShapedMap) {
+            copy = ((ShapedMap<NbtElement>) this.value).copy();
+        } else if (this.value instanceof LinkedHashMap) {
+            copy = new LinkedHashMap<>(this.value);
+        } else if (this.value instanceof HashMap) {
+            copy = new HashMap<>(this.value);
+        } else {
+            copy = new CompactMap<>(this.value);
+        }
+
+        if (deep) {
+            for (Map.Entry<String, NbtElement> entry : copy.entrySet()) {
+                entry.setValue(entry.getValue().copy());
+            }
+        }
+
+        return copy;
+    }
+
+    @Override
+    public int getEncodedSize() {
+        if (this.encodedSize > 0) {
+            return this.encodedSize;
+        }
+
+        int result = 1;
+
+        for (Map.Entry<String, NbtElement> entry : this.value.entrySet()) {
+            result += 3 + ModifiedUtf8.getEncodedLength(entry.getKey()) + entry.getValue().getEncodedSize();
+        }
+
+        if (this.isFrozen()) {
+            this.encodedSize = result;
+        }
+
+        return result;
     }
 
     @Override
     public void write(DataOutput output, int depth, NbtTypeRegistry registry) throws IOException {
+        Encoded encoded = this.encoded;
+
+        if (encoded != null) {
+            if (encoded.registry != registry) {
+                byte[] bytes = new byte[this.getEncodedSize()];
+                this.writeEntries(new ByteBufferOutput(bytes), depth, registry);
+
+                encoded = new Encoded(registry, bytes);
+                this.encoded = encoded;
+            }
+
+            output.write(encoded.bytes);
+            return;
+        }
+
+        this.writeEntries(output, depth, registry);
+    }
+
+    private void writeEntries(DataOutput output, int depth, NbtTypeRegistry registry) throws IOException {
         if (depth > 512) {
             throw new IOException("NBT structure too complex (depth > 512).");
         }
 
-        for (NbtElement tag : this) {
+        for (Map.Entry<String, NbtElement> entry : this.value.entrySet()) {
+            NbtElement tag = entry.getValue();
+
             output.writeByte(tag.getTypeId());
-            output.writeUTF(tag.getName());
+            ModifiedUtf8.writeKey(output, entry.getKey());
 
             tag.write(output, depth + 1, registry);
         }
@@ -97,38 +349,208 @@ public class NbtCompound extends NbtElement implements SnbtSerializable, JsonSer
 
     @Override
     public NbtCompound read(DataInput input, int depth, NbtTypeRegistry registry) throws IOException {
+        return this.read(input, depth, registry, null);
+    }
+
+    /**
+     * Reads this compound, expecting it to have the keys of the given shape (like the previous compound in a list).
+     * If it is read with the default {@link MapStrategy}, it will then share that shape when the keys match,
+     * or get a new one when they don't.
+     * Otherwise, the shape only serves to presize the map.
+     *
+     * @param input the input to read from.
+     * @param depth the current depth of the NBT structure.
+     * @param registry the tag type registry.
+     * @param expected the shape this compound is expected to have, or null to not use shapes.
+     * @return this compound.
+     * @throws IOException if any I/O error occurs.
+     */
+    NbtCompound read(DataInput input, int depth, NbtTypeRegistry registry, NbtShape expected) throws IOException {
+        this.checkMutable();
+
         if (depth > 512) {
             throw new IOException("NBT structure too complex (depth > 512).");
         }
 
-        Map<String, NbtElement> tags = new LinkedHashMap<>();
+        MapStrategy strategy = input instanceof NbtInput ? ((NbtInput) input).getMapStrategy() : MapStrategy.COMPACT;
+
+        if (expected != null && strategy == MapStrategy.COMPACT) {
+            return this.readShaped(input, depth, registry, expected);
+        }
+
+        Map<String, NbtElement> tags = strategy.create(expected == null ? 0 : expected.size());
 
         byte nextTypeId;
         NbtElement nextTag;
         while ((nextTypeId = input.readByte()) != 0) {
-            Class<? extends NbtElement> tagClass = registry.getClassFromId(nextTypeId);
+            nextTag = registry.createInstanceFromId(nextTypeId);
 
-            if (tagClass == null) {
+            if (nextTag == null) {
                 throw new IOException("Tag type with ID " + nextTypeId + " not present in tag type registry.");
             }
 
-            try {
-                nextTag = registry.instantiate(tagClass);
-            } catch (NbtTypeRegistryException e) {
-                throw new IOException(e);
-            }
+            String key = input.readUTF();
+            nextTag = share(nextTag.read(input, depth + 1, registry), input);
 
-            nextTag.setName(input.readUTF());
-            nextTag.read(input, depth + 1, registry);
+            if (!nextTag.isFrozen()) {
+                nextTag.setName(key);
+            }
 
-            tags.put(nextTag.getName(), nextTag);
+            tags.put(key, nextTag);
         }
 
         this.value = tags;
+        this.shared = false;
+        this.source = null;
+
+        return this;
+    }
+
+    /**
+     * Reads the entries into a {@link ShapedMap}, following the expected shape for as long as the keys match it.
+     * A compound with just one key more or less than expected moves to a shape remembered by the expected one,
+     * so optional keys do not break up the sharing.
+     */
+    private NbtCompound readShaped(DataInput input, int depth, NbtTypeRegistry registry, NbtShape expected) throws IOException {
+        int expectedSize = expected.size();
+        NbtElement[] values = new NbtElement[Math.max(expectedSize, 1)];
+        int count = 0;
+
+        // The keys read past the end of the expected shape, in order and as a set
+        String[] extra = null;
+        Set<String> extraKeys = null;
+
+        // Where the entries go once the keys stopped matching
+        Map<String, NbtElement> rest = null;
+
+        byte nextTypeId;
+        NbtElement nextTag;
+        while ((nextTypeId = input.readByte()) != 0) {
+            nextTag = registry.createInstanceFromId(nextTypeId);
+
+            if (nextTag == null) {
+                throw new IOException("Tag type with ID " + nextTypeId + " not present in tag type registry.");
+            }
+
+            String key = input.readUTF();
+            nextTag = share(nextTag.read(input, depth + 1, registry), input);
+
+            if (!nextTag.isFrozen()) {
+                nextTag.setName(key);
+            }
+
+            if (rest == null) {
+                if (count < expectedSize) {
+                    if (expected.getKey(count).equals(key)) {
+                        values[count++] = nextTag;
+                        continue;
+                    }
+                } else if (expected.indexOf(key) < 0 && (extraKeys == null || !extraKeys.contains(key))) {
+                    if (count == values.length) {
+                        values = Arrays.copyOf(values, count + (count >> 1) + 1);
+                    }
+
+                    if (extra == null) {
+                        extra = new String[4];
+                        extraKeys = new HashSet<>();
+                    } else if (count - expectedSize == extra.length) {
+                        extra = Arrays.copyOf(extra, extra.length * 2);
+                    }
+
+                    extra[count - expectedSize] = key;
+                    extraKeys.add(key);
+                    values[count++] = nextTag;
+                    continue;
+                }
+
+                rest = new CompactMap<>(count + 4);
+
+                for (int i = 0; i < count; i++) {
+                    rest.put(i < expectedSize ? expected.getKey(i) : extra[i - expectedSize], values[i]);
+                }
+            }
+
+            rest.put(key, nextTag);
+        }
+
+        NbtShape shape;
+
+        if (rest != null) {
+            shape = NbtShape.of(rest.keySet());
+            values = rest.values().toArray(new NbtElement[0]);
+        } else if (count == expectedSize) {
+            shape = expected;
+        } else if (count == expectedSize + 1) {
+            shape = expected.withKey(extra[0]);
+        } else if (count == expectedSize - 1) {
+            shape = expected.withoutKey(expected.getKey(count));
+        } else if (count > expectedSize) {
+            List<String> keys = new ArrayList<>(expected.getKeys());
+            keys.addAll(Arrays.asList(extra).subList(0, count - expectedSize));
+            shape = NbtShape.of(keys);
+        } else {
+            shape = NbtShape.of(expected.getKeys().subList(0, count));
+        }
+
+        this.value = new ShapedMap<>(shape, values);
+        this.shared = false;
+        this.source = null;
 
         return this;
     }
 
+    /**
+     * Swaps a tag that was just read for the shared frozen tag holding the same value, if the input asks for it and there is one.
+     */
+    private static NbtElement share(NbtElement tag, DataInput input) {
+        if (!(input instanceof NbtInput) || !((NbtInput) input).isSharingValues()) {
+            return tag;
+        }
+
+        Class<?> type = tag.getClass();
+
+        if (type == NbtByte.class) {
+            return NbtByte.of(((NbtByte) tag).byteValue());
+        } else if (type == NbtShort.class) {
+            return NbtShort.of(((NbtShort) tag).shortValue());
+        } else if (type == NbtInt.class) {
+            return NbtInt.of(((NbtInt) tag).intValue());
+        } else if (type == NbtString.class && ((NbtString) tag).getValue().isEmpty()) {
+            return NbtString.EMPTY;
+        }
+
+        return tag;
+    }
+
+    /**
+     * Returns the shape of this compound, if it is backed by a {@link ShapedMap}.
+     * Compounds read from the same list share their shape when they have the same keys.
+     *
+     * @since   1.6.0
+     *
+     * @return the {@link NbtShape} of this compound, or null if it does not have one.
+     */
+    public NbtShape getShape() {
+        return this.value instanceof ShapedMap ? ((ShapedMap<?>) this.value).getShape() : null;
+    }
+
+    @Override
+    public void accept(NbtVisitor visitor) throws IOException {
+        if (visitor.visitCompoundStart() == NbtVisitor.Result.SKIP) {
+            return;
+        }
+
+        for (Map.Entry<String, NbtElement> entry : this.value.entrySet()) {
+            NbtElement tag = entry.getValue();
+
+            if (visitor.visitKey(entry.getKey(), tag.getTypeId()) != NbtVisitor.Result.SKIP) {
+                tag.accept(visitor);
+            }
+        }
+
+        visitor.visitCompoundEnd();
+    }
+
     @Override
     public JsonObject toJson(int depth, NbtTypeRegistry registry) throws IOException {
         if (depth > 512) {
@@ -143,9 +565,9 @@ public class NbtCompound extends NbtElement implements SnbtSerializable, JsonSer
             json.addProperty("name", this.getName());
         }
 
-        for (NbtElement tag : this) {
+        for (Map.Entry<String, NbtElement> entry : this.value.entrySet()) {
             try {
-                value.add(tag.getName(), ((JsonSerializable) tag).toJson(depth + 1, registry));
+                value.add(entry.getKey(), ((JsonSerializable) entry.getValue()).toJson(depth + 1, registry));
             } catch (ClassCastException e) {
                 throw new IOException("Tag not JsonSerializable.", e);
             }
@@ -158,6 +580,8 @@ public class NbtCompound extends NbtElement implements SnbtSerializable, JsonSer
 
     @Override
     public NbtCompound fromJson(JsonObject json, int depth, NbtTypeRegistry registry) throws IOException {
+        this.checkMutable();
+
         if (depth > 512) {
             throw new IOException("NBT structure too complex (depth > 512).");
         }
@@ -170,66 +594,72 @@ public class NbtCompound extends NbtElement implements SnbtSerializable, JsonSer
             this.setName(null);
         }
 
-        Map<String, NbtElement> tags = new LinkedHashMap<>();
+        JsonObject values = json.getAsJsonObject("value");
+        Map<String, NbtElement> tags = new CompactMap<>(values.size());
 
         byte nextTypeId;
         NbtElement nextTag;
-        for (Map.Entry<String, JsonElement> entry : json.getAsJsonObject("value").entrySet()) {
+        for (Map.Entry<String, JsonElement> entry : values.entrySet()) {
             JsonObject entryJson = entry.getValue().getAsJsonObject();
 
             nextTypeId = entryJson.get("type").getAsByte();
-            Class<? extends NbtElement> tagClass = registry.getClassFromId(nextTypeId);
+            nextTag = registry.createInstanceFromId(nextTypeId);
 
-            if (tagClass == null) {
+            if (nextTag == null) {
                 throw new IOException("Tag type with ID " + nextTypeId + " not present in tag type registry.");
             }
 
-            try {
-                nextTag = registry.instantiate(tagClass);
-            } catch (NbtTypeRegistryException e) {
-                throw new IOException(e);
-            }
-
             ((JsonSerializable) nextTag).fromJson(entryJson, depth + 1, registry);
-            tags.put(nextTag.getName(), nextTag);
+            nextTag.setName(entry.getKey());
+            tags.put(entry.getKey(), nextTag);
         }
 
         this.value = tags;
+        this.shared = false;
+        this.source = null;
 
         return this;
     }
 
     @Override
     public String toSnbt(int depth, NbtTypeRegistry registry, SnbtConfig config) {
+        return StringUtils.toSnbt(this, depth, registry, config);
+    }
+
+    @Override
+    public void writeSnbt(Appendable output, int depth, NbtTypeRegistry registry, SnbtConfig config) throws IOException {
         if (this.value.isEmpty()) {
-            return "{}";
+            output.append("{}");
+            return;
         }
 
-        StringBuilder sb = new StringBuilder("{");
+        output.append('{');
 
         if (config.isPrettyPrint()) {
-            sb.append('\n').append(StringUtils.multiplyIndent(depth + 1, config));
+            output.append('\n');
+            StringUtils.appendIndent(output, depth + 1, config);
         }
 
         boolean first = true;
-        for (NbtElement tag : this) {
+        for (Map.Entry<String, NbtElement> entry : this.value.entrySet()) {
             if (!first) {
                 if (config.isPrettyPrint()) {
-                    sb.append(",\n").append(StringUtils.multiplyIndent(depth + 1, config));
+                    output.append(",\n");
+                    StringUtils.appendIndent(output, depth + 1, config);
                 } else {
-                    sb.append(',');
+                    output.append(',');
                 }
             }
 
-            sb.append(StringUtils.escapeSnbt(tag.getName()));
+            StringUtils.appendSnbtKey(output, entry.getKey());
 
             if (config.isPrettyPrint()) {
-                sb.append(": ");
+                output.append(": ");
             } else {
-                sb.append(':');
+                output.append(':');
             }
 
-            sb.append(((SnbtSerializable) tag).toSnbt(depth + 1, registry, config));
+            ((SnbtSerializable) entry.getValue()).writeSnbt(output, depth + 1, registry, config);
 
             if (first) {
                 first = false;
@@ -237,12 +667,11 @@ public class NbtCompound extends NbtElement implements SnbtSerializable, JsonSer
         }
 
         if (config.isPrettyPrint()) {
-            sb.append("\n").append(StringUtils.multiplyIndent(depth , config)).append('}');
-        } else {
-            sb.append('}');
+            output.append('\n');
+            StringUtils.appendIndent(output, depth, config);
         }
 
-        return sb.toString();
+        output.append('}');
     }
 
     /**
@@ -272,11 +701,17 @@ public class NbtCompound extends NbtElement implements SnbtSerializable, JsonSer
      * @throws NullPointerException if the tag's name is null.
      */
     public <E extends NbtElement> E put(@NonNull NbtElement tag) {
+        this.checkMutable();
+        this.unshare();
+
         return (E) this.value.put(tag.getName(), tag);
     }
 
     /**
-     * Adds a given tag to this compound. Be careful, the tag's name is set to the {@code name} parameter automatically.
+     * Adds a given tag to this compound under the given name (key).
+     * Be careful, the tag's name is set to the {@code name} parameter automatically, unless the tag is frozen.
+     * The key is what the tag is written with either way, so frozen tags (like {@link NbtInt#of(int)}) can be shared
+     * between any number of compounds and lists.
      *
      * @param name the tag's name (key).
      * @param tag the tag to be added to the compound.
@@ -284,9 +719,14 @@ public class NbtCompound extends NbtElement implements SnbtSerializable, JsonSer
      * @return the previous value mapped with the tag's name as type E if provided, or null if there wasn't any.
      */
     public <E extends NbtElement> E put(@NonNull String name, @NonNull NbtElement tag) {
-        tag.setName(name);
+        this.checkMutable();
+        this.unshare();
+
+        if (!tag.isFrozen()) {
+            tag.setName(name);
+        }
 
-        return this.put(tag);
+        return (E) this.value.put(name, tag);
     }
 
     public void putByte(@NonNull String name, byte value) {
@@ -345,6 +785,9 @@ public class NbtCompound extends NbtElement implements SnbtSerializable, JsonSer
      * @return the previous value associated with {@code key} as type T if provided.
      */
     public <T extends NbtElement> T remove(@NonNull String key) {
+        this.checkMutable();
+        this.unshare();
+
         return (T) this.value.remove(key);
     }
 
@@ -356,7 +799,16 @@ public class NbtCompound extends NbtElement implements SnbtSerializable, JsonSer
      * @return the value associated with {@code key} as type T.
      */
     public <T extends NbtElement> T get(@NonNull String key) {
-        return (T) this.value.get(key);
+        NbtElement tag = this.value.get(key);
+
+        // Frozen tags can be handed out as they are, without giving this compound a map of its own
+        if (tag == null || tag.isFrozen()) {
+            return (T) tag;
+        }
+
+        this.unshare();
+
+        return (T) this.own(key, tag);
     }
 
     public NbtByte getByte(@NonNull String key) {
@@ -407,6 +859,128 @@ public class NbtCompound extends NbtElement implements SnbtSerializable, JsonSer
         return this.get(key);
     }
 
+    /**
+     * Returns the value of the numeric tag with the given name (key) as a primitive {@code byte},
+     * without boxing it. Any numeric tag type is converted, like {@link Number#byteValue()} does.
+     *
+     * @since   1.6.0
+     *
+     * @param key the name (key) of the tag.
+     * @param defaultValue the value to return if there is no numeric tag with that name.
+     * @return the value of the tag, or {@code defaultValue}.
+     */
+    public byte getByteOr(@NonNull String key, byte defaultValue) {
+        NbtElement tag = this.value.get(key);
+
+        return tag instanceof AbstractNbtNumber ? ((AbstractNbtNumber<?>) tag).byteValue() : defaultValue;
+    }
+
+    /**
+     * Returns the value of the numeric tag with the given name (key) as a primitive {@code short}, without boxing it.
+     *
+     * @since   1.6.0
+     *
+     * @param key the name (key) of the tag.
+     * @param defaultValue the value to return if there is no numeric tag with that name.
+     * @return the value of the tag, or {@code defaultValue}.
+     */
+    public short getShortOr(@NonNull String key, short defaultValue) {
+        NbtElement tag = this.value.get(key);
+
+        return tag instanceof AbstractNbtNumber ? ((AbstractNbtNumber<?>) tag).shortValue() : defaultValue;
+    }
+
+    /**
+     * Returns the value of the numeric tag with the given name (key) as a primitive {@code int}, without boxing it.
+     *
+     * @since   1.6.0
+     *
+     * @param key the name (key) of the tag.
+     * @param defaultValue the value to return if there is no numeric tag with that name.
+     * @return the value of the tag, or {@code defaultValue}.
+     */
+    public int getIntOr(@NonNull String key, int defaultValue) {
+        NbtElement tag = this.value.get(key);
+
+        return tag instanceof AbstractNbtNumber ? ((AbstractNbtNumber<?>) tag).intValue() : defaultValue;
+    }
+
+    /**
+     * Returns the value of the numeric tag with the given name (key) as a primitive {@code long}, without boxing it.
+     *
+     * @since   1.6.0
+     *
+     * @param key the name (key) of the tag.
+     * @param defaultValue the value to return if there is no numeric tag with that name.
+     * @return the value of the tag, or {@code defaultValue}.
+     */
+    public long getLongOr(@NonNull String key, long defaultValue) {
+        NbtElement tag = this.value.get(key);
+
+        return tag instanceof AbstractNbtNumber ? ((AbstractNbtNumber<?>) tag).longValue() : defaultValue;
+    }
+
+    /**
+     * Returns the value of the numeric tag with the given name (key) as a primitive {@code float}, without boxing it.
+     *
+     * @since   1.6.0
+     *
+     * @param key the name (key) of the tag.
+     * @param defaultValue the value to return if there is no numeric tag with that name.
+     * @return the value of the tag, or {@code defaultValue}.
+     */
+    public float getFloatOr(@NonNull String key, float defaultValue) {
+        NbtElement tag = this.value.get(key);
+
+        return tag instanceof AbstractNbtNumber ? ((AbstractNbtNumber<?>) tag).floatValue() : defaultValue;
+    }
+
+    /**
+     * Returns the value of the numeric tag with the given name (key) as a primitive {@code double}, without boxing it.
+     *
+     * @since   1.6.0
+     *
+     * @param key the name (key) of the tag.
+     * @param defaultValue the value to return if there is no numeric tag with that name.
+     * @return the value of the tag, or {@code defaultValue}.
+     */
+    public double getDoubleOr(@NonNull String key, double defaultValue) {
+        NbtElement tag = this.value.get(key);
+
+        return tag instanceof AbstractNbtNumber ? ((AbstractNbtNumber<?>) tag).doubleValue() : defaultValue;
+    }
+
+    /**
+     * Returns the value of the numeric tag with the given name (key) as a {@code boolean}, true meaning it is not 0.
+     * Booleans are stored as byte tags holding 1 or 0.
+     *
+     * @since   1.6.0
+     *
+     * @param key the name (key) of the tag.
+     * @param defaultValue the value to return if there is no numeric tag with that name.
+     * @return the value of the tag, or {@code defaultValue}.
+     */
+    public boolean getBooleanOr(@NonNull String key, boolean defaultValue) {
+        NbtElement tag = this.value.get(key);
+
+        return tag instanceof AbstractNbtNumber ? ((AbstractNbtNumber<?>) tag).byteValue() != 0 : defaultValue;
+    }
+
+    /**
+     * Returns the value of the string tag with the given name (key).
+     *
+     * @since   1.6.0
+     *
+     * @param key the name (key) of the tag.
+     * @param defaultValue the value to return if there is no string tag with that name.
+     * @return the value of the tag, or {@code defaultValue}.
+     */
+    public String getStringOr(@NonNull String key, String defaultValue) {
+        NbtElement tag = this.value.get(key);
+
+        return tag instanceof NbtString ? ((NbtString) tag).getValue() : defaultValue;
+    }
+
     /**
      * Returns true if this compound contains an entry with a given name (key), false otherwise.
      *
@@ -429,7 +1003,7 @@ public class NbtCompound extends NbtElement implements SnbtSerializable, JsonSer
             return false;
         }
 
-        return this.get(key).getTypeId() == typeId;
+        return this.value.get(key).getTypeId() == typeId;
     }
 
     public boolean containsByte(@NonNull String key) {
@@ -490,7 +1064,7 @@ public class NbtCompound extends NbtElement implements SnbtSerializable, JsonSer
      * @return all {@link NbtElement}s contained within this compound.
      */
     public Collection<NbtElement> values() {
-        return this.value.values();
+        return this.getValue().values();
     }
 
     /**
@@ -499,48 +1073,82 @@ public class NbtCompound extends NbtElement implements SnbtSerializable, JsonSer
      * @return a {@code Set<>} of all names (keys) currently used within this compound.
      */
     public Set<String> keySet() {
-        return this.value.keySet();
+        return this.getValue().keySet();
     }
 
     /**
      * Removes all entries from the compound. The compound will be empty after this call returns.
      */
     public void clear() {
-        this.value.clear();
+        this.checkMutable();
+
+        if (this.shared) {
+            this.value = new CompactMap<>();
+            this.shared = false;
+        } else {
+            this.value.clear();
+        }
+
+        this.source = null;
     }
 
     @Override
     public Iterator<NbtElement> iterator() {
-        return this.value.values().iterator();
+        return this.getValue().values().iterator();
     }
 
     @Override
     public void forEach(Consumer<? super NbtElement> action) {
-        this.value.values().forEach(action);
+        this.getValue().values().forEach(action);
     }
 
     @Override
     public Spliterator<NbtElement> spliterator() {
-        return this.value.values().spliterator();
+        return this.getValue().values().spliterator();
     }
 
     @Override
     public String toString() {
-        return this.toSnbt(0, new NbtTypeRegistry(), new SnbtConfig());
+        return this.toSnbt(0, NbtTypeRegistry.getDefault(), new SnbtConfig());
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof NbtCompound)) return false;
 
         NbtCompound that = (NbtCompound) o;
 
+        if (this.hash != 0 && that.hash != 0 && this.hash != that.hash) return false;
+
         return Objects.equals(value, that.value);
     }
 
     @Override
     public int hashCode() {
-        return value != null ? value.hashCode() : 0;
+        int result = this.hash;
+
+        if (result == 0) {
+            result = value != null ? value.hashCode() : 0;
+
+            if (this.isFrozen()) {
+                this.hash = result;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * An encoded payload, along with the registry it was written with.
+     */
+    private static class Encoded {
+        final NbtTypeRegistry registry;
+        final byte[] bytes;
+
+        Encoded(NbtTypeRegistry registry, byte[] bytes) {
+            this.registry = registry;
+            this.bytes = bytes;
+        }
     }
 }
@@ -6,30 +6,65 @@ import com.google.gson.JsonObject;
 import rocks.blackblock.nbt.api.NbtElement;
 import rocks.blackblock.nbt.api.json.JsonSerializable;
 import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
-import rocks.blackblock.nbt.api.registry.NbtTypeRegistryException;
+import rocks.blackblock.nbt.api.visitor.NbtVisitor;
 import rocks.blackblock.nbt.api.snbt.SnbtConfig;
 import rocks.blackblock.nbt.api.snbt.SnbtSerializable;
 import rocks.blackblock.nbt.elements.NbtType;
+import rocks.blackblock.nbt.elements.primitive.*;
+import rocks.blackblock.nbt.io.ByteBufferInput;
+import rocks.blackblock.nbt.utils.IoUtils;
 import rocks.blackblock.nbt.utils.StringUtils;
-import lombok.AllArgsConstructor;
 import lombok.NonNull;
 
 import java.io.DataInput;
 import java.io.DataOutput;
+import java.io.EOFException;
 import java.io.IOException;
+import java.lang.reflect.Array;
 import java.util.*;
 import java.util.function.Consumer;
 
 /**
  * The list tag (type ID 9) is used for storing an ordered list of unnamed NBT tags all of the same type.
+ * <p>
+ * Lists of bytes, shorts, ints, longs, floats or doubles that are read from a stream are stored packed in a primitive array.
+ * They can be read through the primitive accessors (like {@link #getDouble(int)} and {@link #toDoubleArray()}) as they are;
+ * the element tags are only created (once) when the list is accessed as a list of tags.
+ * A frozen list is not changed, so it creates them anew each time instead.
  *
  * @author dewy
  */
-@AllArgsConstructor
 public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSerializable, JsonSerializable, Iterable<T> {
-    private @NonNull List<T> value;
+    // The tag classes that can be stored packed, and the component types of their packed arrays, by type ID
+    private static final Class<?>[] PACKABLE_CLASSES = {null, NbtByte.class, NbtShort.class, NbtInt.class, NbtLong.class, NbtFloat.class, NbtDouble.class};
+    private static final Class<?>[] PACKED_COMPONENTS = {null, byte.class, short.class, int.class, long.class, float.class, double.class};
+
+    // The element tags, or null while the list is packed
+    private List<T> value;
     private byte type;
 
+    // The primitive array holding the elements while the list is packed, or null
+    private Object packed;
+
+    // Cached while frozen: the hash code and encoded size, or 0 if not yet computed
+    private int hash;
+    private int encodedSize;
+
+    // True while the element tags may be shared with a snapshot, so they are copied before being changed or handed out.
+    // Packed arrays are never changed in place, so they can be shared as they are.
+    private boolean shared;
+
+    /**
+     * Constructs a list tag with a given {@code List<>} value and element type.
+     *
+     * @param value the tag's {@code List<>} value.
+     * @param type the ID of the NBT tag type the list holds.
+     */
+    public NbtList(@NonNull List<T> value, byte type) {
+        this.value = value;
+        this.type = type;
+    }
+
     /**
      * Constructs an empty, unnamed list tag.
      */
@@ -63,14 +98,94 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
         this.setValue(value);
     }
 
+    /**
+     * Constructs a packed list of int tags.
+     *
+     * @since   1.6.0
+     *
+     * @param name the tag's name.
+     * @param values the values of the elements. The array is copied.
+     * @return the new list tag.
+     */
+    public static NbtList<NbtInt> ofInts(String name, @NonNull int... values) {
+        return packed(name, NbtType.INT.getId(), values.clone(), values.length);
+    }
+
+    /**
+     * Constructs a packed list of long tags.
+     *
+     * @since   1.6.0
+     *
+     * @param name the tag's name.
+     * @param values the values of the elements. The array is copied.
+     * @return the new list tag.
+     */
+    public static NbtList<NbtLong> ofLongs(String name, @NonNull long... values) {
+        return packed(name, NbtType.LONG.getId(), values.clone(), values.length);
+    }
+
+    /**
+     * Constructs a packed list of float tags, like an entity's {@code Rotation}.
+     *
+     * @since   1.6.0
+     *
+     * @param name the tag's name.
+     * @param values the values of the elements. The array is copied.
+     * @return the new list tag.
+     */
+    public static NbtList<NbtFloat> ofFloats(String name, @NonNull float... values) {
+        return packed(name, NbtType.FLOAT.getId(), values.clone(), values.length);
+    }
+
+    /**
+     * Constructs a packed list of double tags, like an entity's {@code Pos} or {@code Motion}.
+     *
+     * @since   1.6.0
+     *
+     * @param name the tag's name.
+     * @param values the values of the elements. The array is copied.
+     * @return the new list tag.
+     */
+    public static NbtList<NbtDouble> ofDoubles(String name, @NonNull double... values) {
+        return packed(name, NbtType.DOUBLE.getId(), values.clone(), values.length);
+    }
+
+    private static <E extends NbtElement> NbtList<E> packed(String name, byte type, Object values, int length) {
+        NbtList<E> result = new NbtList<>(name, new ArrayList<>());
+
+        if (length > 0) {
+            result.type = type;
+            result.value = null;
+            result.packed = values;
+        }
+
+        return result;
+    }
+
     @Override
     public byte getTypeId() {
         return NbtType.LIST.getId();
     }
 
+    /**
+     * Returns the {@code List<>} value of this list tag. If the tag is frozen, this is an unmodifiable view.
+     *
+     * @return the {@code List<>} value of this list tag.
+     */
     @Override
     public List<T> getValue() {
-        return this.value;
+        return this.list();
+    }
+
+    /**
+     * Returns true if the elements of this list are currently stored packed in a primitive array.
+     *
+     * @since   1.6.0
+     *
+     * @return true if this list is packed.
+     */
+    public boolean isPacked() {
+        return this.packed != null;
     }
 
     /**
@@ -88,6 +203,8 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
      * @param value new {@code List<>} value to be set.
      */
     public void setValue(@NonNull List<T> value) {
+        this.checkMutable();
+
         if (value.isEmpty()) {
             this.type = 0;
         } else {
@@ -95,6 +212,129 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
         }
 
         this.value = value;
+        this.packed = null;
+        this.shared = false;
+    }
+
+    @Override
+    public NbtList<T> freeze() {
+        if (!this.isFrozen()) {
+            this.unshare();
+
+            if (this.value != null) {
+                for (T tag : this.value) {
+                    tag.freeze();
+                }
+            }
+
+            super.freeze();
+        }
+
+        return this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public NbtList<T> toImmutable() {
+        return (NbtList<T>) super.toImmutable();
+    }
+
+    @Override
+    public NbtList<T> snapshot() {
+        if (this.isFrozen()) {
+            return this;
+        }
+
+        NbtList<T> result = new NbtList<>(new ArrayList<>(0), this.type);
+        result.setName(this.getName());
+        result.value = this.value;
+        result.packed = this.packed;
+
+        if (this.value != null) {
+            result.shared = true;
+            this.shared = true;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a deep copy of this list. The copied tags are known to be of the right type, so they are not checked again,
+     * and a packed list shares its primitive array, which is never changed in place.
+     *
+     * @return a deep copy of this list.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public NbtList<T> copy() {
+        NbtList<T> result;
+
+        if (this.value == null) {
+            result = new NbtList<>(new ArrayList<>(0), this.type);
+            result.value = null;
+            result.packed = this.packed;
+        } else {
+            List<T> copy = new ArrayList<>(this.value.size());
+
+            for (T tag : this.value) {
+                copy.add((T) tag.copy());
+            }
+
+            result = new NbtList<>(copy, this.type);
+        }
+
+        result.setName(this.getName());
+
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public NbtList<T> copy(boolean copyOnWrite) {
+        return (NbtList<T>) super.copy(copyOnWrite);
+    }
+
+    /**
+     * Gives this list an element list of its own if it may be shared with a snapshot, holding snapshots of the tags.
+     * This copies only this level of the tree; the tags below it are copied in turn when they are changed.
+     */
+    @SuppressWarnings("unchecked")
+    private void unshare() {
+        if (!this.shared) {
+            return;
+        }
+
+        List<T> copy = new ArrayList<>(this.value.size());
+
+        for (T tag : this.value) {
+            copy.add((T) NbtCompound.snapshotOf(tag));
+        }
+
+        this.value = copy;
+        this.shared = false;
+    }
+
+    @Override
+    public int getEncodedSize() {
+        if (this.packed != null) {
+            return 5 + this.size() * IoUtils.getFixedPayloadSize(this.type);
+        }
+
+        if (this.encodedSize > 0) {
+            return this.encodedSize;
+        }
+
+        int result = 5;
+
+        for (T tag : this.value) {
+            result += tag.getEncodedSize();
+        }
+
+        if (this.isFrozen()) {
+            this.encodedSize = result;
+        }
+
+        return result;
     }
 
     @Override
@@ -104,39 +344,99 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
         }
 
         output.writeByte(this.type);
-        output.writeInt(this.value.size());
+        output.writeInt(this.size());
 
-        for (T tag : this) {
+        if (this.packed != null) {
+            this.writePacked(output);
+            return;
+        }
+
+        for (T tag : this.value) {
             tag.write(output, depth + 1, registry);
         }
     }
 
+    private void writePacked(DataOutput output) throws IOException {
+        switch (this.type) {
+            case 1:
+                output.write((byte[]) this.packed);
+                break;
+            case 2:
+                for (short v : (short[]) this.packed) {
+                    output.writeShort(v);
+                }
+                break;
+            case 3:
+                IoUtils.writeInts(output, (int[]) this.packed, ((int[]) this.packed).length);
+                break;
+            case 4:
+                IoUtils.writeLongs(output, (long[]) this.packed, ((long[]) this.packed).length);
+                break;
+            case 5:
+                for (float v : (float[]) this.packed) {
+                    output.writeFloat(v);
+                }
+                break;
+            case 6:
+                for (double v : (double[]) this.packed) {
+                    output.writeDouble(v);
+                }
+                break;
+        }
+    }
+
     @Override
     public NbtList<T> read(DataInput input, int depth, NbtTypeRegistry registry) throws IOException {
+        this.checkMutable();
+
         if (depth > 512) {
             throw new IOException("NBT structure too complex (depth > 512).");
         }
 
-        List<T> tags = new ArrayList<>();
-
         byte tagType = input.readByte();
-        int length = input.readInt();
+        int length = IoUtils.readLength(input);
+
+        if (length == 0) {
+            this.type = 0;
+            this.value = new ArrayList<>();
+            this.packed = null;
+            this.shared = false;
+
+            return this;
+        }
+
+        if (tagType > 0 && tagType < PACKABLE_CLASSES.length && registry.getClassFromId(tagType) == PACKABLE_CLASSES[tagType]) {
+            this.type = tagType;
+            this.value = null;
+            this.packed = readPacked(input, tagType, length);
+            this.shared = false;
+
+            return this;
+        }
+
+        List<T> tags = new ArrayList<>(IoUtils.initialCapacity(length));
+
+        // Compounds in a list usually share their keys, so they are read expecting the shape of the previous one
+        NbtShape shape = NbtShape.EMPTY;
 
         T next;
         for (int i = 0; i < length; i++) {
-            Class<? extends NbtElement> tagClass = registry.getClassFromId(tagType);
+            next = (T) registry.createInstanceFromId(tagType);
 
-            if (tagClass == null) {
+            if (next == null) {
                 throw new IOException("Tag type with ID " + tagType + " not present in tag type registry.");
             }
 
-            try {
-                next = (T) registry.instantiate(tagClass);
-            } catch (NbtTypeRegistryException e) {
-                throw new IOException(e);
+            if (next.getClass() == NbtCompound.class) {
+                NbtCompound compound = (NbtCompound) next;
+                compound.read(input, depth + 1, registry, shape);
+
+                NbtShape read = compound.getShape();
+                shape = read != null ? read : NbtShape.EMPTY;
+            } else {
+                next.read(input, depth + 1, registry);
             }
 
-            next.read(input, depth + 1, registry);
             next.setName(null);
 
             tags.add(next);
@@ -149,37 +449,155 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
         }
 
         this.value = tags;
+        this.packed = null;
+        this.shared = false;
 
         return this;
     }
 
+    /**
+     * Reads the values of a packed list into a primitive array.
+     * The length comes from the input, so the array is only allocated in full when a buffered input holds that many values;
+     * otherwise it starts at {@link IoUtils#MAX_INITIAL_CAPACITY} values and grows as they are read.
+     */
+    private static Object readPacked(DataInput input, byte tagType, int length) throws IOException {
+        int capacity;
+
+        if (input instanceof ByteBufferInput) {
+            if ((long) length * IoUtils.getFixedPayloadSize(tagType) > ((ByteBufferInput) input).remaining()) {
+                throw new EOFException();
+            }
+
+            capacity = length;
+        } else {
+            capacity = IoUtils.initialCapacity(length);
+        }
+
+        Object result = Array.newInstance(PACKED_COMPONENTS[tagType], capacity);
+
+        for (int done = 0; done < length; ) {
+            if (done == capacity) {
+                capacity = (int) Math.min(length, capacity * 2L);
+
+                Object grown = Array.newInstance(PACKED_COMPONENTS[tagType], capacity);
+                System.arraycopy(result, 0, grown, 0, done);
+                result = grown;
+            }
+
+            readPacked(input, tagType, result, done, capacity - done);
+            done = capacity;
+        }
+
+        return result;
+    }
+
+    private static void readPacked(DataInput input, byte tagType, Object values, int offset, int length) throws IOException {
+        switch (tagType) {
+            case 1:
+                input.readFully((byte[]) values, offset, length);
+                return;
+            case 2: {
+                short[] result = (short[]) values;
+                for (int i = offset; i < offset + length; i++) {
+                    result[i] = input.readShort();
+                }
+                return;
+            }
+            case 3:
+                IoUtils.readInts(input, (int[]) values, offset, length);
+                return;
+            case 4:
+                IoUtils.readLongs(input, (long[]) values, offset, length);
+                return;
+            case 5: {
+                float[] result = (float[]) values;
+                for (int i = offset; i < offset + length; i++) {
+                    result[i] = input.readFloat();
+                }
+                return;
+            }
+            default: {
+                double[] result = (double[]) values;
+                for (int i = offset; i < offset + length; i++) {
+                    result[i] = input.readDouble();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void accept(NbtVisitor visitor) throws IOException {
+        if (visitor.visitListStart(this.type, this.size()) == NbtVisitor.Result.SKIP) {
+            return;
+        }
+
+        if (this.packed != null) {
+            int size = this.size();
+
+            for (int i = 0; i < size; i++) {
+                switch (this.type) {
+                    case 1:
+                        visitor.visitByte(((byte[]) this.packed)[i]);
+                        break;
+                    case 2:
+                        visitor.visitShort(((short[]) this.packed)[i]);
+                        break;
+                    case 3:
+                        visitor.visitInt(((int[]) this.packed)[i]);
+                        break;
+                    case 4:
+                        visitor.visitLong(((long[]) this.packed)[i]);
+                        break;
+                    case 5:
+                        visitor.visitFloat(((float[]) this.packed)[i]);
+                        break;
+                    case 6:
+                        visitor.visitDouble(((double[]) this.packed)[i]);
+                        break;
+                }
+            }
+        } else {
+            for (T tag : this.value) {
+                tag.accept(visitor);
+            }
+        }
+
+        visitor.visitListEnd();
+    }
+
     @Override
     public String toSnbt(int depth, NbtTypeRegistry registry, SnbtConfig config) {
-        StringBuilder sb = new StringBuilder("[");
+        return StringUtils.toSnbt(this, depth, registry, config);
+    }
+
+    @Override
+    public void writeSnbt(Appendable output, int depth, NbtTypeRegistry registry, SnbtConfig config) throws IOException {
+        output.append('[');
 
         if (config.isPrettyPrint()) {
-            sb.append('\n').append(StringUtils.multiplyIndent(depth + 1, config));
+            output.append('\n');
+            StringUtils.appendIndent(output, depth + 1, config);
         }
 
-        for (int i = 0; i < this.value.size(); ++i) {
+        for (int i = 0; i < this.size(); ++i) {
             if (i != 0) {
                 if (config.isPrettyPrint()) {
-                    sb.append(",\n").append(StringUtils.multiplyIndent(depth + 1, config));
+                    output.append(",\n");
+                    StringUtils.appendIndent(output, depth + 1, config);
                 } else {
-                    sb.append(',');
+                    output.append(',');
                 }
             }
 
-            sb.append(((SnbtSerializable) this.value.get(i)).toSnbt(depth + 1, registry, config));
+            ((SnbtSerializable) this.element(i)).writeSnbt(output, depth + 1, registry, config);
         }
 
         if (config.isPrettyPrint()) {
-            sb.append("\n").append(StringUtils.multiplyIndent(depth , config)).append(']');
-        } else {
-            sb.append(']');
+            output.append('\n');
+            StringUtils.appendIndent(output, depth, config);
         }
 
-        return sb.toString();
+        output.append(']');
     }
 
     @Override
@@ -199,7 +617,10 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
         }
 
         for (T tag : this) {
-            tag.setName(null);
+            if (!tag.isFrozen()) {
+                tag.setName(null);
+            }
+
             value.add(((JsonSerializable) tag).toJson(depth + 1, registry));
         }
 
@@ -210,6 +631,8 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
 
     @Override
     public NbtList<T> fromJson(JsonObject json, int depth, NbtTypeRegistry registry) throws IOException {
+        this.checkMutable();
+
         if (depth > 512) {
             throw new IOException("NBT structure too complex (depth > 512).");
         }
@@ -227,18 +650,12 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
 
         T nextTag;
         for (JsonElement element : json.getAsJsonArray("value")) {
-            Class<? extends NbtElement> tagClass = registry.getClassFromId(listType);
+            nextTag = (T) registry.createInstanceFromId(listType);
 
-            if (tagClass == null) {
+            if (nextTag == null) {
                 throw new IOException("Tag type with ID " + listType + " not present in tag type registry.");
             }
 
-            try {
-                nextTag = (T) registry.instantiate(tagClass);
-            } catch (NbtTypeRegistryException e) {
-                throw new IOException(e);
-            }
-
             ((JsonSerializable) nextTag).fromJson((JsonObject) element, depth + 1, registry);
             tags.add(nextTag);
         }
@@ -250,6 +667,8 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
         }
 
         this.value = tags;
+        this.packed = null;
+        this.shared = false;
 
         return this;
     }
@@ -260,6 +679,10 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
      * @return the number of elements in this list tag.
      */
     public int size() {
+        if (this.packed != null) {
+            return Array.getLength(this.packed);
+        }
+
         return this.value.size();
     }
 
@@ -269,7 +692,226 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
      * @return true if this list tag is empty, false otherwise.
      */
     public boolean isEmpty() {
-        return this.value.isEmpty();
+        return this.size() == 0;
+    }
+
+    /**
+     * Returns the element at the given index of a numeric list as a {@code byte}.
+     *
+     * @since   1.6.0
+     *
+     * @param index the index of the element.
+     * @return the element as a {@code byte}.
+     * @throws ClassCastException if this is not a list of numeric tags.
+     */
+    public byte getByte(int index) {
+        if (this.packed instanceof byte[]) {
+            return ((byte[]) this.packed)[index];
+        }
+
+        return (byte) this.getInt(index);
+    }
+
+    /**
+     * Returns the element at the given index of a numeric list as a {@code short}.
+     *
+     * @since   1.6.0
+     *
+     * @param index the index of the element.
+     * @return the element as a {@code short}.
+     * @throws ClassCastException if this is not a list of numeric tags.
+     */
+    public short getShort(int index) {
+        if (this.packed instanceof short[]) {
+            return ((short[]) this.packed)[index];
+        }
+
+        return (short) this.getInt(index);
+    }
+
+    /**
+     * Returns the element at the given index of a numeric list as an {@code int}.
+     *
+     * @since   1.6.0
+     *
+     * @param index the index of the element.
+     * @return the element as an {@code int}.
+     * @throws ClassCastException if this is not a list of numeric tags.
+     */
+    public int getInt(int index) {
+        if (this.packed instanceof int[]) {
+            return ((int[]) this.packed)[index];
+        }
+
+        if (this.packed == null) {
+            return ((AbstractNbtNumber<?>) this.value.get(index)).intValue();
+        }
+
+        // Floating point values are converted like Number.intValue() does, instead of wrapping through a long
+        if (this.type == 5 || this.type == 6) {
+            return (int) this.getDouble(index);
+        }
+
+        return (int) this.getLong(index);
+    }
+
+    /**
+     * Returns the element at the given index of a numeric list as a {@code long}.
+     *
+     * @since   1.6.0
+     *
+     * @param index the index of the element.
+     * @return the element as a {@code long}.
+     * @throws ClassCastException if this is not a list of numeric tags.
+     */
+    public long getLong(int index) {
+        if (this.packed == null) {
+            return ((AbstractNbtNumber<?>) this.value.get(index)).longValue();
+        }
+
+        switch (this.type) {
+            case 1:
+                return ((byte[]) this.packed)[index];
+            case 2:
+                return ((short[]) this.packed)[index];
+            case 3:
+                return ((int[]) this.packed)[index];
+            case 4:
+                return ((long[]) this.packed)[index];
+            case 5:
+                return (long) ((float[]) this.packed)[index];
+            default:
+                return (long) ((double[]) this.packed)[index];
+        }
+    }
+
+    /**
+     * Returns the element at the given index of a numeric list as a {@code float}.
+     *
+     * @since   1.6.0
+     *
+     * @param index the index of the element.
+     * @return the element as a {@code float}.
+     * @throws ClassCastException if this is not a list of numeric tags.
+     */
+    public float getFloat(int index) {
+        if (this.packed instanceof float[]) {
+            return ((float[]) this.packed)[index];
+        }
+
+        return (float) this.getDouble(index);
+    }
+
+    /**
+     * Returns the element at the given index of a numeric list as a {@code double}.
+     *
+     * @since   1.6.0
+     *
+     * @param index the index of the element.
+     * @return the element as a {@code double}.
+     * @throws ClassCastException if this is not a list of numeric tags.
+     */
+    public double getDouble(int index) {
+        if (this.packed == null) {
+            return ((AbstractNbtNumber<?>) this.value.get(index)).doubleValue();
+        }
+
+        switch (this.type) {
+            case 5:
+                return ((float[]) this.packed)[index];
+            case 6:
+                return ((double[]) this.packed)[index];
+            default:
+                return this.getLong(index);
+        }
+    }
+
+    /**
+     * Returns the elements of a numeric list as a new {@code int[]} array.
+     *
+     * @since   1.6.0
+     *
+     * @return the elements as {@code int}s.
+     * @throws ClassCastException if this is not a list of numeric tags.
+     */
+    public int[] toIntArray() {
+        if (this.packed instanceof int[]) {
+            return ((int[]) this.packed).clone();
+        }
+
+        int[] result = new int[this.size()];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = this.getInt(i);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the elements of a numeric list as a new {@code long[]} array.
+     *
+     * @since   1.6.0
+     *
+     * @return the elements as {@code long}s.
+     * @throws ClassCastException if this is not a list of numeric tags.
+     */
+    public long[] toLongArray() {
+        if (this.packed instanceof long[]) {
+            return ((long[]) this.packed).clone();
+        }
+
+        long[] result = new long[this.size()];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = this.getLong(i);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the elements of a numeric list as a new {@code float[]} array.
+     *
+     * @since   1.6.0
+     *
+     * @return the elements as {@code float}s.
+     * @throws ClassCastException if this is not a list of numeric tags.
+     */
+    public float[] toFloatArray() {
+        if (this.packed instanceof float[]) {
+            return ((float[]) this.packed).clone();
+        }
+
+        float[] result = new float[this.size()];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = this.getFloat(i);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the elements of a numeric list as a new {@code double[]} array.
+     *
+     * @since   1.6.0
+     *
+     * @return the elements as {@code double}s.
+     * @throws ClassCastException if this is not a list of numeric tags.
+     */
+    public double[] toDoubleArray() {
+        if (this.packed instanceof double[]) {
+            return ((double[]) this.packed).clone();
+        }
+
+        double[] result = new double[this.size()];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = this.getDouble(i);
+        }
+
+        return result;
     }
 
     /**
@@ -279,7 +921,11 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
      * @return true if added successfully.
      */
     public boolean add(@NonNull T tag) {
-        if (this.value.isEmpty()) {
+        this.checkMutable();
+
+        List<T> list = this.list();
+
+        if (list.isEmpty()) {
             this.type = tag.getTypeId();
         }
 
@@ -287,7 +933,7 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
             return false;
         }
 
-        return this.value.add(tag);
+        return list.add(tag);
     }
 
     /**
@@ -298,7 +944,11 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
      * @param tag tag to be inserted.
      */
     public void insert(int index, @NonNull T tag) {
-        if (this.value.isEmpty()) {
+        this.checkMutable();
+
+        List<T> list = this.list();
+
+        if (list.isEmpty()) {
             this.type = tag.getTypeId();
         }
 
@@ -306,7 +956,7 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
             return;
         }
 
-        this.value.add(index, tag);
+        list.add(index, tag);
     }
 
     /**
@@ -316,9 +966,12 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
      * @return true if the tag was removed successfully, false otherwise.
      */
     public boolean remove(@NonNull T tag) {
-        boolean success = this.value.remove(tag);
+        this.checkMutable();
 
-        if (this.value.isEmpty()) {
+        List<T> list = this.list();
+        boolean success = list.remove(tag);
+
+        if (list.isEmpty()) {
             this.type = 0;
         }
 
@@ -332,9 +985,12 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
      * @return the removed tag.
      */
     public T remove(int index) {
-        T previous = this.value.remove(index);
+        this.checkMutable();
+
+        List<T> list = this.list();
+        T previous = list.remove(index);
 
-        if (this.value.isEmpty()) {
+        if (list.isEmpty()) {
             this.type = 0;
         }
 
@@ -348,7 +1004,16 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
      * @return the tag at the specified index.
      */
     public T get(int index) {
-        return this.value.get(index);
+        // Frozen tags can be handed out as they are, without giving this list an element list of its own
+        if (this.value != null) {
+            T tag = this.value.get(index);
+
+            if (tag.isFrozen()) {
+                return tag;
+            }
+        }
+
+        return this.list().get(index);
     }
 
     /**
@@ -358,7 +1023,7 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
      * @return true if this list contains the tag, false otherwise.
      */
     public boolean contains(@NonNull T tag) {
-        return this.value.contains(tag);
+        return this.list().contains(tag);
     }
 
     /**
@@ -368,35 +1033,108 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
      * @return true if this list contains all tags in the collection, false otherwise.
      */
     public boolean containsAll(@NonNull Collection<T> tags) {
-        return this.value.containsAll(tags);
+        return this.list().containsAll(tags);
     }
 
     /**
      * Removes all tags from the list. The list will be empty after this call returns.
      */
     public void clear() {
+        this.checkMutable();
+
         this.type = 0;
-        this.value.clear();
+
+        if (this.packed != null || this.shared) {
+            this.packed = null;
+            this.value = new ArrayList<>();
+            this.shared = false;
+        } else {
+            this.value.clear();
+        }
     }
 
     @Override
     public Iterator<T> iterator() {
-        return this.value.iterator();
+        return this.list().iterator();
     }
 
     @Override
     public void forEach(Consumer<? super T> action) {
-        this.value.forEach(action);
+        this.list().forEach(action);
     }
 
     @Override
     public Spliterator<T> spliterator() {
-        return this.value.spliterator();
+        return this.list().spliterator();
+    }
+
+    /**
+     * Returns the element tags, creating them first if this list is packed.
+     * A frozen list is not changed; it returns an unmodifiable view instead, which creates a frozen tag for each packed value it returns.
+     */
+    private List<T> list() {
+        if (this.isFrozen()) {
+            if (this.packed == null) {
+                return Collections.unmodifiableList(this.value);
+            }
+
+            return new AbstractList<T>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public T get(int index) {
+                    return (T) NbtList.this.element(index).freeze();
+                }
+
+                @Override
+                public int size() {
+                    return NbtList.this.size();
+                }
+            };
+        }
+
+        this.unshare();
+
+        if (this.packed != null) {
+            int size = this.size();
+            List<T> result = new ArrayList<>(size);
+
+            for (int i = 0; i < size; i++) {
+                result.add(this.element(i));
+            }
+
+            this.value = result;
+            this.packed = null;
+        }
+
+        return this.value;
+    }
+
+    /**
+     * Returns the element at the given index, creating a new tag for it if this list is packed.
+     */
+    @SuppressWarnings("unchecked")
+    private T element(int index) {
+        switch (this.packed == null ? 0 : this.type) {
+            case 1:
+                return (T) new NbtByte(((byte[]) this.packed)[index]);
+            case 2:
+                return (T) new NbtShort(((short[]) this.packed)[index]);
+            case 3:
+                return (T) new NbtInt(((int[]) this.packed)[index]);
+            case 4:
+                return (T) new NbtLong(((long[]) this.packed)[index]);
+            case 5:
+                return (T) new NbtFloat(((float[]) this.packed)[index]);
+            case 6:
+                return (T) new NbtDouble(((double[]) this.packed)[index]);
+            default:
+                return this.value.get(index);
+        }
     }
 
     @Override
     public String toString() {
-        return this.toSnbt(0, new NbtTypeRegistry(), new SnbtConfig());
+        return this.toSnbt(0, NbtTypeRegistry.getDefault(), new SnbtConfig());
     }
 
     @Override
@@ -407,13 +1145,47 @@ public class NbtList<T extends NbtElement> extends NbtElement implements SnbtSer
         NbtList<?> nbtList = (NbtList<?>) o;
 
         if (type != nbtList.type) return false;
-        return Objects.equals(value, nbtList.value);
+        if (this.hash != 0 && nbtList.hash != 0 && this.hash != nbtList.hash) return false;
+
+        if (this.packed == null && nbtList.packed == null) {
+            return Objects.equals(value, nbtList.value);
+        }
+
+        if (this.packed != null && nbtList.packed != null) {
+            return Objects.deepEquals(this.packed, nbtList.packed);
+        }
+
+        int size = this.size();
+
+        if (size != nbtList.size()) return false;
+
+        for (int i = 0; i < size; i++) {
+            if (!this.element(i).equals(nbtList.element(i))) return false;
+        }
+
+        return true;
     }
 
     @Override
     public int hashCode() {
-        int result = value != null ? value.hashCode() : 0;
+        if (this.hash != 0) {
+            return this.hash;
+        }
+
+        // Same as List.hashCode() over the element tags. A packed list creates them one at a time, without keeping them
+        int result = 1;
+        int size = this.size();
+
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + this.element(i).hashCode();
+        }
+
         result = 31 * result + (int) type;
+
+        if (this.isFrozen()) {
+            this.hash = result;
+        }
+
         return result;
     }
 }
@@ -0,0 +1,222 @@
+package rocks.blackblock.nbt.elements.collection;
+
+import lombok.NonNull;
+
+import java.util.*;
+
+/**
+ * An immutable, ordered set of compound keys, mapping every key to a slot.
+ * Compounds with the same keys can share one shape, so that each of them only has to store an array of values
+ * (see {@link ShapedMap}). The reader does this for the compounds of a list, which usually all have the same keys.
+ * <p>
+ * Adding or removing a key moves a compound to another shape. These transitions are remembered by the shape,
+ * so compounds that were modified the same way keep sharing their shapes.
+ *
+ * @since   1.6.0
+ */
+public final class NbtShape {
+    /**
+     * The shape without any keys.
+     */
+    public static final NbtShape EMPTY = new NbtShape(new String[0]);
+
+    private static final int LINEAR_LIMIT = 8;
+    private static final int MAX_TRANSITIONS = 16;
+
+    private final String[] keys;
+
+    // Slots by key, or null while the shape is small enough to scan
+    private final Map<String, Integer> slots;
+
+    // Shapes this one transitions to, guarded by this shape
+    private Map<String, NbtShape> additions;
+    private Map<String, NbtShape> removals;
+
+    private NbtShape(String[] keys) {
+        this.keys = keys;
+
+        if (keys.length > LINEAR_LIMIT) {
+            this.slots = new HashMap<>(keys.length * 2);
+
+            for (int i = 0; i < keys.length; i++) {
+                this.slots.put(keys[i], i);
+            }
+        } else {
+            this.slots = null;
+        }
+    }
+
+    /**
+     * Returns a new shape holding the given keys, in the given order.
+     *
+     * @param keys the keys of the shape.
+     * @return the new shape.
+     * @throws IllegalArgumentException if a key is present more than once.
+     */
+    public static NbtShape of(@NonNull String... keys) {
+        if (keys.length == 0) {
+            return EMPTY;
+        }
+
+        NbtShape result = new NbtShape(keys.clone());
+
+        if (result.slots != null ? result.slots.size() != keys.length : new HashSet<>(Arrays.asList(keys)).size() != keys.length) {
+            throw new IllegalArgumentException("A shape can not hold the same key twice.");
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a new shape holding the given keys, in iteration order.
+     *
+     * @param keys the keys of the shape.
+     * @return the new shape.
+     * @throws IllegalArgumentException if a key is present more than once.
+     */
+    public static NbtShape of(@NonNull Collection<String> keys) {
+        return of(keys.toArray(new String[0]));
+    }
+
+    /**
+     * Returns the number of keys in this shape.
+     *
+     * @return the number of keys.
+     */
+    public int size() {
+        return this.keys.length;
+    }
+
+    /**
+     * Returns the key in the given slot.
+     *
+     * @param slot the slot of the key.
+     * @return the key.
+     */
+    public String getKey(int slot) {
+        return this.keys[slot];
+    }
+
+    /**
+     * Returns the keys of this shape, in slot order.
+     *
+     * @return an unmodifiable view of the keys.
+     */
+    public List<String> getKeys() {
+        return Collections.unmodifiableList(Arrays.asList(this.keys));
+    }
+
+    /**
+     * Returns the slot of the given key.
+     *
+     * @param key the key to look up.
+     * @return the slot of the key, or -1 if this shape does not hold it.
+     */
+    public int indexOf(Object key) {
+        if (this.slots != null) {
+            Integer slot = this.slots.get(key);
+            return slot == null ? -1 : slot;
+        }
+
+        for (int i = 0; i < this.keys.length; i++) {
+            String k = this.keys[i];
+
+            if (k == key || (k != null && k.equals(key))) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the shape holding the keys of this one with the given key appended.
+     *
+     * @param key the key to add.
+     * @return the shape with the key, or this shape if it already holds it.
+     */
+    public NbtShape withKey(String key) {
+        if (this.indexOf(key) >= 0) {
+            return this;
+        }
+
+        if (this == EMPTY) {
+            // Not remembered, so unrelated compounds built up from nothing do not pile up shapes here
+            return new NbtShape(new String[] {key});
+        }
+
+        synchronized (this) {
+            NbtShape result = this.additions == null ? null : this.additions.get(key);
+
+            if (result == null) {
+                String[] keys = Arrays.copyOf(this.keys, this.keys.length + 1);
+                keys[this.keys.length] = key;
+                result = new NbtShape(keys);
+
+                // Removing the key again leads back here
+                result.removals = new HashMap<>(4);
+                result.removals.put(key, this);
+
+                if (this.additions == null) {
+                    this.additions = new HashMap<>(4);
+                }
+
+                if (this.additions.size() < MAX_TRANSITIONS) {
+                    this.additions.put(key, result);
+                }
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Returns the shape holding the keys of this one without the given key.
+     *
+     * @param key the key to remove.
+     * @return the shape without the key, or this shape if it does not hold it.
+     */
+    public NbtShape withoutKey(Object key) {
+        int slot = this.indexOf(key);
+
+        if (slot < 0) {
+            return this;
+        }
+
+        if (this.keys.length == 1) {
+            return EMPTY;
+        }
+
+        synchronized (this) {
+            NbtShape result = this.removals == null ? null : this.removals.get(this.keys[slot]);
+
+            if (result == null) {
+                String[] keys = new String[this.keys.length - 1];
+                System.arraycopy(this.keys, 0, keys, 0, slot);
+                System.arraycopy(this.keys, slot + 1, keys, slot, keys.length - slot);
+                result = new NbtShape(keys);
+
+                if (slot == keys.length) {
+                    // Adding the last key again leads back here
+                    result.additions = new HashMap<>(4);
+                    result.additions.put(this.keys[slot], this);
+                }
+
+                if (this.removals == null) {
+                    this.removals = new HashMap<>(4);
+                }
+
+                if (this.removals.size() < MAX_TRANSITIONS) {
+                    this.removals.put(this.keys[slot], result);
+                }
+            }
+
+            return result;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NbtShape" + Arrays.toString(this.keys);
+    }
+}
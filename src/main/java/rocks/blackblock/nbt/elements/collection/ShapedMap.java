@@ -0,0 +1,377 @@
+package rocks.blackblock.nbt.elements.collection;
+
+import rocks.blackblock.nbt.utils.CompactMap;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * An insertion-ordered map whose keys are described by a shared {@link NbtShape}, so that it only stores its values.
+ * Adding or removing a key moves the map to another shape; replacing a value does not.
+ * Every such move copies the keys, so once a map with more than {@link #MAX_SHAPED_KEYS} keys gains or loses one,
+ * it stops using shapes and keeps its entries in a {@link CompactMap} instead.
+ * Like {@link HashMap}, this map is not thread-safe.
+ *
+ * @param <V> the type of the values.
+ * @since   1.6.0
+ */
+public class ShapedMap<V> extends AbstractMap<String, V> {
+    /**
+     * The number of keys up to which adding or removing a key moves the map to another shape.
+     */
+    public static final int MAX_SHAPED_KEYS = 32;
+
+    private NbtShape shape;
+
+    // The values by slot, possibly longer than the shape
+    private Object[] values;
+
+    // The entries once the map stopped using shapes, or null while it still does
+    private Map<String, V> entries;
+
+    private int modCount;
+
+    /**
+     * Constructs an empty map.
+     */
+    public ShapedMap() {
+        this(NbtShape.EMPTY, new Object[4]);
+    }
+
+    /**
+     * Constructs a map of the given shape, taking ownership of the given values.
+     *
+     * @param shape the shape of the map.
+     * @param values the values by slot, at least as long as the shape.
+     */
+    ShapedMap(NbtShape shape, Object[] values) {
+        this.shape = shape;
+        this.values = values;
+    }
+
+    /**
+     * Returns a copy of this map, sharing its shape.
+     *
+     * @return the copy.
+     */
+    ShapedMap<V> copy() {
+        if (this.entries != null) {
+            ShapedMap<V> result = new ShapedMap<>(null, null);
+            result.entries = new CompactMap<>(this.entries);
+
+            return result;
+        }
+
+        return new ShapedMap<>(this.shape, Arrays.copyOf(this.values, Math.max(this.shape.size(), 1)));
+    }
+
+    /**
+     * Returns the shape this map currently has.
+     *
+     * @return the shape of this map, or null if it no longer uses shapes.
+     */
+    public NbtShape getShape() {
+        return this.shape;
+    }
+
+    @Override
+    public int size() {
+        return this.entries != null ? this.entries.size() : this.shape.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (this.entries != null) {
+            return this.entries.get(key);
+        }
+
+        int slot = this.shape.indexOf(key);
+
+        return slot < 0 ? null : (V) this.values[slot];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (this.entries != null) {
+            return this.entries.containsKey(key);
+        }
+
+        return this.shape.indexOf(key) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(String key, V value) {
+        if (this.entries != null) {
+            return this.entries.put(key, value);
+        }
+
+        int slot = this.shape.indexOf(key);
+
+        if (slot >= 0) {
+            V previous = (V) this.values[slot];
+            this.values[slot] = value;
+            return previous;
+        }
+
+        slot = this.shape.size();
+
+        if (slot >= MAX_SHAPED_KEYS) {
+            this.unshape();
+            this.modCount++;
+
+            return this.entries.put(key, value);
+        }
+
+        if (slot == this.values.length) {
+            this.values = Arrays.copyOf(this.values, slot < 4 ? 4 : slot + (slot >> 1));
+        }
+
+        this.shape = this.shape.withKey(key);
+        this.values[slot] = value;
+        this.modCount++;
+
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        if (this.entries != null) {
+            return this.entries.remove(key);
+        }
+
+        int slot = this.shape.indexOf(key);
+
+        if (slot < 0) {
+            return null;
+        }
+
+        V previous = (V) this.values[slot];
+        this.removeAt(slot);
+
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        if (this.entries != null) {
+            // Small again, so back to shapes
+            this.entries = null;
+            this.values = new Object[4];
+        } else {
+            Arrays.fill(this.values, null);
+        }
+
+        this.shape = NbtShape.EMPTY;
+        this.modCount++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super String, ? super V> action) {
+        if (this.entries != null) {
+            this.entries.forEach(action);
+            return;
+        }
+
+        int expected = this.modCount;
+        NbtShape shape = this.shape;
+
+        for (int i = 0; i < shape.size(); i++) {
+            action.accept(shape.getKey(i), (V) this.values[i]);
+
+            if (this.modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        if (this.entries != null) {
+            return this.entries.entrySet();
+        }
+
+        return new AbstractSet<Entry<String, V>>() {
+            @Override
+            public Iterator<Entry<String, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return ShapedMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                ShapedMap.this.clear();
+            }
+        };
+    }
+
+    /**
+     * Moves the entries into a {@link CompactMap}, after which the map no longer uses shapes.
+     */
+    @SuppressWarnings("unchecked")
+    private void unshape() {
+        int size = this.shape.size();
+        Map<String, V> entries = new CompactMap<>(size * 2);
+
+        for (int i = 0; i < size; i++) {
+            entries.put(this.shape.getKey(i), (V) this.values[i]);
+        }
+
+        this.entries = entries;
+        this.shape = null;
+        this.values = null;
+    }
+
+    private void removeAt(int slot) {
+        int size = this.shape.size();
+
+        if (size > MAX_SHAPED_KEYS) {
+            String key = this.shape.getKey(slot);
+
+            this.unshape();
+            this.entries.remove(key);
+            this.modCount++;
+
+            return;
+        }
+        int moved = size - slot - 1;
+
+        if (moved > 0) {
+            System.arraycopy(this.values, slot + 1, this.values, slot, moved);
+        }
+
+        this.values[size - 1] = null;
+        this.shape = this.shape.withoutKey(this.shape.getKey(slot));
+        this.modCount++;
+    }
+
+    private class EntryIterator implements Iterator<Entry<String, V>> {
+        private int next = 0;
+        private int last = -1;
+        private int expected = ShapedMap.this.modCount;
+
+        // Takes over once a removal moved the entries out of the shape
+        private Iterator<Entry<String, V>> entries;
+
+        @Override
+        public boolean hasNext() {
+            if (this.entries != null) {
+                return this.entries.hasNext();
+            }
+
+            return this.next < ShapedMap.this.size();
+        }
+
+        @Override
+        public Entry<String, V> next() {
+            if (this.entries != null) {
+                Entry<String, V> result = this.entries.next();
+                this.last = 0;
+
+                return result;
+            }
+
+            if (ShapedMap.this.modCount != this.expected) {
+                throw new ConcurrentModificationException();
+            }
+
+            if (this.next >= ShapedMap.this.size()) {
+                throw new NoSuchElementException();
+            }
+
+            this.last = this.next++;
+
+            return new MapEntry(ShapedMap.this.shape.getKey(this.last), this.last);
+        }
+
+        @Override
+        public void remove() {
+            if (this.last < 0) {
+                throw new IllegalStateException();
+            }
+
+            if (this.entries != null) {
+                this.entries.remove();
+                this.last = -1;
+
+                return;
+            }
+
+            if (ShapedMap.this.modCount != this.expected) {
+                throw new ConcurrentModificationException();
+            }
+
+            ShapedMap.this.removeAt(this.last);
+
+            this.next = this.last;
+            this.last = -1;
+            this.expected = ShapedMap.this.modCount;
+
+            if (ShapedMap.this.entries != null) {
+                this.entries = ShapedMap.this.entries.entrySet().iterator();
+
+                for (int i = 0; i < this.next; i++) {
+                    this.entries.next();
+                }
+            }
+        }
+    }
+
+    private class MapEntry implements Entry<String, V> {
+        private final String key;
+        private final int slot;
+
+        MapEntry(String key, int slot) {
+            this.key = key;
+            this.slot = slot;
+        }
+
+        @Override
+        public String getKey() {
+            return this.key;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V getValue() {
+            return (V) ShapedMap.this.values[this.slot];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V setValue(V value) {
+            V previous = (V) ShapedMap.this.values[this.slot];
+            ShapedMap.this.values[this.slot] = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) return false;
+            Entry<?, ?> that = (Entry<?, ?>) o;
+            return Objects.equals(this.key, that.getKey()) && Objects.equals(this.getValue(), that.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(this.key) ^ Objects.hashCode(this.getValue());
+        }
+
+        @Override
+        public String toString() {
+            return this.key + "=" + this.getValue();
+        }
+    }
+}
@@ -72,6 +72,6 @@ public abstract class AbstractNbtNumber<T extends Number> extends NbtElement imp
 
     @Override
     public String toString() {
-        return this.toSnbt(0, new NbtTypeRegistry(), new SnbtConfig());
+        return this.toSnbt(0, NbtTypeRegistry.getDefault(), new SnbtConfig());
     }
 }
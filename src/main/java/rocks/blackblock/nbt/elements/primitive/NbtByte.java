@@ -2,6 +2,7 @@ package rocks.blackblock.nbt.elements.primitive;
 
 import com.google.gson.JsonObject;
 import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
+import rocks.blackblock.nbt.api.visitor.NbtVisitor;
 import rocks.blackblock.nbt.api.snbt.SnbtConfig;
 import rocks.blackblock.nbt.elements.NbtType;
 import lombok.AllArgsConstructor;
@@ -22,6 +23,16 @@ import java.io.IOException;
 public class NbtByte extends AbstractNbtNumber<Byte> {
     private byte value;
 
+    // Shared frozen tags, one for every byte value
+    private static final NbtByte[] SHARED = new NbtByte[256];
+
+    static {
+        for (int i = 0; i < SHARED.length; i++) {
+            SHARED[i] = new NbtByte(null, (byte) (i - 128));
+            SHARED[i].freeze();
+        }
+    }
+
     /**
      * Constructs a byte tag with a given value.
      *
@@ -52,6 +63,31 @@ public class NbtByte extends AbstractNbtNumber<Byte> {
         this.setValue(value);
     }
 
+    /**
+     * Returns the shared, frozen byte tag holding the given value. It has no name; compounds hold it under their own key.
+     * Use this for values that are not going to be changed in place, to avoid allocating a tag per value.
+     *
+     * @since   1.6.0
+     *
+     * @param value the {@code byte} value.
+     * @return the shared byte tag.
+     */
+    public static NbtByte of(byte value) {
+        return SHARED[value + 128];
+    }
+
+    /**
+     * Returns the shared, frozen byte tag holding the given boolean, as 1 or 0.
+     *
+     * @since   1.6.0
+     *
+     * @param value the {@code boolean} value.
+     * @return the shared byte tag.
+     */
+    public static NbtByte of(boolean value) {
+        return SHARED[value ? 129 : 128];
+    }
+
     @Override
     public byte getTypeId() {
         return NbtType.BYTE.getId();
@@ -68,9 +104,56 @@ public class NbtByte extends AbstractNbtNumber<Byte> {
      * @param value new {@code byte} value to be set.
      */
     public void setValue(byte value) {
+        this.checkMutable();
+
         this.value = value;
     }
 
+    @Override
+    public byte byteValue() {
+        return this.value;
+    }
+
+    @Override
+    public short shortValue() {
+        return this.value;
+    }
+
+    @Override
+    public int intValue() {
+        return this.value;
+    }
+
+    @Override
+    public long longValue() {
+        return this.value;
+    }
+
+    @Override
+    public float floatValue() {
+        return this.value;
+    }
+
+    @Override
+    public double doubleValue() {
+        return this.value;
+    }
+
+    @Override
+    public NbtByte copy() {
+        return new NbtByte(this.getName(), this.value);
+    }
+
+    @Override
+    public NbtByte snapshot() {
+        return this.isFrozen() ? this : this.copy();
+    }
+
+    @Override
+    public int getEncodedSize() {
+        return 1;
+    }
+
     @Override
     public void write(DataOutput output, int depth, NbtTypeRegistry registry) throws IOException {
         output.writeByte(this.value);
@@ -78,11 +161,18 @@ public class NbtByte extends AbstractNbtNumber<Byte> {
 
     @Override
     public NbtByte read(DataInput input, int depth, NbtTypeRegistry registry) throws IOException {
+        this.checkMutable();
+
         this.value = input.readByte();
 
         return this;
     }
 
+    @Override
+    public void accept(NbtVisitor visitor) throws IOException {
+        visitor.visitByte(this.value);
+    }
+
     @Override
     public String toSnbt(int depth, NbtTypeRegistry registry, SnbtConfig config) {
         return this.value + "b";
@@ -104,6 +194,8 @@ public class NbtByte extends AbstractNbtNumber<Byte> {
 
     @Override
     public NbtByte fromJson(JsonObject json, int depth, NbtTypeRegistry registry) throws IOException {
+        this.checkMutable();
+
         if (json.has("name")) {
             this.setName(json.getAsJsonPrimitive("name").getAsString());
         } else {
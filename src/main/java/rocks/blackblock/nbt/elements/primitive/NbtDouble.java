@@ -2,6 +2,7 @@ package rocks.blackblock.nbt.elements.primitive;
 
 import com.google.gson.JsonObject;
 import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
+import rocks.blackblock.nbt.api.visitor.NbtVisitor;
 import rocks.blackblock.nbt.api.snbt.SnbtConfig;
 import rocks.blackblock.nbt.elements.NbtType;
 import lombok.AllArgsConstructor;
@@ -48,9 +49,56 @@ public class NbtDouble extends AbstractNbtNumber<Double> {
      * @param value new {@code double} value to be set.
      */
     public void setValue(double value) {
+        this.checkMutable();
+
         this.value = value;
     }
 
+    @Override
+    public byte byteValue() {
+        return (byte) this.value;
+    }
+
+    @Override
+    public short shortValue() {
+        return (short) this.value;
+    }
+
+    @Override
+    public int intValue() {
+        return (int) this.value;
+    }
+
+    @Override
+    public long longValue() {
+        return (long) this.value;
+    }
+
+    @Override
+    public float floatValue() {
+        return (float) this.value;
+    }
+
+    @Override
+    public double doubleValue() {
+        return this.value;
+    }
+
+    @Override
+    public NbtDouble copy() {
+        return new NbtDouble(this.getName(), this.value);
+    }
+
+    @Override
+    public NbtDouble snapshot() {
+        return this.isFrozen() ? this : this.copy();
+    }
+
+    @Override
+    public int getEncodedSize() {
+        return 8;
+    }
+
     @Override
     public void write(DataOutput output, int depth, NbtTypeRegistry registry) throws IOException {
         output.writeDouble(this.value);
@@ -58,11 +106,18 @@ public class NbtDouble extends AbstractNbtNumber<Double> {
 
     @Override
     public NbtDouble read(DataInput input, int depth, NbtTypeRegistry registry) throws IOException {
+        this.checkMutable();
+
         this.value = input.readDouble();
 
         return this;
     }
 
+    @Override
+    public void accept(NbtVisitor visitor) throws IOException {
+        visitor.visitDouble(this.value);
+    }
+
     @Override
     public String toSnbt(int depth, NbtTypeRegistry registry, SnbtConfig config) {
         return this.value + "d";
@@ -84,6 +139,8 @@ public class NbtDouble extends AbstractNbtNumber<Double> {
 
     @Override
     public NbtDouble fromJson(JsonObject json, int depth, NbtTypeRegistry registry) {
+        this.checkMutable();
+
         if (json.has("name")) {
             this.setName(json.getAsJsonPrimitive("name").getAsString());
         } else {
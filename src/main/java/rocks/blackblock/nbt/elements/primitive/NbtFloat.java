@@ -2,6 +2,7 @@ package rocks.blackblock.nbt.elements.primitive;
 
 import com.google.gson.JsonObject;
 import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
+import rocks.blackblock.nbt.api.visitor.NbtVisitor;
 import rocks.blackblock.nbt.api.snbt.SnbtConfig;
 import rocks.blackblock.nbt.elements.NbtType;
 import lombok.AllArgsConstructor;
@@ -48,9 +49,56 @@ public class NbtFloat extends AbstractNbtNumber<Float> {
      * @param value new {@code float} value to be set.
      */
     public void setValue(float value) {
+        this.checkMutable();
+
         this.value = value;
     }
 
+    @Override
+    public byte byteValue() {
+        return (byte) this.value;
+    }
+
+    @Override
+    public short shortValue() {
+        return (short) this.value;
+    }
+
+    @Override
+    public int intValue() {
+        return (int) this.value;
+    }
+
+    @Override
+    public long longValue() {
+        return (long) this.value;
+    }
+
+    @Override
+    public float floatValue() {
+        return this.value;
+    }
+
+    @Override
+    public double doubleValue() {
+        return this.value;
+    }
+
+    @Override
+    public NbtFloat copy() {
+        return new NbtFloat(this.getName(), this.value);
+    }
+
+    @Override
+    public NbtFloat snapshot() {
+        return this.isFrozen() ? this : this.copy();
+    }
+
+    @Override
+    public int getEncodedSize() {
+        return 4;
+    }
+
     @Override
     public void write(DataOutput output, int depth, NbtTypeRegistry registry) throws IOException {
         output.writeFloat(this.value);
@@ -58,11 +106,18 @@ public class NbtFloat extends AbstractNbtNumber<Float> {
 
     @Override
     public NbtFloat read(DataInput input, int depth, NbtTypeRegistry registry) throws IOException {
+        this.checkMutable();
+
         this.value = input.readFloat();
 
         return this;
     }
 
+    @Override
+    public void accept(NbtVisitor visitor) throws IOException {
+        visitor.visitFloat(this.value);
+    }
+
     @Override
     public String toSnbt(int depth, NbtTypeRegistry registry, SnbtConfig config) {
         return this.value + "f";
@@ -84,6 +139,8 @@ public class NbtFloat extends AbstractNbtNumber<Float> {
 
     @Override
     public NbtFloat fromJson(JsonObject json, int depth, NbtTypeRegistry registry) {
+        this.checkMutable();
+
         if (json.has("name")) {
             this.setName(json.getAsJsonPrimitive("name").getAsString());
         } else {
@@ -2,6 +2,7 @@ package rocks.blackblock.nbt.elements.primitive;
 
 import com.google.gson.JsonObject;
 import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
+import rocks.blackblock.nbt.api.visitor.NbtVisitor;
 import rocks.blackblock.nbt.api.snbt.SnbtConfig;
 import rocks.blackblock.nbt.elements.NbtType;
 import lombok.AllArgsConstructor;
@@ -21,6 +22,17 @@ import java.io.IOException;
 public class NbtInt extends AbstractNbtNumber<Integer> {
     private int value;
 
+    // Shared frozen tags for the values from SHARED_MIN up to SHARED_MIN + SHARED.length
+    private static final int SHARED_MIN = -128;
+    private static final NbtInt[] SHARED = new NbtInt[1152];
+
+    static {
+        for (int i = 0; i < SHARED.length; i++) {
+            SHARED[i] = new NbtInt(null, i + SHARED_MIN);
+            SHARED[i].freeze();
+        }
+    }
+
     /**
      * Constructs an int tag with a given name and value.
      *
@@ -32,6 +44,28 @@ public class NbtInt extends AbstractNbtNumber<Integer> {
         this.setValue(value);
     }
 
+    /**
+     * Returns a frozen int tag holding the given value. Small values (-128 to 1023) are shared, so no tag is allocated for them.
+     * The tag has no name; compounds hold it under their own key.
+     *
+     * @since   1.6.0
+     *
+     * @param value the {@code int} value.
+     * @return a frozen int tag.
+     */
+    public static NbtInt of(int value) {
+        int slot = value - SHARED_MIN;
+
+        if (slot >= 0 && slot < SHARED.length) {
+            return SHARED[slot];
+        }
+
+        NbtInt result = new NbtInt(null, value);
+        result.freeze();
+
+        return result;
+    }
+
     @Override
     public byte getTypeId() {
         return NbtType.INT.getId();
@@ -48,9 +82,56 @@ public class NbtInt extends AbstractNbtNumber<Integer> {
      * @param value new {@code int} value to be set.
      */
     public void setValue(int value) {
+        this.checkMutable();
+
         this.value = value;
     }
 
+    @Override
+    public byte byteValue() {
+        return (byte) this.value;
+    }
+
+    @Override
+    public short shortValue() {
+        return (short) this.value;
+    }
+
+    @Override
+    public int intValue() {
+        return this.value;
+    }
+
+    @Override
+    public long longValue() {
+        return this.value;
+    }
+
+    @Override
+    public float floatValue() {
+        return this.value;
+    }
+
+    @Override
+    public double doubleValue() {
+        return this.value;
+    }
+
+    @Override
+    public NbtInt copy() {
+        return new NbtInt(this.getName(), this.value);
+    }
+
+    @Override
+    public NbtInt snapshot() {
+        return this.isFrozen() ? this : this.copy();
+    }
+
+    @Override
+    public int getEncodedSize() {
+        return 4;
+    }
+
     @Override
     public void write(DataOutput output, int depth, NbtTypeRegistry registry) throws IOException {
         output.writeInt(this.value);
@@ -58,11 +139,18 @@ public class NbtInt extends AbstractNbtNumber<Integer> {
 
     @Override
     public NbtInt read(DataInput input, int depth, NbtTypeRegistry registry) throws IOException {
+        this.checkMutable();
+
         this.value = input.readInt();
 
         return this;
     }
 
+    @Override
+    public void accept(NbtVisitor visitor) throws IOException {
+        visitor.visitInt(this.value);
+    }
+
     @Override
     public String toSnbt(int depth, NbtTypeRegistry registry, SnbtConfig config) {
         return Integer.toString(this.value);
@@ -84,6 +172,8 @@ public class NbtInt extends AbstractNbtNumber<Integer> {
 
     @Override
     public NbtInt fromJson(JsonObject json, int depth, NbtTypeRegistry registry) {
+        this.checkMutable();
+
         if (json.has("name")) {
             this.setName(json.getAsJsonPrimitive("name").getAsString());
         } else {
@@ -2,6 +2,7 @@ package rocks.blackblock.nbt.elements.primitive;
 
 import com.google.gson.JsonObject;
 import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
+import rocks.blackblock.nbt.api.visitor.NbtVisitor;
 import rocks.blackblock.nbt.api.snbt.SnbtConfig;
 import rocks.blackblock.nbt.elements.NbtType;
 import lombok.AllArgsConstructor;
@@ -48,9 +49,56 @@ public class NbtLong extends AbstractNbtNumber<Long> {
      * @param value new {@code long} value to be set.
      */
     public void setValue(long value) {
+        this.checkMutable();
+
         this.value = value;
     }
 
+    @Override
+    public byte byteValue() {
+        return (byte) this.value;
+    }
+
+    @Override
+    public short shortValue() {
+        return (short) this.value;
+    }
+
+    @Override
+    public int intValue() {
+        return (int) this.value;
+    }
+
+    @Override
+    public long longValue() {
+        return this.value;
+    }
+
+    @Override
+    public float floatValue() {
+        return this.value;
+    }
+
+    @Override
+    public double doubleValue() {
+        return this.value;
+    }
+
+    @Override
+    public NbtLong copy() {
+        return new NbtLong(this.getName(), this.value);
+    }
+
+    @Override
+    public NbtLong snapshot() {
+        return this.isFrozen() ? this : this.copy();
+    }
+
+    @Override
+    public int getEncodedSize() {
+        return 8;
+    }
+
     @Override
     public void write(DataOutput output, int depth, NbtTypeRegistry registry) throws IOException {
         output.writeLong(this.value);
@@ -58,11 +106,18 @@ public class NbtLong extends AbstractNbtNumber<Long> {
 
     @Override
     public NbtLong read(DataInput input, int depth, NbtTypeRegistry registry) throws IOException {
+        this.checkMutable();
+
         this.value = input.readLong();
 
         return this;
     }
 
+    @Override
+    public void accept(NbtVisitor visitor) throws IOException {
+        visitor.visitLong(this.value);
+    }
+
     @Override
     public String toSnbt(int depth, NbtTypeRegistry registry, SnbtConfig config) {
         return this.value + "L";
@@ -84,6 +139,8 @@ public class NbtLong extends AbstractNbtNumber<Long> {
 
     @Override
     public NbtLong fromJson(JsonObject json, int depth, NbtTypeRegistry registry) {
+        this.checkMutable();
+
         if (json.has("name")) {
             this.setName(json.getAsJsonPrimitive("name").getAsString());
         } else {
@@ -2,6 +2,7 @@ package rocks.blackblock.nbt.elements.primitive;
 
 import com.google.gson.JsonObject;
 import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
+import rocks.blackblock.nbt.api.visitor.NbtVisitor;
 import rocks.blackblock.nbt.api.snbt.SnbtConfig;
 import rocks.blackblock.nbt.elements.NbtType;
 import lombok.AllArgsConstructor;
@@ -22,6 +23,17 @@ import java.io.IOException;
 public class NbtShort extends AbstractNbtNumber<Short> {
     private short value;
 
+    // Shared frozen tags for the values from SHARED_MIN up to SHARED_MIN + SHARED.length
+    private static final int SHARED_MIN = -128;
+    private static final NbtShort[] SHARED = new NbtShort[1152];
+
+    static {
+        for (int i = 0; i < SHARED.length; i++) {
+            SHARED[i] = new NbtShort(null, (short) (i + SHARED_MIN));
+            SHARED[i].freeze();
+        }
+    }
+
     /**
      * Constructs a short tag with a given value.
      *
@@ -52,6 +64,28 @@ public class NbtShort extends AbstractNbtNumber<Short> {
         this.setValue(value);
     }
 
+    /**
+     * Returns a frozen short tag holding the given value. Small values (-128 to 1023) are shared, so no tag is allocated for them.
+     * The tag has no name; compounds hold it under their own key.
+     *
+     * @since   1.6.0
+     *
+     * @param value the {@code short} value.
+     * @return a frozen short tag.
+     */
+    public static NbtShort of(short value) {
+        int slot = value - SHARED_MIN;
+
+        if (slot >= 0 && slot < SHARED.length) {
+            return SHARED[slot];
+        }
+
+        NbtShort result = new NbtShort(null, value);
+        result.freeze();
+
+        return result;
+    }
+
     @Override
     public byte getTypeId() {
         return NbtType.SHORT.getId();
@@ -68,9 +102,56 @@ public class NbtShort extends AbstractNbtNumber<Short> {
      * @param value new {@code short} value to be set.
      */
     public void setValue(short value) {
+        this.checkMutable();
+
         this.value = value;
     }
 
+    @Override
+    public byte byteValue() {
+        return (byte) this.value;
+    }
+
+    @Override
+    public short shortValue() {
+        return this.value;
+    }
+
+    @Override
+    public int intValue() {
+        return this.value;
+    }
+
+    @Override
+    public long longValue() {
+        return this.value;
+    }
+
+    @Override
+    public float floatValue() {
+        return this.value;
+    }
+
+    @Override
+    public double doubleValue() {
+        return this.value;
+    }
+
+    @Override
+    public NbtShort copy() {
+        return new NbtShort(this.getName(), this.value);
+    }
+
+    @Override
+    public NbtShort snapshot() {
+        return this.isFrozen() ? this : this.copy();
+    }
+
+    @Override
+    public int getEncodedSize() {
+        return 2;
+    }
+
     @Override
     public void write(DataOutput output, int depth, NbtTypeRegistry registry) throws IOException {
         output.writeShort(this.value);
@@ -78,11 +159,18 @@ public class NbtShort extends AbstractNbtNumber<Short> {
 
     @Override
     public NbtShort read(DataInput input, int depth, NbtTypeRegistry registry) throws IOException {
+        this.checkMutable();
+
         this.value = input.readShort();
 
         return this;
     }
 
+    @Override
+    public void accept(NbtVisitor visitor) throws IOException {
+        visitor.visitShort(this.value);
+    }
+
     @Override
     public String toSnbt(int depth, NbtTypeRegistry registry, SnbtConfig config) {
         return this.value + "s";
@@ -104,6 +192,8 @@ public class NbtShort extends AbstractNbtNumber<Short> {
 
     @Override
     public NbtShort fromJson(JsonObject json, int depth, NbtTypeRegistry registry) {
+        this.checkMutable();
+
         if (json.has("name")) {
             this.setName(json.getAsJsonPrimitive("name").getAsString());
         } else {
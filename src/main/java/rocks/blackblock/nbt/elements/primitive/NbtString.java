@@ -4,28 +4,66 @@ import com.google.gson.JsonObject;
 import rocks.blackblock.nbt.api.NbtElement;
 import rocks.blackblock.nbt.api.json.JsonSerializable;
 import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
+import rocks.blackblock.nbt.api.visitor.NbtVisitor;
 import rocks.blackblock.nbt.api.snbt.SnbtConfig;
 import rocks.blackblock.nbt.api.snbt.SnbtSerializable;
 import rocks.blackblock.nbt.elements.NbtType;
+import rocks.blackblock.nbt.utils.IoUtils;
+import rocks.blackblock.nbt.utils.ModifiedUtf8;
 import rocks.blackblock.nbt.utils.StringUtils;
-import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.Objects;
 
 /**
  * The string tag (type ID 8) is used for storing a UTF-8 encoded {@code String}, prefixed by a length value stored as a 32-bit {@code int}.
+ * <p>
+ * Long strings read from a stream (like book pages or JSON text components) are kept as their raw encoded bytes,
+ * and only decoded when {@link #getValue()} is called. Until the value is replaced, writing copies those bytes as-is.
  *
  * @author dewy
  */
 @NoArgsConstructor
-@AllArgsConstructor
 public class NbtString extends NbtElement implements SnbtSerializable, JsonSerializable {
-    private @NonNull String value;
+    /**
+     * Strings of at least this many encoded bytes are kept raw when read, and decoded on first access.
+     */
+    public static final int RAW_THRESHOLD = 128;
+
+    /**
+     * The shared, frozen string tag holding the empty string. It has no name; compounds hold it under their own key.
+     *
+     * @since   1.6.0
+     */
+    public static final NbtString EMPTY = (NbtString) new NbtString("").freeze();
+
+    // The decoded value, or null if it has not been decoded from raw yet
+    private String value;
+
+    // The modified UTF-8 bytes the value was read from (without the length prefix), or null
+    private byte[] raw;
+
+    // The modified UTF-8 length of the value, or -1 if not measured yet
+    private int encodedLength = -1;
+
+    // The hash code of the value, or 0 if not computed yet (like String does). Raw values are hashed without decoding them
+    private int hash;
+
+    /**
+     * Constructs a string tag with a given value.
+     *
+     * @param value the tag's {@code String} value.
+     */
+    public NbtString(@NonNull String value) {
+        this.value = value;
+    }
 
     /**
      * Constructs a string tag with a given name and value.
@@ -45,33 +83,130 @@ public class NbtString extends NbtElement implements SnbtSerializable, JsonSeria
 
     @Override
     public String getValue() {
+        if (this.value == null && this.raw != null) {
+            try {
+                this.value = ModifiedUtf8.decode(this.raw, 0, this.raw.length);
+            } catch (UTFDataFormatException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
         return this.value;
     }
 
+    /**
+     * Returns true if the value has been decoded, or was never stored as raw bytes.
+     *
+     * @since   1.6.0
+     *
+     * @return true if the value is available as a {@code String} without decoding.
+     */
+    public boolean isDecoded() {
+        return this.value != null;
+    }
+
+    /**
+     * Returns the modified UTF-8 bytes this value was read from (without the length prefix),
+     * or {@code null} if it was not read raw or has been replaced since. The array must not be modified.
+     *
+     * @since   1.6.0
+     *
+     * @return the raw encoded bytes, or {@code null}.
+     */
+    public byte[] getRawBytes() {
+        return this.raw;
+    }
+
     /**
      * Sets the {@code String} value of this string tag.
      *
      * @param value new {@code String} value to be set.
      */
     public void setValue(@NonNull String value) {
+        this.checkMutable();
+
         this.value = value;
+        this.raw = null;
+        this.encodedLength = -1;
+        this.hash = 0;
+    }
+
+    @Override
+    public NbtString copy() {
+        NbtString result = new NbtString();
+        result.setName(this.getName());
+        result.value = this.value;
+        result.raw = this.raw;
+        result.encodedLength = this.encodedLength;
+        result.hash = this.hash;
+
+        return result;
+    }
+
+    @Override
+    public NbtString snapshot() {
+        return this.isFrozen() ? this : this.copy();
+    }
+
+    @Override
+    public int getEncodedSize() {
+        if (this.raw != null) {
+            return 2 + this.raw.length;
+        }
+
+        if (this.encodedLength < 0) {
+            this.encodedLength = ModifiedUtf8.getEncodedLength(this.value);
+        }
+
+        return 2 + this.encodedLength;
     }
 
     @Override
     public void write(DataOutput output, int depth, NbtTypeRegistry registry) throws IOException {
+        if (this.raw != null) {
+            output.writeShort(this.raw.length);
+            output.write(this.raw);
+            return;
+        }
+
         output.writeUTF(this.value);
     }
 
     @Override
     public NbtString read(DataInput input, int depth, NbtTypeRegistry registry) throws IOException {
-        this.value = input.readUTF();
+        this.checkMutable();
+
+        int length = input.readUnsignedShort();
+
+        this.encodedLength = -1;
+        this.hash = 0;
+
+        if (length >= RAW_THRESHOLD) {
+            this.raw = new byte[length];
+            this.value = null;
+
+            input.readFully(this.raw);
+        } else {
+            this.raw = null;
+            this.value = IoUtils.readUTF(input, length);
+        }
 
         return this;
     }
 
+    @Override
+    public void accept(NbtVisitor visitor) throws IOException {
+        visitor.visitString(this.getValue());
+    }
+
     @Override
     public String toSnbt(int depth, NbtTypeRegistry registry, SnbtConfig config) {
-        return StringUtils.escapeSnbt(this.value);
+        return StringUtils.escapeSnbt(this.getValue());
+    }
+
+    @Override
+    public void writeSnbt(Appendable output, int depth, NbtTypeRegistry registry, SnbtConfig config) throws IOException {
+        StringUtils.appendSnbtString(output, this.getValue());
     }
 
     @Override
@@ -83,27 +218,29 @@ public class NbtString extends NbtElement implements SnbtSerializable, JsonSeria
             json.addProperty("name", this.getName());
         }
 
-        json.addProperty("value", this.value);
+        json.addProperty("value", this.getValue());
 
         return json;
     }
 
     @Override
     public NbtString fromJson(JsonObject json, int depth, NbtTypeRegistry registry) {
+        this.checkMutable();
+
         if (json.has("name")) {
             this.setName(json.getAsJsonPrimitive("name").getAsString());
         } else {
             this.setName(null);
         }
 
-        this.value = json.getAsJsonPrimitive("value").getAsString();
+        this.setValue(json.getAsJsonPrimitive("value").getAsString());
 
         return this;
     }
 
     @Override
     public String toString() {
-        return this.toSnbt(0, new NbtTypeRegistry(), new SnbtConfig());
+        return this.toSnbt(0, NbtTypeRegistry.getDefault(), new SnbtConfig());
     }
 
     @Override
@@ -113,11 +250,36 @@ public class NbtString extends NbtElement implements SnbtSerializable, JsonSeria
 
         NbtString nbtString = (NbtString) o;
 
-        return Objects.equals(value, nbtString.value);
+        if (this.raw != null && nbtString.raw != null && Arrays.equals(this.raw, nbtString.raw)) {
+            return true;
+        }
+
+        // Different hash codes rule out equal values, without decoding either side
+        if (this.hashCode() != nbtString.hashCode()) {
+            return false;
+        }
+
+        return Objects.equals(this.getValue(), nbtString.getValue());
     }
 
     @Override
     public int hashCode() {
-        return value.hashCode();
+        int result = this.hash;
+
+        if (result == 0) {
+            if (this.value != null) {
+                result = this.value.hashCode();
+            } else {
+                try {
+                    result = ModifiedUtf8.hashCode(this.raw, 0, this.raw.length);
+                } catch (UTFDataFormatException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            this.hash = result;
+        }
+
+        return result;
     }
 }
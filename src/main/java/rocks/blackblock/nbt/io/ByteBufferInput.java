@@ -0,0 +1,340 @@
+package rocks.blackblock.nbt.io;
+
+import rocks.blackblock.nbt.elements.collection.MapStrategy;
+import rocks.blackblock.nbt.utils.StringCache;
+import lombok.NonNull;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link DataInput} reading big-endian primitives straight from a {@link ByteBuffer},
+ * without any {@code java.io} stream in between.
+ * Works with heap buffers, direct buffers and memory-mapped files alike.
+ * <p>
+ * Since every tag reads from a {@link DataInput}, this can be passed to any reading method of this library.
+ * Strings are decoded straight from the buffer through a {@link StringCache}, so repeated keys share one instance.
+ *
+ * @since   1.6.0
+ */
+public class ByteBufferInput implements NbtInput {
+    private final ByteBuffer buffer;
+    private StringCache stringCache;
+    private byte[] scratch;
+    private @NonNull MapStrategy mapStrategy = MapStrategy.COMPACT;
+    private boolean sharingValues;
+
+    /**
+     * Constructs an input reading the remaining bytes of the given buffer.
+     * The buffer's own position is left untouched.
+     *
+     * @param buffer the buffer to read from.
+     */
+    public ByteBufferInput(@NonNull ByteBuffer buffer) {
+        this.buffer = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Constructs an input reading the given array.
+     *
+     * @param bytes the array to read from.
+     */
+    public ByteBufferInput(@NonNull byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Constructs an input reading a range of the given array.
+     *
+     * @param bytes the array to read from.
+     * @param offset the offset of the first byte to read.
+     * @param length the number of bytes that may be read.
+     */
+    public ByteBufferInput(@NonNull byte[] bytes, int offset, int length) {
+        this.buffer = ByteBuffer.wrap(bytes, offset, length).slice().order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Returns the number of bytes read so far.
+     *
+     * @return the number of bytes read so far.
+     */
+    public int position() {
+        return this.buffer.position();
+    }
+
+    /**
+     * Moves to the given position, relative to the start of this input.
+     *
+     * @param position the new position.
+     */
+    public void position(int position) {
+        this.buffer.position(position);
+    }
+
+    /**
+     * Returns the number of bytes that can still be read.
+     *
+     * @return the number of bytes that can still be read.
+     */
+    public int remaining() {
+        return this.buffer.remaining();
+    }
+
+    /**
+     * Returns the underlying buffer. Its position is the position of this input.
+     *
+     * @return the underlying buffer.
+     */
+    public ByteBuffer getBuffer() {
+        return this.buffer;
+    }
+
+    /**
+     * Returns the cache used to decode strings, creating one if needed.
+     *
+     * @return the string cache of this input.
+     */
+    @Override
+    public StringCache getStringCache() {
+        if (this.stringCache == null) {
+            this.stringCache = new StringCache();
+        }
+
+        return this.stringCache;
+    }
+
+    /**
+     * Sets the cache used to decode strings, for example to share one between several inputs on the same thread.
+     *
+     * @param stringCache the string cache to be used.
+     */
+    public void setStringCache(@NonNull StringCache stringCache) {
+        this.stringCache = stringCache;
+    }
+
+    @Override
+    public MapStrategy getMapStrategy() {
+        return this.mapStrategy;
+    }
+
+    @Override
+    public void setMapStrategy(@NonNull MapStrategy mapStrategy) {
+        this.mapStrategy = mapStrategy;
+    }
+
+    @Override
+    public boolean isSharingValues() {
+        return this.sharingValues;
+    }
+
+    @Override
+    public void setSharingValues(boolean sharingValues) {
+        this.sharingValues = sharingValues;
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+        this.readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        if (len > this.buffer.remaining()) {
+            throw new EOFException();
+        }
+
+        this.buffer.get(b, off, len);
+    }
+
+    /**
+     * Reads big-endian {@code int}s into the given array in one go.
+     *
+     * @since   1.6.0
+     *
+     * @param values the array to read into.
+     * @param offset the index of the first value to read.
+     * @param length the number of values to read.
+     * @throws EOFException if there are not enough bytes left.
+     */
+    public void readInts(int[] values, int offset, int length) throws EOFException {
+        if (length < 0) {
+            throw new IllegalArgumentException("Negative length: " + length);
+        }
+
+        // In long arithmetic, as the byte count of a large array does not fit in an int
+        if ((long) length * 4 > this.buffer.remaining()) {
+            throw new EOFException();
+        }
+
+        // Fits in an int now, as it is no more than the bytes remaining
+        int bytes = length * 4;
+
+        this.buffer.asIntBuffer().get(values, offset, length);
+        this.buffer.position(this.buffer.position() + bytes);
+    }
+
+    /**
+     * Reads big-endian {@code long}s into the given array in one go.
+     *
+     * @since   1.6.0
+     *
+     * @param values the array to read into.
+     * @param offset the index of the first value to read.
+     * @param length the number of values to read.
+     * @throws EOFException if there are not enough bytes left.
+     */
+    public void readLongs(long[] values, int offset, int length) throws EOFException {
+        if (length < 0) {
+            throw new IllegalArgumentException("Negative length: " + length);
+        }
+
+        // In long arithmetic, as the byte count of a large array does not fit in an int
+        if ((long) length * 8 > this.buffer.remaining()) {
+            throw new EOFException();
+        }
+
+        // Fits in an int now, as it is no more than the bytes remaining
+        int bytes = length * 8;
+
+        this.buffer.asLongBuffer().get(values, offset, length);
+        this.buffer.position(this.buffer.position() + bytes);
+    }
+
+    @Override
+    public int skipBytes(int n) {
+        int skipped = Math.max(0, Math.min(n, this.buffer.remaining()));
+        this.buffer.position(this.buffer.position() + skipped);
+
+        return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return this.readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        try {
+            return this.buffer.get();
+        } catch (BufferUnderflowException e) {
+            throw new EOFException();
+        }
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return this.readByte() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        try {
+            return this.buffer.getShort();
+        } catch (BufferUnderflowException e) {
+            throw new EOFException();
+        }
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return this.readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return (char) this.readShort();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        try {
+            return this.buffer.getInt();
+        } catch (BufferUnderflowException e) {
+            throw new EOFException();
+        }
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        try {
+            return this.buffer.getLong();
+        } catch (BufferUnderflowException e) {
+            throw new EOFException();
+        }
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(this.readInt());
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(this.readLong());
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        if (!this.buffer.hasRemaining()) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder();
+
+        while (this.buffer.hasRemaining()) {
+            char c = (char) (this.buffer.get() & 0xFF);
+
+            if (c == '\n') {
+                break;
+            }
+
+            if (c == '\r') {
+                if (this.buffer.hasRemaining() && this.buffer.get(this.buffer.position()) == '\n') {
+                    this.buffer.get();
+                }
+
+                break;
+            }
+
+            sb.append(c);
+        }
+
+        return sb.toString();
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return this.readUTF(this.readUnsignedShort());
+    }
+
+    @Override
+    public String readUTF(int length) throws IOException {
+        if (length > this.buffer.remaining()) {
+            throw new EOFException();
+        }
+
+        if (this.buffer.hasArray()) {
+            int position = this.buffer.position();
+            String result = this.getStringCache().get(this.buffer.array(), this.buffer.arrayOffset() + position, length);
+
+            this.buffer.position(position + length);
+
+            return result;
+        }
+
+        // Direct and mapped buffers have no array to decode from
+        if (this.scratch == null || this.scratch.length < length) {
+            this.scratch = new byte[Math.max(length, 256)];
+        }
+
+        this.buffer.get(this.scratch, 0, length);
+
+        return this.getStringCache().get(this.scratch, 0, length);
+    }
+}
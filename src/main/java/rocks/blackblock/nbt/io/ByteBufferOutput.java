@@ -0,0 +1,212 @@
+package rocks.blackblock.nbt.io;
+
+import rocks.blackblock.nbt.utils.ModifiedUtf8;
+import lombok.NonNull;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link DataOutput} writing big-endian primitives straight into a {@link ByteBuffer} (or {@code byte[]} array),
+ * without any {@code java.io} stream in between. The buffer does not grow:
+ * size it with {@link rocks.blackblock.nbt.api.NbtElement#getEncodedSize()} first.
+ *
+ * @since   1.6.0
+ */
+public class ByteBufferOutput implements DataOutput {
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructs an output writing into the remaining space of the given buffer.
+     * The buffer's own position is left untouched.
+     *
+     * @param buffer the buffer to write to.
+     */
+    public ByteBufferOutput(@NonNull ByteBuffer buffer) {
+        this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Constructs an output writing into the given array.
+     *
+     * @param bytes the array to write to.
+     */
+    public ByteBufferOutput(@NonNull byte[] bytes) {
+        this.buffer = ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     *
+     * @return the number of bytes written so far.
+     */
+    public int position() {
+        return this.buffer.position();
+    }
+
+    /**
+     * Returns the number of bytes that can still be written.
+     *
+     * @return the number of bytes that can still be written.
+     */
+    public int remaining() {
+        return this.buffer.remaining();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.writeByte(b);
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        this.write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        this.require(len);
+        this.buffer.put(b, off, len);
+    }
+
+    @Override
+    public void writeBoolean(boolean v) throws IOException {
+        this.writeByte(v ? 1 : 0);
+    }
+
+    @Override
+    public void writeByte(int v) throws IOException {
+        this.require(1);
+        this.buffer.put((byte) v);
+    }
+
+    @Override
+    public void writeShort(int v) throws IOException {
+        this.require(2);
+        this.buffer.putShort((short) v);
+    }
+
+    @Override
+    public void writeChar(int v) throws IOException {
+        this.writeShort(v);
+    }
+
+    @Override
+    public void writeInt(int v) throws IOException {
+        this.require(4);
+        this.buffer.putInt(v);
+    }
+
+    @Override
+    public void writeLong(long v) throws IOException {
+        this.require(8);
+        this.buffer.putLong(v);
+    }
+
+    /**
+     * Writes the given {@code int}s big-endian in one go.
+     *
+     * @since   1.6.0
+     *
+     * @param values the array holding the values.
+     * @param offset the index of the first value to write.
+     * @param length the number of values to write.
+     * @throws IOException if the buffer is too small.
+     */
+    public void writeInts(int[] values, int offset, int length) throws IOException {
+        // In long arithmetic, as the byte count of a large array does not fit in an int
+        this.require(length * 4L);
+        this.buffer.asIntBuffer().put(values, offset, length);
+
+        // Fits in an int now, as it is no more than the bytes remaining
+        this.buffer.position(this.buffer.position() + length * 4);
+    }
+
+    /**
+     * Writes the given {@code long}s big-endian in one go.
+     *
+     * @since   1.6.0
+     *
+     * @param values the array holding the values.
+     * @param offset the index of the first value to write.
+     * @param length the number of values to write.
+     * @throws IOException if the buffer is too small.
+     */
+    public void writeLongs(long[] values, int offset, int length) throws IOException {
+        // In long arithmetic, as the byte count of a large array does not fit in an int
+        this.require(length * 8L);
+        this.buffer.asLongBuffer().put(values, offset, length);
+
+        // Fits in an int now, as it is no more than the bytes remaining
+        this.buffer.position(this.buffer.position() + length * 8);
+    }
+
+    @Override
+    public void writeFloat(float v) throws IOException {
+        this.writeInt(Float.floatToIntBits(v));
+    }
+
+    @Override
+    public void writeDouble(double v) throws IOException {
+        this.writeLong(Double.doubleToLongBits(v));
+    }
+
+    @Override
+    public void writeBytes(String s) throws IOException {
+        this.require(s.length());
+
+        for (int i = 0; i < s.length(); i++) {
+            this.buffer.put((byte) s.charAt(i));
+        }
+    }
+
+    @Override
+    public void writeChars(String s) throws IOException {
+        this.require(s.length() * 2L);
+
+        for (int i = 0; i < s.length(); i++) {
+            this.buffer.putChar(s.charAt(i));
+        }
+    }
+
+    @Override
+    public void writeUTF(String s) throws IOException {
+        int length = ModifiedUtf8.getEncodedLength(s);
+
+        if (length > 65535) {
+            throw new UTFDataFormatException("encoded string too long: " + length + " bytes");
+        }
+
+        this.require(2 + length);
+        this.buffer.putShort((short) length);
+
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+
+            if (c != 0 && c < 0x80) {
+                this.buffer.put((byte) c);
+            } else if (c < 0x800) {
+                this.buffer.put((byte) (0xC0 | (c >> 6)));
+                this.buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else {
+                this.buffer.put((byte) (0xE0 | (c >> 12)));
+                this.buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                this.buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private void require(long length) throws IOException {
+        if (length < 0) {
+            throw new IllegalArgumentException("Negative length: " + length);
+        }
+
+        if (length > this.buffer.remaining()) {
+            throw new IOException("Not enough space left in the buffer.", new BufferOverflowException());
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package rocks.blackblock.nbt.io;
+
+import rocks.blackblock.nbt.elements.collection.MapStrategy;
+import rocks.blackblock.nbt.utils.StringCache;
+import lombok.NonNull;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+/**
+ * Wraps any {@link DataInput} (like a {@link java.io.DataInputStream}) as an {@link NbtInput}, so that strings are decoded
+ * through a {@link StringCache}, reusing one scratch array instead of allocating per string.
+ * Everything else is passed straight through.
+ *
+ * @since   1.6.0
+ */
+public class CachingDataInput implements NbtInput {
+    private final DataInput input;
+    private final StringCache stringCache;
+    private byte[] scratch = new byte[256];
+    private @NonNull MapStrategy mapStrategy = MapStrategy.COMPACT;
+    private boolean sharingValues;
+
+    /**
+     * Constructs a caching input with its own {@link StringCache}.
+     *
+     * @param input the input to read from.
+     */
+    public CachingDataInput(@NonNull DataInput input) {
+        this(input, new StringCache());
+    }
+
+    /**
+     * Constructs a caching input using the given {@link StringCache}.
+     *
+     * @param input the input to read from.
+     * @param stringCache the string cache to be used.
+     */
+    public CachingDataInput(@NonNull DataInput input, @NonNull StringCache stringCache) {
+        this.input = input;
+        this.stringCache = stringCache;
+    }
+
+    /**
+     * Returns an {@link NbtInput} reading from the given input.
+     * Inputs that already are one are returned as-is.
+     *
+     * @param input the input to wrap.
+     * @return the (possibly wrapped) input.
+     */
+    public static NbtInput of(@NonNull DataInput input) {
+        if (input instanceof NbtInput) {
+            return (NbtInput) input;
+        }
+
+        return new CachingDataInput(input);
+    }
+
+    @Override
+    public StringCache getStringCache() {
+        return this.stringCache;
+    }
+
+    @Override
+    public MapStrategy getMapStrategy() {
+        return this.mapStrategy;
+    }
+
+    @Override
+    public void setMapStrategy(@NonNull MapStrategy mapStrategy) {
+        this.mapStrategy = mapStrategy;
+    }
+
+    @Override
+    public boolean isSharingValues() {
+        return this.sharingValues;
+    }
+
+    @Override
+    public void setSharingValues(boolean sharingValues) {
+        this.sharingValues = sharingValues;
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return this.readUTF(this.input.readUnsignedShort());
+    }
+
+    @Override
+    public String readUTF(int length) throws IOException {
+        if (this.scratch.length < length) {
+            this.scratch = new byte[length];
+        }
+
+        this.input.readFully(this.scratch, 0, length);
+
+        return this.stringCache.get(this.scratch, 0, length);
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+        this.input.readFully(b);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        this.input.readFully(b, off, len);
+    }
+
+    @Override
+    public int skipBytes(int n) throws IOException {
+        return this.input.skipBytes(n);
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return this.input.readBoolean();
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return this.input.readByte();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return this.input.readUnsignedByte();
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        return this.input.readShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return this.input.readUnsignedShort();
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return this.input.readChar();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        return this.input.readInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        return this.input.readLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return this.input.readFloat();
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return this.input.readDouble();
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        return this.input.readLine();
+    }
+}
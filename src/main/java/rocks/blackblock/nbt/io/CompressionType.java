@@ -3,6 +3,11 @@ package rocks.blackblock.nbt.io;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Defines the types of compression supported by this library for NBT data.
@@ -13,17 +18,93 @@ public enum CompressionType {
     /**
      * No compression.
      */
-    NONE,
+    NONE(3),
 
     /**
      * GZIP compression ({@code GZIPInputStream} and {@code GZIPOutputStream}).
      */
-    GZIP,
+    GZIP(1),
 
     /**
      * ZLIB compression ({@code InflaterInputStream} and {@code DeflaterOutputStream}).
      */
-    ZLIB;
+    ZLIB(2);
+
+    private final int regionId;
+
+    CompressionType(int regionId) {
+        this.regionId = regionId;
+    }
+
+    /**
+     * Returns the ID used for this compression type in the chunk headers of region (.mca) files.
+     *
+     * @since   1.6.0
+     *
+     * @return the region file compression ID.
+     */
+    public int getRegionId() {
+        return this.regionId;
+    }
+
+    /**
+     * Returns the compression type with the given region (.mca) file compression ID,
+     * or {@code null} if it is not supported (like LZ4 or custom compression).
+     *
+     * @since   1.6.0
+     *
+     * @param regionId the region file compression ID, without the external flag.
+     * @return the compression type, or {@code null}.
+     */
+    public static CompressionType fromRegionId(int regionId) {
+        for (CompressionType type : values()) {
+            if (type.regionId == regionId) {
+                return type;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Wraps a stream so that data read from it is decompressed using this compression type.
+     *
+     * @since   1.6.0
+     *
+     * @param in the stream containing compressed data.
+     * @return a stream returning the decompressed data.
+     * @throws IOException if any I/O error occurs.
+     */
+    public InputStream decompress(InputStream in) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPInputStream(in);
+            case ZLIB:
+                return new InflaterInputStream(in);
+            default:
+                return in;
+        }
+    }
+
+    /**
+     * Wraps a stream so that data written to it is compressed using this compression type.
+     *
+     * @since   1.6.0
+     *
+     * @param out the stream to write compressed data to.
+     * @return a stream compressing the data written to it.
+     * @throws IOException if any I/O error occurs.
+     */
+    public OutputStream compress(OutputStream out) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPOutputStream(out);
+            case ZLIB:
+                return new DeflaterOutputStream(out);
+            default:
+                return out;
+        }
+    }
 
     public static CompressionType getCompression(InputStream in) throws IOException {
         if (!in.markSupported()) {
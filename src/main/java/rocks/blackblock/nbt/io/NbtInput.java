@@ -0,0 +1,61 @@
+package rocks.blackblock.nbt.io;
+
+import rocks.blackblock.nbt.elements.collection.MapStrategy;
+import rocks.blackblock.nbt.utils.StringCache;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+/**
+ * A {@link DataInput} that also carries the settings of the read it is used for.
+ * Tags read from one pick those settings up; tags read from any other {@link DataInput} use the defaults.
+ *
+ * @since   1.6.0
+ */
+public interface NbtInput extends DataInput {
+
+    /**
+     * Reads a modified UTF-8 string whose 2-byte length prefix has already been read.
+     *
+     * @param length the encoded length of the string.
+     * @return the decoded string.
+     * @throws IOException if any I/O error occurs.
+     */
+    String readUTF(int length) throws IOException;
+
+    /**
+     * Returns the cache used to decode strings.
+     *
+     * @return the string cache of this input.
+     */
+    StringCache getStringCache();
+
+    /**
+     * Returns the kind of map compound tags read from this input are backed by.
+     *
+     * @return the map strategy.
+     */
+    MapStrategy getMapStrategy();
+
+    /**
+     * Sets the kind of map compound tags read from this input are backed by.
+     *
+     * @param mapStrategy the map strategy to be used.
+     */
+    void setMapStrategy(MapStrategy mapStrategy);
+
+    /**
+     * Returns true if byte, short, int and empty string entries of compounds read from this input
+     * are to be frozen, sharing one tag per value where possible (see {@link rocks.blackblock.nbt.elements.primitive.NbtInt#of(int)}).
+     *
+     * @return true if values are shared.
+     */
+    boolean isSharingValues();
+
+    /**
+     * Sets whether byte, short, int and empty string entries of compounds read from this input are to be frozen and shared.
+     *
+     * @param sharingValues true to share values.
+     */
+    void setSharingValues(boolean sharingValues);
+}
@@ -0,0 +1,140 @@
+package rocks.blackblock.nbt.io;
+
+import lombok.NonNull;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A set of paths into an NBT structure, used to decode only those parts of it.
+ * Everything outside the paths is skipped by length and never allocated.
+ * <p>
+ * Path segments are compound keys separated by dots. A {@code []} suffix selects every element of a list:
+ * <ul>
+ *     <li>{@code DataVersion} reads the root entry "DataVersion" (and everything below it)</li>
+ *     <li>{@code Pos} reads the whole "Pos" list</li>
+ *     <li>{@code Inventory[].id} reads the "Inventory" list, keeping only the "id" entry of every compound in it</li>
+ *     <li>{@code Level.Sections[].Y} reads the "Y" entry of every section compound</li>
+ * </ul>
+ * Keys containing dots or ending with {@code []} cannot be expressed.
+ *
+ * @since   1.6.0
+ */
+public class NbtProjection {
+    private final Node root = new Node();
+
+    /**
+     * Creates a projection from the given paths.
+     *
+     * @param paths the paths to include.
+     * @return the new projection.
+     */
+    public static NbtProjection of(@NonNull String... paths) {
+        NbtProjection result = new NbtProjection();
+
+        for (String path : paths) {
+            result.add(path);
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates a projection from the given paths.
+     *
+     * @param paths the paths to include.
+     * @return the new projection.
+     */
+    public static NbtProjection of(@NonNull Collection<String> paths) {
+        return of(paths.toArray(new String[0]));
+    }
+
+    /**
+     * Adds a path to this projection.
+     *
+     * @param path the path to include.
+     * @return this projection.
+     */
+    public NbtProjection add(@NonNull String path) {
+        if (path.isEmpty()) {
+            throw new IllegalArgumentException("Projection paths can not be empty.");
+        }
+
+        Node node = this.root;
+
+        for (String segment : path.split("\\.", -1)) {
+            int elements = 0;
+
+            while (segment.endsWith("[]")) {
+                segment = segment.substring(0, segment.length() - 2);
+                elements++;
+            }
+
+            if (segment.isEmpty()) {
+                throw new IllegalArgumentException("Projection path \"" + path + "\" contains an empty key.");
+            }
+
+            node = node.child(segment);
+
+            for (int i = 0; i < elements; i++) {
+                node = node.elements();
+            }
+        }
+
+        node.whole = true;
+
+        return this;
+    }
+
+    /**
+     * The root node, describing which entries of the root compound to read.
+     */
+    Node getRoot() {
+        return this.root;
+    }
+
+    /**
+     * A single step in the projection tree.
+     */
+    static class Node {
+        /**
+         * If set, the value at this node is read completely.
+         */
+        boolean whole;
+
+        /**
+         * The nodes for compound entries, by key.
+         */
+        Map<String, Node> children;
+
+        /**
+         * The node for the elements of a list.
+         */
+        Node elements;
+
+        Node child(String key) {
+            if (this.children == null) {
+                this.children = new HashMap<>();
+            }
+
+            return this.children.computeIfAbsent(key, k -> new Node());
+        }
+
+        Node elements() {
+            if (this.elements == null) {
+                this.elements = new Node();
+            }
+
+            return this.elements;
+        }
+
+        Node getChild(String key) {
+            if (this.children == null) {
+                return null;
+            }
+
+            return this.children.get(key);
+        }
+    }
+}
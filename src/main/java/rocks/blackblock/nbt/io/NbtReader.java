@@ -2,22 +2,39 @@ package rocks.blackblock.nbt.io;
 
 import rocks.blackblock.nbt.api.NbtElement;
 import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
+import rocks.blackblock.nbt.api.visitor.NbtVisitor;
 import rocks.blackblock.nbt.elements.NbtType;
+import rocks.blackblock.nbt.elements.collection.LazyNbtCompound;
+import rocks.blackblock.nbt.elements.collection.MapStrategy;
 import rocks.blackblock.nbt.elements.collection.NbtCompound;
-import lombok.AllArgsConstructor;
+import rocks.blackblock.nbt.elements.collection.NbtList;
+import rocks.blackblock.nbt.utils.IoUtils;
 import lombok.NonNull;
 
 import java.io.DataInput;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Used to read root {@link NbtCompound}s using a certain {@link NbtTypeRegistry}.
  *
  * @author dewy
  */
-@AllArgsConstructor
 public class NbtReader {
     private @NonNull NbtTypeRegistry typeRegistry;
+    private @NonNull MapStrategy mapStrategy = MapStrategy.COMPACT;
+    private boolean sharingValues;
+
+    /**
+     * Constructs a reader using the given {@link NbtTypeRegistry}.
+     *
+     * @param typeRegistry the tag type registry to be used.
+     */
+    public NbtReader(@NonNull NbtTypeRegistry typeRegistry) {
+        this.typeRegistry = typeRegistry;
+    }
 
     /**
      * Read a non-root NBT element from a stream.
@@ -32,6 +49,7 @@ public class NbtReader {
      * @return The {@link NbtElement} read from the stream.
      */
     public NbtElement elementFromStream(@NonNull DataInput input) throws IOException {
+        input = this.prepare(input);
 
         byte type = input.readByte();
 
@@ -54,6 +72,8 @@ public class NbtReader {
      * @throws IOException if any I/O error occurs.
      */
     public NbtCompound rootFromStream(@NonNull DataInput input) throws IOException {
+        input = this.prepare(input);
+
         if (input.readByte() != NbtType.COMPOUND.getId()) {
             throw new IOException("Root tag in NBT structure must be a compound tag.");
         }
@@ -66,6 +86,289 @@ public class NbtReader {
         return result;
     }
 
+    /**
+     * Reads a root {@link NbtCompound} from a {@code byte[]} array without decoding it.
+     * The result is a {@link LazyNbtCompound}, which decodes children only when they are accessed
+     * and copies untouched children verbatim when written. The array must not be modified afterwards.
+     *
+     * @since   1.6.0
+     *
+     * @param bytes the array to read from, containing a named root compound.
+     * @return the lazy root {@link NbtCompound}.
+     * @throws IOException if any I/O error occurs.
+     */
+    public NbtCompound lazyRootFromByteArray(@NonNull byte[] bytes) throws IOException {
+        ByteBufferInput input = new ByteBufferInput(bytes);
+
+        if (input.readByte() != NbtType.COMPOUND.getId()) {
+            throw new IOException("Root tag in NBT structure must be a compound tag.");
+        }
+
+        String name = input.readUTF();
+        NbtCompound result = new LazyNbtCompound(bytes, input.position(), bytes.length, this.typeRegistry, 0);
+        result.setName(name);
+
+        return result;
+    }
+
+    /**
+     * Reads a sparse root {@link NbtCompound} from a {@link DataInput} stream, containing only the paths in the given {@link NbtProjection}.
+     * Everything else is skipped by length without being decoded.
+     *
+     * @since   1.6.0
+     *
+     * @param input the stream to read from.
+     * @param projection the paths to read.
+     * @return the sparse root {@link NbtCompound} read from the stream.
+     * @throws IOException if any I/O error occurs.
+     */
+    public NbtCompound rootFromStream(@NonNull DataInput input, @NonNull NbtProjection projection) throws IOException {
+        input = this.prepare(input);
+
+        if (input.readByte() != NbtType.COMPOUND.getId()) {
+            throw new IOException("Root tag in NBT structure must be a compound tag.");
+        }
+
+        String name = input.readUTF();
+        NbtCompound result = this.readProjectedCompound(input, projection.getRoot(), 0);
+        result.setName(name);
+
+        return result;
+    }
+
+    /**
+     * Read the payload of a compound, keeping only the entries the projection node selects.
+     */
+    private NbtCompound readProjectedCompound(DataInput input, NbtProjection.Node node, int depth) throws IOException {
+        if (depth > 512) {
+            throw new IOException("NBT structure too complex (depth > 512).");
+        }
+
+        Map<String, NbtElement> tags = this.mapStrategy.create(0);
+
+        byte nextTypeId;
+        while ((nextTypeId = input.readByte()) != 0) {
+            String key = input.readUTF();
+            NbtElement nextTag = this.readProjected(input, nextTypeId, node.getChild(key), depth + 1);
+
+            if (nextTag != null) {
+                nextTag.setName(key);
+                tags.put(key, nextTag);
+            }
+        }
+
+        return new NbtCompound(null, tags);
+    }
+
+    /**
+     * Read the payload of a list, applying the projection node to every element.
+     */
+    private NbtList<NbtElement> readProjectedList(DataInput input, NbtProjection.Node node, int depth) throws IOException {
+        if (depth > 512) {
+            throw new IOException("NBT structure too complex (depth > 512).");
+        }
+
+        byte listType = input.readByte();
+        int length = IoUtils.readLength(input);
+
+        boolean matches = node.whole
+                || (listType == NbtType.COMPOUND.getId() && node.children != null)
+                || (listType == NbtType.LIST.getId() && node.elements != null);
+
+        if (!matches) {
+            // The node selects nothing inside elements of this type
+            IoUtils.skipListElements(input, listType, length, depth, this.typeRegistry);
+            return new NbtList<>();
+        }
+
+        List<NbtElement> tags = new ArrayList<>(IoUtils.initialCapacity(length));
+
+        for (int i = 0; i < length; i++) {
+            tags.add(this.readProjected(input, listType, node, depth + 1));
+        }
+
+        return new NbtList<>(null, tags);
+    }
+
+    /**
+     * Read the payload of a single tag if the projection node selects it, or skip it and return null.
+     */
+    private NbtElement readProjected(DataInput input, byte type, NbtProjection.Node node, int depth) throws IOException {
+        if (node != null && node.whole) {
+            NbtElement result = this.typeRegistry.createInstanceFromId(type);
+
+            if (result == null) {
+                throw new IOException("Tag type with ID " + type + " not present in tag type registry.");
+            }
+
+            return result.read(input, depth, this.typeRegistry);
+        }
+
+        if (node != null) {
+            if (type == NbtType.COMPOUND.getId() && node.children != null) {
+                return this.readProjectedCompound(input, node, depth);
+            }
+
+            if (type == NbtType.LIST.getId() && node.elements != null) {
+                return this.readProjectedList(input, node.elements, depth);
+            }
+        }
+
+        IoUtils.skipPayload(input, type, depth, this.typeRegistry);
+
+        return null;
+    }
+
+    /**
+     * Drives a {@link NbtVisitor} straight from a {@link DataInput} stream containing a named root tag, without building the tree.
+     * Subtrees the visitor skips are skipped by length and never decoded.
+     *
+     * @since   1.6.0
+     *
+     * @param input the stream to read from.
+     * @param visitor the visitor to report to.
+     * @throws IOException if any I/O error occurs.
+     */
+    public void accept(@NonNull DataInput input, @NonNull NbtVisitor visitor) throws IOException {
+        input = CachingDataInput.of(input);
+
+        byte type = input.readByte();
+
+        if (type == 0) {
+            return;
+        }
+
+        String name = input.readUTF();
+
+        if (visitor.visitKey(name, type) == NbtVisitor.Result.SKIP) {
+            IoUtils.skipPayload(input, type, 0, this.typeRegistry);
+        } else {
+            this.acceptPayload(input, type, 0, visitor);
+        }
+    }
+
+    /**
+     * Reports the payload of a tag of the given type to a visitor.
+     */
+    private void acceptPayload(DataInput input, byte type, int depth, NbtVisitor visitor) throws IOException {
+        switch (type) {
+            case 1:
+                visitor.visitByte(input.readByte());
+                break;
+            case 2:
+                visitor.visitShort(input.readShort());
+                break;
+            case 3:
+                visitor.visitInt(input.readInt());
+                break;
+            case 4:
+                visitor.visitLong(input.readLong());
+                break;
+            case 5:
+                visitor.visitFloat(input.readFloat());
+                break;
+            case 6:
+                visitor.visitDouble(input.readDouble());
+                break;
+            case 7:
+                byte[] bytes = new byte[IoUtils.readLength(input)];
+                input.readFully(bytes);
+                visitor.visitByteArray(bytes);
+                break;
+            case 8:
+                visitor.visitString(input.readUTF());
+                break;
+            case 9:
+                if (depth > 512) {
+                    throw new IOException("NBT structure too complex (depth > 512).");
+                }
+
+                byte listType = input.readByte();
+                int length = IoUtils.readLength(input);
+
+                if (visitor.visitListStart(listType, length) == NbtVisitor.Result.SKIP) {
+                    IoUtils.skipListElements(input, listType, length, depth, this.typeRegistry);
+                    break;
+                }
+
+                for (int i = 0; i < length; i++) {
+                    this.acceptPayload(input, listType, depth + 1, visitor);
+                }
+
+                visitor.visitListEnd();
+                break;
+            case 10:
+                if (depth > 512) {
+                    throw new IOException("NBT structure too complex (depth > 512).");
+                }
+
+                if (visitor.visitCompoundStart() == NbtVisitor.Result.SKIP) {
+                    IoUtils.skipPayload(input, type, depth, this.typeRegistry);
+                    break;
+                }
+
+                byte nextTypeId;
+
+                while ((nextTypeId = input.readByte()) != 0) {
+                    String key = input.readUTF();
+
+                    if (visitor.visitKey(key, nextTypeId) == NbtVisitor.Result.SKIP) {
+                        IoUtils.skipPayload(input, nextTypeId, depth + 1, this.typeRegistry);
+                    } else {
+                        this.acceptPayload(input, nextTypeId, depth + 1, visitor);
+                    }
+                }
+
+                visitor.visitCompoundEnd();
+                break;
+            case 11:
+                int[] ints = new int[IoUtils.readLength(input)];
+                IoUtils.readInts(input, ints, ints.length);
+
+                visitor.visitIntArray(ints);
+                break;
+            case 12:
+                long[] longs = new long[IoUtils.readLength(input)];
+                IoUtils.readLongs(input, longs, longs.length);
+
+                visitor.visitLongArray(longs);
+                break;
+            default:
+                NbtElement element = this.typeRegistry.createInstanceFromId(type);
+
+                if (element == null) {
+                    throw new IOException("Tag type with ID " + type + " not present in tag type registry.");
+                }
+
+                element.read(input, depth, this.typeRegistry);
+                visitor.visitElement(element);
+        }
+    }
+
+    /**
+     * Creates a pull-based {@link NbtStreamReader} over a {@link DataInput} stream, using this reader's registry.
+     * Unlike {@link #rootFromStream(DataInput)}, this never builds the tree.
+     *
+     * @since   1.6.0
+     *
+     * @param input the stream to read from.
+     * @return a new {@link NbtStreamReader} positioned before the root tag.
+     */
+    public NbtStreamReader createStreamReader(@NonNull DataInput input) {
+        return new NbtStreamReader(input, this.typeRegistry);
+    }
+
+    /**
+     * Wraps the input as an {@link NbtInput} carrying this reader's settings.
+     */
+    private NbtInput prepare(DataInput input) {
+        NbtInput result = CachingDataInput.of(input);
+        result.setMapStrategy(this.mapStrategy);
+        result.setSharingValues(this.sharingValues);
+
+        return result;
+    }
+
     /**
      * Returns the {@link NbtTypeRegistry} currently in use by this reader.
      *
@@ -83,4 +386,53 @@ public class NbtReader {
     public void setTypeRegistry(@NonNull NbtTypeRegistry typeRegistry) {
         this.typeRegistry = typeRegistry;
     }
+
+    /**
+     * Returns the kind of map the compound tags read by this reader are backed by.
+     *
+     * @since   1.6.0
+     *
+     * @return the {@link MapStrategy} currently in use by this reader.
+     */
+    public MapStrategy getMapStrategy() {
+        return this.mapStrategy;
+    }
+
+    /**
+     * Sets the kind of map the compound tags read by this reader are backed by.
+     * {@link MapStrategy#UNORDERED} is the cheapest when the order of keys does not matter.
+     *
+     * @since   1.6.0
+     *
+     * @param mapStrategy the new {@link MapStrategy} to be set.
+     */
+    public void setMapStrategy(@NonNull MapStrategy mapStrategy) {
+        this.mapStrategy = mapStrategy;
+    }
+
+    /**
+     * Returns true if this reader freezes the byte, short, int and empty string entries of the compounds it reads,
+     * sharing one tag per value where possible.
+     *
+     * @since   1.6.0
+     *
+     * @return true if values are shared.
+     */
+    public boolean isSharingValues() {
+        return this.sharingValues;
+    }
+
+    /**
+     * Sets whether this reader freezes the byte, short, int and empty string entries of the compounds it reads.
+     * Small values then share one tag instance each, which saves a lot of memory on large trees, like loaded chunks.
+     * The shared tags have no name and can not be changed; replace them through {@link NbtCompound#put(String, NbtElement)} instead.
+     * Lazy compounds do not share values.
+     *
+     * @since   1.6.0
+     *
+     * @param sharingValues true to share values.
+     */
+    public void setSharingValues(boolean sharingValues) {
+        this.sharingValues = sharingValues;
+    }
 }
@@ -0,0 +1,381 @@
+package rocks.blackblock.nbt.io;
+
+import rocks.blackblock.nbt.api.NbtElement;
+import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
+import rocks.blackblock.nbt.elements.NbtType;
+import rocks.blackblock.nbt.utils.IoUtils;
+import lombok.NonNull;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A pull-based cursor over a binary NBT structure, which never builds a tree.
+ * Only the current container path is kept in memory, so arbitrarily large structures can be scanned.
+ * <p>
+ * Typical usage:
+ * <pre>{@code
+ * NbtStreamReader reader = new NbtStreamReader(input);
+ *
+ * reader.next();          // positioned on the root compound
+ * reader.enterCompound();
+ *
+ * while (reader.next()) {
+ *     if (reader.tagType() == NbtType.INT.getId() && reader.name().equals("DataVersion")) {
+ *         int version = reader.intValue();
+ *     }
+ *     // values that are not consumed are skipped automatically
+ * }
+ * }</pre>
+ *
+ * @since   1.6.0
+ */
+public class NbtStreamReader {
+    private static final byte COMPOUND = NbtType.COMPOUND.getId();
+    private static final byte LIST = NbtType.LIST.getId();
+
+    private final @NonNull NbtInput input;
+    private final @NonNull NbtTypeRegistry registry;
+
+    // The stack of containers we are currently in
+    private byte[] frameTypes = new byte[8];
+    private byte[] frameListTypes = new byte[8];
+    private int[] frameRemaining = new int[8];
+    private int depth = 0;
+
+    private boolean started = false;
+    private byte tagType = 0;
+    private String name = null;
+    private boolean pending = false;
+
+    /**
+     * Constructs a stream reader using the default {@link NbtTypeRegistry}.
+     *
+     * @param input the stream to read from, positioned at the root tag.
+     */
+    public NbtStreamReader(@NonNull DataInput input) {
+        this(input, NbtTypeRegistry.getDefault());
+    }
+
+    /**
+     * Constructs a stream reader using a given {@link NbtTypeRegistry}, which is used for custom tag types.
+     *
+     * @param input the stream to read from, positioned at the root tag.
+     * @param registry the tag type registry to be used.
+     */
+    public NbtStreamReader(@NonNull DataInput input, @NonNull NbtTypeRegistry registry) {
+        this.input = CachingDataInput.of(input);
+        this.registry = registry;
+    }
+
+    /**
+     * Constructs a stream reader over a {@link ByteBuffer} containing uncompressed NBT data, using the default {@link NbtTypeRegistry}.
+     *
+     * @param buffer the buffer to read from, positioned at the root tag. Its own position is left untouched.
+     */
+    public NbtStreamReader(@NonNull ByteBuffer buffer) {
+        this(buffer, NbtTypeRegistry.getDefault());
+    }
+
+    /**
+     * Constructs a stream reader over a {@link ByteBuffer} containing uncompressed NBT data, using a given {@link NbtTypeRegistry}.
+     *
+     * @param buffer the buffer to read from, positioned at the root tag. Its own position is left untouched.
+     * @param registry the tag type registry to be used.
+     */
+    public NbtStreamReader(@NonNull ByteBuffer buffer, @NonNull NbtTypeRegistry registry) {
+        this(new ByteBufferInput(buffer), registry);
+    }
+
+    /**
+     * Advances to the next tag in the current container.
+     * If the value of the current tag was not consumed, it is skipped first.
+     * When the end of the current container is reached, the container is left and {@code false} is returned.
+     * At the top level, the first call moves to the (named) root tag and any further call returns {@code false}.
+     *
+     * @return true if the reader is now positioned on a tag, false if the current container has ended.
+     * @throws IOException if any I/O error occurs.
+     */
+    public boolean next() throws IOException {
+        if (this.pending) {
+            this.skipValue();
+        }
+
+        this.name = null;
+
+        if (this.depth == 0) {
+            if (this.started) {
+                this.tagType = 0;
+                return false;
+            }
+
+            this.started = true;
+            this.tagType = this.input.readByte();
+
+            if (this.tagType == 0) {
+                return false;
+            }
+
+            this.name = this.input.readUTF();
+            this.pending = true;
+
+            return true;
+        }
+
+        int frame = this.depth - 1;
+
+        if (this.frameTypes[frame] == COMPOUND) {
+            byte nextTypeId = this.input.readByte();
+
+            if (nextTypeId == 0) {
+                this.tagType = 0;
+                this.depth--;
+                return false;
+            }
+
+            this.tagType = nextTypeId;
+            this.name = this.input.readUTF();
+        } else {
+            if (this.frameRemaining[frame] == 0) {
+                this.tagType = 0;
+                this.depth--;
+                return false;
+            }
+
+            this.frameRemaining[frame]--;
+            this.tagType = this.frameListTypes[frame];
+        }
+
+        this.pending = true;
+
+        return true;
+    }
+
+    /**
+     * Returns the type ID of the tag the reader is positioned on, or 0 if it is not positioned on a tag.
+     *
+     * @return the type ID of the current tag.
+     */
+    public byte tagType() {
+        return this.tagType;
+    }
+
+    /**
+     * Returns the name of the tag the reader is positioned on, or {@code null} for list elements.
+     *
+     * @return the name of the current tag.
+     */
+    public String name() {
+        return this.name;
+    }
+
+    /**
+     * Returns the number of containers the reader has entered.
+     *
+     * @return the current depth.
+     */
+    public int depth() {
+        return this.depth;
+    }
+
+    /**
+     * Returns the element type of the list the reader is currently in, or 0 if it is not directly inside a list.
+     *
+     * @return the element type ID of the current list.
+     */
+    public byte listType() {
+        if (this.depth == 0 || this.frameTypes[this.depth - 1] != LIST) {
+            return 0;
+        }
+
+        return this.frameListTypes[this.depth - 1];
+    }
+
+    /**
+     * Returns the number of list elements that have not been visited yet,
+     * or -1 if the reader is not directly inside a list.
+     *
+     * @return the number of remaining elements in the current list.
+     */
+    public int remaining() {
+        if (this.depth == 0 || this.frameTypes[this.depth - 1] != LIST) {
+            return -1;
+        }
+
+        return this.frameRemaining[this.depth - 1];
+    }
+
+    public byte byteValue() throws IOException {
+        this.consume(NbtType.BYTE);
+        return this.input.readByte();
+    }
+
+    public short shortValue() throws IOException {
+        this.consume(NbtType.SHORT);
+        return this.input.readShort();
+    }
+
+    public int intValue() throws IOException {
+        this.consume(NbtType.INT);
+        return this.input.readInt();
+    }
+
+    public long longValue() throws IOException {
+        this.consume(NbtType.LONG);
+        return this.input.readLong();
+    }
+
+    public float floatValue() throws IOException {
+        this.consume(NbtType.FLOAT);
+        return this.input.readFloat();
+    }
+
+    public double doubleValue() throws IOException {
+        this.consume(NbtType.DOUBLE);
+        return this.input.readDouble();
+    }
+
+    public String stringValue() throws IOException {
+        this.consume(NbtType.STRING);
+        return this.input.readUTF();
+    }
+
+    public byte[] byteArrayValue() throws IOException {
+        this.consume(NbtType.BYTE_ARRAY);
+
+        byte[] result = new byte[IoUtils.readLength(this.input)];
+        this.input.readFully(result);
+
+        return result;
+    }
+
+    public int[] intArrayValue() throws IOException {
+        this.consume(NbtType.INT_ARRAY);
+
+        int[] result = new int[IoUtils.readLength(this.input)];
+        IoUtils.readInts(this.input, result, result.length);
+
+        return result;
+    }
+
+    public long[] longArrayValue() throws IOException {
+        this.consume(NbtType.LONG_ARRAY);
+
+        long[] result = new long[IoUtils.readLength(this.input)];
+        IoUtils.readLongs(this.input, result, result.length);
+
+        return result;
+    }
+
+    /**
+     * Reads the value of the current tag as a regular {@link NbtElement}, using the registry.
+     * This is the way to read custom tag types, or to materialize just one subtree.
+     *
+     * @return the current tag, fully read.
+     * @throws IOException if any I/O error occurs.
+     */
+    public NbtElement elementValue() throws IOException {
+        byte type = this.tagType;
+        this.consume(null);
+
+        NbtElement result = this.registry.createInstanceFromId(type);
+
+        if (result == null) {
+            throw new IOException("Tag type with ID " + type + " not present in tag type registry.");
+        }
+
+        result.setName(this.name);
+        result.read(this.input, this.depth, this.registry);
+
+        return result;
+    }
+
+    /**
+     * Skips the value of the current tag without decoding it.
+     *
+     * @throws IOException if any I/O error occurs.
+     */
+    public void skipValue() throws IOException {
+        byte type = this.tagType;
+        this.consume(null);
+
+        IoUtils.skipPayload(this.input, type, this.depth, this.registry);
+    }
+
+    /**
+     * Enters the compound tag the reader is positioned on. Use {@link #next()} to iterate over its entries.
+     *
+     * @throws IOException if any I/O error occurs.
+     */
+    public void enterCompound() throws IOException {
+        this.consume(NbtType.COMPOUND);
+        this.push(COMPOUND, (byte) 0, 0);
+    }
+
+    /**
+     * Enters the list tag the reader is positioned on. Use {@link #next()} to iterate over its elements.
+     *
+     * @return the number of elements in the list.
+     * @throws IOException if any I/O error occurs.
+     */
+    public int enterList() throws IOException {
+        this.consume(NbtType.LIST);
+
+        byte listType = this.input.readByte();
+        int length = IoUtils.readLength(this.input);
+
+        this.push(LIST, listType, length);
+
+        return length;
+    }
+
+    /**
+     * Skips the rest of the current container and leaves it.
+     *
+     * @throws IOException if any I/O error occurs.
+     */
+    public void exit() throws IOException {
+        if (this.depth == 0) {
+            throw new IllegalStateException("Not inside a compound or list tag.");
+        }
+
+        int target = this.depth - 1;
+
+        while (this.depth > target) {
+            this.next();
+        }
+    }
+
+    private void consume(NbtType expected) {
+        if (!this.pending) {
+            throw new IllegalStateException("Not positioned on a tag value.");
+        }
+
+        if (expected != null && expected.getId() != this.tagType) {
+            throw new IllegalStateException("Current tag has type ID " + this.tagType + ", not " + expected.getId() + " (" + expected + ").");
+        }
+
+        this.pending = false;
+    }
+
+    private void push(byte type, byte listType, int remaining) throws IOException {
+        if (this.depth >= 512) {
+            throw new IOException("NBT structure too complex (depth > 512).");
+        }
+
+        if (this.depth == this.frameTypes.length) {
+            int size = this.depth * 2;
+
+            this.frameTypes = Arrays.copyOf(this.frameTypes, size);
+            this.frameListTypes = Arrays.copyOf(this.frameListTypes, size);
+            this.frameRemaining = Arrays.copyOf(this.frameRemaining, size);
+        }
+
+        this.frameTypes[this.depth] = type;
+        this.frameListTypes[this.depth] = listType;
+        this.frameRemaining[this.depth] = remaining;
+        this.depth++;
+    }
+}
@@ -3,11 +3,14 @@ package rocks.blackblock.nbt.io;
 import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
 import rocks.blackblock.nbt.elements.NbtType;
 import rocks.blackblock.nbt.elements.collection.NbtCompound;
+import rocks.blackblock.nbt.utils.ModifiedUtf8;
 import lombok.AllArgsConstructor;
 import lombok.NonNull;
 
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 
 /**
  * Used to write root {@link NbtCompound}s using a certain {@link NbtTypeRegistry}.
@@ -31,12 +34,69 @@ public class NbtWriter {
         if (compound.getName() == null) {
             output.writeUTF("");
         } else {
-            output.writeUTF(compound.getName());
+            ModifiedUtf8.writeKey(output, compound.getName());
         }
 
         compound.write(output, 0, this.typeRegistry);
     }
 
+    /**
+     * Returns the exact number of bytes {@link #toStream(NbtCompound, DataOutput)} would write for the given root {@link NbtCompound}.
+     *
+     * @since   1.6.0
+     *
+     * @param compound the NBT structure to measure, contained within a {@link NbtCompound}.
+     * @return the encoded size of the structure, in bytes.
+     */
+    public int getEncodedSize(@NonNull NbtCompound compound) {
+        String name = compound.getName() == null ? "" : compound.getName();
+
+        return 3 + ModifiedUtf8.getEncodedLength(name) + compound.getEncodedSize();
+    }
+
+    /**
+     * Writes the given root {@link NbtCompound} into a single {@code byte[]} array of exactly the right size.
+     *
+     * @since   1.6.0
+     *
+     * @param compound the NBT structure to write, contained within a {@link NbtCompound}.
+     * @return the resulting {@code byte[]} array.
+     * @throws IOException if any I/O error occurs.
+     */
+    public byte[] toByteArray(@NonNull NbtCompound compound) throws IOException {
+        byte[] result = new byte[this.getEncodedSize(compound)];
+
+        this.toStream(compound, new ByteBufferOutput(result));
+
+        return result;
+    }
+
+    /**
+     * Writes the given root {@link NbtCompound} into a {@link ByteBuffer}, for example one taken from a pool.
+     * Writing starts at the buffer's position, which is advanced past the written bytes.
+     * If the buffer does not have enough space left, nothing is written.
+     *
+     * @since   1.6.0
+     *
+     * @param compound the NBT structure to write, contained within a {@link NbtCompound}.
+     * @param buffer the buffer to write to.
+     * @return the number of bytes written.
+     * @throws BufferOverflowException if the structure does not fit in the remaining space of the buffer.
+     * @throws IOException if any I/O error occurs.
+     */
+    public int toBuffer(@NonNull NbtCompound compound, @NonNull ByteBuffer buffer) throws IOException {
+        int size = this.getEncodedSize(compound);
+
+        if (size > buffer.remaining()) {
+            throw new BufferOverflowException();
+        }
+
+        this.toStream(compound, new ByteBufferOutput(buffer));
+        buffer.position(buffer.position() + size);
+
+        return size;
+    }
+
     /**
      * Returns the {@link NbtTypeRegistry} currently in use by this writer.
      *
@@ -0,0 +1,112 @@
+package rocks.blackblock.nbt.io;
+
+import rocks.blackblock.nbt.api.NbtElement;
+import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
+import rocks.blackblock.nbt.api.visitor.NbtVisitor;
+import rocks.blackblock.nbt.utils.IoUtils;
+import rocks.blackblock.nbt.utils.ModifiedUtf8;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A {@link NbtVisitor} that writes everything it is told about straight to a {@link DataOutput} stream in the binary NBT format.
+ * Put a filtering visitor in front of it to transcode or strip NBT structures in a single pass.
+ *
+ * @since   1.6.0
+ */
+@AllArgsConstructor
+public class NbtWritingVisitor implements NbtVisitor {
+    private final @NonNull DataOutput output;
+    private final @NonNull NbtTypeRegistry typeRegistry;
+
+    /**
+     * Constructs a writing visitor using the default {@link NbtTypeRegistry}.
+     *
+     * @param output the stream to write to.
+     */
+    public NbtWritingVisitor(@NonNull DataOutput output) {
+        this(output, NbtTypeRegistry.getDefault());
+    }
+
+    @Override
+    public Result visitKey(String key, byte typeId) throws IOException {
+        this.output.writeByte(typeId);
+        ModifiedUtf8.writeKey(this.output, key);
+
+        return Result.CONTINUE;
+    }
+
+    @Override
+    public void visitCompoundEnd() throws IOException {
+        this.output.writeByte(0);
+    }
+
+    @Override
+    public Result visitListStart(byte typeId, int length) throws IOException {
+        this.output.writeByte(typeId);
+        this.output.writeInt(length);
+
+        return Result.CONTINUE;
+    }
+
+    @Override
+    public void visitByte(byte value) throws IOException {
+        this.output.writeByte(value);
+    }
+
+    @Override
+    public void visitShort(short value) throws IOException {
+        this.output.writeShort(value);
+    }
+
+    @Override
+    public void visitInt(int value) throws IOException {
+        this.output.writeInt(value);
+    }
+
+    @Override
+    public void visitLong(long value) throws IOException {
+        this.output.writeLong(value);
+    }
+
+    @Override
+    public void visitFloat(float value) throws IOException {
+        this.output.writeFloat(value);
+    }
+
+    @Override
+    public void visitDouble(double value) throws IOException {
+        this.output.writeDouble(value);
+    }
+
+    @Override
+    public void visitString(String value) throws IOException {
+        this.output.writeUTF(value);
+    }
+
+    @Override
+    public void visitByteArray(byte[] value) throws IOException {
+        this.output.writeInt(value.length);
+        this.output.write(value);
+    }
+
+    @Override
+    public void visitIntArray(int[] value) throws IOException {
+        this.output.writeInt(value.length);
+        IoUtils.writeInts(this.output, value, value.length);
+    }
+
+    @Override
+    public void visitLongArray(long[] value) throws IOException {
+        this.output.writeInt(value.length);
+        IoUtils.writeLongs(this.output, value, value.length);
+    }
+
+    @Override
+    public void visitElement(NbtElement element) throws IOException {
+        element.write(this.output, 0, this.typeRegistry);
+    }
+}
@@ -0,0 +1,785 @@
+package rocks.blackblock.nbt.io;
+
+import rocks.blackblock.nbt.api.NbtElement;
+import rocks.blackblock.nbt.elements.NbtType;
+import rocks.blackblock.nbt.elements.array.NbtByteArray;
+import rocks.blackblock.nbt.elements.array.NbtIntArray;
+import rocks.blackblock.nbt.elements.array.NbtLongArray;
+import rocks.blackblock.nbt.elements.collection.MapStrategy;
+import rocks.blackblock.nbt.elements.collection.NbtCompound;
+import rocks.blackblock.nbt.elements.collection.NbtList;
+import rocks.blackblock.nbt.elements.primitive.NbtByte;
+import rocks.blackblock.nbt.elements.primitive.NbtDouble;
+import rocks.blackblock.nbt.elements.primitive.NbtFloat;
+import rocks.blackblock.nbt.elements.primitive.NbtInt;
+import rocks.blackblock.nbt.elements.primitive.NbtLong;
+import rocks.blackblock.nbt.elements.primitive.NbtShort;
+import rocks.blackblock.nbt.elements.primitive.NbtString;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses SNBT (stringified NBT, as used in commands and data packs) in a single pass, without regular expressions.
+ * <p>
+ * Numbers take the usual suffixes ({@code b}, {@code s}, {@code L}, {@code f} and {@code d}, in either case),
+ * {@code true} and {@code false} are bytes, and other unquoted words are strings. Typed arrays are written as
+ * {@code [B;...]}, {@code [I;...]} and {@code [L;...]}. Quoted strings and keys may use either quote, and the escapes
+ * {@code \\}, {@code \"}, {@code \'}, {@code \b}, {@code \f}, {@code \n}, {@code \r}, {@code \t} and {@code \}{@code uXXXX}.
+ * <p>
+ * The children of a compound or list are collected on a stack shared by all nesting levels,
+ * so every map, list and array is allocated once, with its final size. Lists of ints, longs, floats and doubles are packed.
+ * <p>
+ * A parser is not thread-safe, but it can be reused for any number of inputs.
+ *
+ * @since   1.6.0
+ */
+public class SnbtParser {
+    private @NonNull MapStrategy mapStrategy = MapStrategy.COMPACT;
+    private boolean sharingValues;
+
+    // The input being parsed, and the position of the next character
+    private String input;
+    private int length;
+    private int pos;
+
+    // The children of the compounds and lists being parsed, innermost last
+    private String[] keys = new String[16];
+    private NbtElement[] elements = new NbtElement[16];
+    private int top;
+
+    // The values of the array or numeric list being parsed (these never nest); floats and doubles are stored as their bits
+    private long[] numbers = new long[16];
+
+    // The last scalar read: its value, as bits or as text
+    private long scalar;
+    private String text;
+
+    /**
+     * Parses a single SNBT value, which must make up the whole input (apart from whitespace).
+     *
+     * @param input the SNBT to parse.
+     * @return the parsed tag, without a name.
+     * @throws IOException if the input is not valid SNBT, or nested more than 512 levels deep.
+     */
+    public NbtElement parse(@NonNull String input) throws IOException {
+        this.input = input;
+        this.length = input.length();
+        this.pos = 0;
+        this.top = 0;
+
+        try {
+            NbtElement result = this.readValue(0);
+            this.skipWhitespace();
+
+            if (this.pos < this.length) {
+                throw this.error("Unexpected trailing data");
+            }
+
+            return result;
+        } finally {
+            Arrays.fill(this.keys, 0, this.top, null);
+            Arrays.fill(this.elements, 0, this.top, null);
+
+            this.input = null;
+            this.text = null;
+        }
+    }
+
+    private NbtElement readValue(int depth) throws IOException {
+        if (depth > 512) {
+            throw new IOException("NBT structure too complex (depth > 512).");
+        }
+
+        this.skipWhitespace();
+
+        if (this.pos >= this.length) {
+            throw this.error("Expected value");
+        }
+
+        char c = this.input.charAt(this.pos);
+
+        if (c == '{') {
+            return this.readCompound(depth);
+        } else if (c == '[') {
+            return this.readListOrArray(depth);
+        }
+
+        return this.toElement(this.readScalar(), false);
+    }
+
+    private NbtCompound readCompound(int depth) throws IOException {
+        this.pos++;
+
+        int base = this.top;
+        this.skipWhitespace();
+
+        while (this.peek() != '}') {
+            String key = this.readKey();
+
+            this.skipWhitespace();
+            this.expect(':');
+
+            NbtElement value;
+            char c = this.peekValue();
+
+            if (c == '{' || c == '[') {
+                value = this.readValue(depth + 1);
+            } else {
+                value = this.toElement(this.readScalar(), this.sharingValues);
+            }
+
+            this.push(key, value);
+
+            if (!this.readSeparator()) {
+                break;
+            }
+        }
+
+        this.expect('}');
+
+        int count = this.top - base;
+        Map<String, NbtElement> map = this.mapStrategy.create(count);
+
+        for (int i = base; i < this.top; i++) {
+            NbtElement value = this.elements[i];
+
+            if (!value.isFrozen()) {
+                value.setName(this.keys[i]);
+            }
+
+            map.put(this.keys[i], value);
+
+            this.keys[i] = null;
+            this.elements[i] = null;
+        }
+
+        this.top = base;
+
+        return new NbtCompound(map);
+    }
+
+    private NbtElement readListOrArray(int depth) throws IOException {
+        this.pos++;
+
+        // A typed array starts with its type and a semicolon, like "[I;"
+        if (this.pos + 1 < this.length && this.input.charAt(this.pos + 1) == ';') {
+            switch (this.input.charAt(this.pos)) {
+                case 'B':
+                    return this.readArray(NbtType.BYTE.getId());
+                case 'I':
+                    return this.readArray(NbtType.INT.getId());
+                case 'L':
+                    return this.readArray(NbtType.LONG.getId());
+                default:
+                    throw this.error("Invalid array type '" + this.input.charAt(this.pos) + "'");
+            }
+        }
+
+        this.skipWhitespace();
+
+        if (this.peek() == ']') {
+            this.pos++;
+            return new NbtList<>();
+        }
+
+        char c = this.peekValue();
+
+        if (c == '{' || c == '[') {
+            return this.readElementList(this.readValue(depth + 1), depth);
+        }
+
+        byte type = this.readScalar();
+
+        if (type == NbtType.STRING.getId()) {
+            return this.readElementList(new NbtString(this.text), depth);
+        }
+
+        return this.readNumberList(type);
+    }
+
+    private NbtList<NbtElement> readElementList(NbtElement first, int depth) throws IOException {
+        int base = this.top;
+        byte type = first.getTypeId();
+
+        this.push(null, first);
+
+        while (this.readSeparator() && this.peek() != ']') {
+            NbtElement element = this.readValue(depth + 1);
+
+            if (element.getTypeId() != type) {
+                throw this.error("Can't insert " + typeOf(element.getTypeId()) + " into list of " + typeOf(type));
+            }
+
+            this.push(null, element);
+        }
+
+        this.expect(']');
+
+        List<NbtElement> list = new ArrayList<>(this.top - base);
+
+        for (int i = base; i < this.top; i++) {
+            list.add(this.elements[i]);
+            this.elements[i] = null;
+        }
+
+        this.top = base;
+
+        return new NbtList<>(list, type);
+    }
+
+    private NbtList<? extends NbtElement> readNumberList(byte type) throws IOException {
+        int count = 0;
+        this.numbers[count++] = this.scalar;
+
+        while (this.readSeparator() && this.peek() != ']') {
+            this.readNumber(type, "list");
+
+            if (count == this.numbers.length) {
+                this.numbers = Arrays.copyOf(this.numbers, count * 2);
+            }
+
+            this.numbers[count++] = this.scalar;
+        }
+
+        this.expect(']');
+
+        switch (typeOf(type)) {
+            case INT: {
+                int[] values = new int[count];
+
+                for (int i = 0; i < count; i++) {
+                    values[i] = (int) this.numbers[i];
+                }
+
+                return NbtList.ofInts(null, values);
+            }
+            case LONG:
+                return NbtList.ofLongs(null, Arrays.copyOf(this.numbers, count));
+            case FLOAT: {
+                float[] values = new float[count];
+
+                for (int i = 0; i < count; i++) {
+                    values[i] = Float.intBitsToFloat((int) this.numbers[i]);
+                }
+
+                return NbtList.ofFloats(null, values);
+            }
+            case DOUBLE: {
+                double[] values = new double[count];
+
+                for (int i = 0; i < count; i++) {
+                    values[i] = Double.longBitsToDouble(this.numbers[i]);
+                }
+
+                return NbtList.ofDoubles(null, values);
+            }
+            default: {
+                List<NbtElement> list = new ArrayList<>(count);
+
+                for (int i = 0; i < count; i++) {
+                    this.scalar = this.numbers[i];
+                    list.add(this.toElement(type, false));
+                }
+
+                return new NbtList<>(list, type);
+            }
+        }
+    }
+
+    private NbtElement readArray(byte type) throws IOException {
+        this.pos += 2;
+        this.skipWhitespace();
+
+        int count = 0;
+
+        while (this.peek() != ']') {
+            this.readNumber(type, "array");
+
+            if (count == this.numbers.length) {
+                this.numbers = Arrays.copyOf(this.numbers, count * 2);
+            }
+
+            this.numbers[count++] = this.scalar;
+
+            if (!this.readSeparator()) {
+                break;
+            }
+        }
+
+        this.expect(']');
+
+        if (type == NbtType.BYTE.getId()) {
+            byte[] values = new byte[count];
+
+            for (int i = 0; i < count; i++) {
+                values[i] = (byte) this.numbers[i];
+            }
+
+            return new NbtByteArray(values);
+        } else if (type == NbtType.INT.getId()) {
+            int[] values = new int[count];
+
+            for (int i = 0; i < count; i++) {
+                values[i] = (int) this.numbers[i];
+            }
+
+            return new NbtIntArray(values);
+        }
+
+        return new NbtLongArray(Arrays.copyOf(this.numbers, count));
+    }
+
+    /**
+     * Reads a scalar that must be of the given type, for the elements of an array or numeric list.
+     */
+    private void readNumber(byte type, String container) throws IOException {
+        int start = this.pos;
+        char c = this.peekValue();
+        byte actual = c == '{' ? NbtType.COMPOUND.getId() : c == '[' ? NbtType.LIST.getId() : this.readScalar();
+
+        if (actual != type) {
+            this.pos = start;
+            throw this.error("Can't insert " + typeOf(actual) + " into " + container + " of " + typeOf(type));
+        }
+    }
+
+    /**
+     * Reads a string or a number, leaving its value in {@code text} or {@code scalar}.
+     *
+     * @return the type ID of the scalar.
+     */
+    private byte readScalar() throws IOException {
+        this.skipWhitespace();
+
+        if (this.pos < this.length) {
+            char c = this.input.charAt(this.pos);
+
+            if (c == '"' || c == '\'') {
+                this.text = this.readQuoted(c);
+                return NbtType.STRING.getId();
+            }
+        }
+
+        int start = this.pos;
+        int end = this.skipUnquoted();
+
+        if (start == end) {
+            throw this.error("Expected value");
+        }
+
+        return this.classify(start, end);
+    }
+
+    private String readKey() throws IOException {
+        this.skipWhitespace();
+
+        if (this.pos < this.length) {
+            char c = this.input.charAt(this.pos);
+
+            if (c == '"' || c == '\'') {
+                return this.readQuoted(c);
+            }
+        }
+
+        int start = this.pos;
+        int end = this.skipUnquoted();
+
+        if (start == end) {
+            throw this.error("Expected key");
+        }
+
+        return this.input.substring(start, end);
+    }
+
+    private String readQuoted(char quote) throws IOException {
+        int start = ++this.pos;
+
+        // Most strings have no escapes, and are cut straight from the input
+        for (int i = start; i < this.length; i++) {
+            char c = this.input.charAt(i);
+
+            if (c == quote) {
+                this.pos = i + 1;
+                return this.input.substring(start, i);
+            } else if (c == '\\') {
+                break;
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+
+        while (this.pos < this.length) {
+            char c = this.input.charAt(this.pos++);
+
+            if (c == quote) {
+                return sb.toString();
+            } else if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+
+            if (this.pos >= this.length) {
+                break;
+            }
+
+            char escaped = this.input.charAt(this.pos++);
+
+            switch (escaped) {
+                case '\\':
+                case '"':
+                case '\'':
+                    sb.append(escaped);
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    sb.append(this.readUnicodeEscape());
+                    break;
+                default:
+                    this.pos -= 2;
+                    throw this.error("Invalid escape sequence '\\" + escaped + "'");
+            }
+        }
+
+        throw this.error("Unclosed quoted string");
+    }
+
+    private char readUnicodeEscape() throws IOException {
+        if (this.pos + 4 > this.length) {
+            throw this.error("Incomplete unicode escape");
+        }
+
+        int value = 0;
+
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(this.input.charAt(this.pos + i), 16);
+
+            if (digit < 0) {
+                throw this.error("Invalid unicode escape");
+            }
+
+            value = (value << 4) | digit;
+        }
+
+        this.pos += 4;
+
+        return (char) value;
+    }
+
+    /**
+     * Works out what an unquoted word stands for, the way the game does: a number if it matches one of the number formats
+     * and is in range, a byte for {@code true} and {@code false}, and a string otherwise.
+     */
+    private byte classify(int start, int end) {
+        char last = this.input.charAt(end - 1);
+
+        switch (last) {
+            case 'b':
+            case 'B':
+                if (this.parseInteger(start, end - 1, Byte.MIN_VALUE, Byte.MAX_VALUE)) {
+                    return NbtType.BYTE.getId();
+                }
+                break;
+            case 's':
+            case 'S':
+                if (this.parseInteger(start, end - 1, Short.MIN_VALUE, Short.MAX_VALUE)) {
+                    return NbtType.SHORT.getId();
+                }
+                break;
+            case 'l':
+            case 'L':
+                if (this.parseInteger(start, end - 1, Long.MIN_VALUE, Long.MAX_VALUE)) {
+                    return NbtType.LONG.getId();
+                }
+                break;
+            case 'f':
+            case 'F':
+                if (this.isDecimal(start, end - 1, false)) {
+                    this.scalar = Float.floatToRawIntBits(Float.parseFloat(this.input.substring(start, end - 1)));
+                    return NbtType.FLOAT.getId();
+                }
+                break;
+            case 'd':
+            case 'D':
+                if (this.isDecimal(start, end - 1, false)) {
+                    this.scalar = Double.doubleToRawLongBits(Double.parseDouble(this.input.substring(start, end - 1)));
+                    return NbtType.DOUBLE.getId();
+                }
+                break;
+            default:
+                if (this.parseInteger(start, end, Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+                    return NbtType.INT.getId();
+                }
+
+                if (this.isDecimal(start, end, true)) {
+                    this.scalar = Double.doubleToRawLongBits(Double.parseDouble(this.input.substring(start, end)));
+                    return NbtType.DOUBLE.getId();
+                }
+        }
+
+        if (this.input.regionMatches(true, start, "true", 0, 4) && end - start == 4) {
+            this.scalar = 1;
+            return NbtType.BYTE.getId();
+        } else if (this.input.regionMatches(true, start, "false", 0, 5) && end - start == 5) {
+            this.scalar = 0;
+            return NbtType.BYTE.getId();
+        }
+
+        this.text = this.input.substring(start, end);
+
+        return NbtType.STRING.getId();
+    }
+
+    /**
+     * Parses a decimal integer without leading zeros into {@code scalar}, returning false if it is malformed or out of range.
+     */
+    private boolean parseInteger(int start, int end, long min, long max) {
+        int i = start;
+        boolean negative = false;
+
+        if (i < end && (this.input.charAt(i) == '-' || this.input.charAt(i) == '+')) {
+            negative = this.input.charAt(i) == '-';
+            i++;
+        }
+
+        int digits = end - i;
+
+        if (digits <= 0 || (digits > 1 && this.input.charAt(i) == '0')) {
+            return false;
+        }
+
+        long value = 0;
+
+        for (; i < end; i++) {
+            char c = this.input.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return false;
+            }
+
+            value = value * 10 + (c - '0');
+        }
+
+        if (digits > 18) {
+            // Might have overflowed, so leave it to the JDK
+            try {
+                value = Long.parseLong(this.input.substring(start, end));
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        } else if (negative) {
+            value = -value;
+        }
+
+        if (value < min || value > max) {
+            return false;
+        }
+
+        this.scalar = value;
+
+        return true;
+    }
+
+    /**
+     * Returns true if the given part of the input is a decimal number, like {@code 1}, {@code 1.}, {@code -.5} or {@code 2.5e-3}.
+     */
+    private boolean isDecimal(int start, int end, boolean requireDot) {
+        int i = start;
+
+        if (i < end && (this.input.charAt(i) == '-' || this.input.charAt(i) == '+')) {
+            i++;
+        }
+
+        int integerDigits = this.skipDigits(i, end);
+        i += integerDigits;
+
+        boolean dot = i < end && this.input.charAt(i) == '.';
+        int fractionDigits = 0;
+
+        if (dot) {
+            fractionDigits = this.skipDigits(++i, end);
+            i += fractionDigits;
+        }
+
+        if ((integerDigits == 0 && fractionDigits == 0) || (requireDot && !dot)) {
+            return false;
+        }
+
+        if (i < end && (this.input.charAt(i) == 'e' || this.input.charAt(i) == 'E')) {
+            i++;
+
+            if (i < end && (this.input.charAt(i) == '-' || this.input.charAt(i) == '+')) {
+                i++;
+            }
+
+            int exponentDigits = this.skipDigits(i, end);
+
+            if (exponentDigits == 0) {
+                return false;
+            }
+
+            i += exponentDigits;
+        }
+
+        return i == end;
+    }
+
+    private int skipDigits(int start, int end) {
+        int i = start;
+
+        while (i < end && this.input.charAt(i) >= '0' && this.input.charAt(i) <= '9') {
+            i++;
+        }
+
+        return i - start;
+    }
+
+    private NbtElement toElement(byte type, boolean share) {
+        switch (typeOf(type)) {
+            case BYTE:
+                return share ? NbtByte.of((byte) this.scalar) : new NbtByte(null, (byte) this.scalar);
+            case SHORT:
+                return share ? NbtShort.of((short) this.scalar) : new NbtShort(null, (short) this.scalar);
+            case INT:
+                return share ? NbtInt.of((int) this.scalar) : new NbtInt(null, (int) this.scalar);
+            case LONG:
+                return new NbtLong(null, this.scalar);
+            case FLOAT:
+                return new NbtFloat(null, Float.intBitsToFloat((int) this.scalar));
+            case DOUBLE:
+                return new NbtDouble(null, Double.longBitsToDouble(this.scalar));
+            default:
+                return share && this.text.isEmpty() ? NbtString.EMPTY : new NbtString(this.text);
+        }
+    }
+
+    private void push(String key, NbtElement element) {
+        if (this.top == this.elements.length) {
+            this.keys = Arrays.copyOf(this.keys, this.top * 2);
+            this.elements = Arrays.copyOf(this.elements, this.top * 2);
+        }
+
+        this.keys[this.top] = key;
+        this.elements[this.top++] = element;
+    }
+
+    /**
+     * Skips a comma and the whitespace around it, returning false if there is no comma.
+     */
+    private boolean readSeparator() {
+        this.skipWhitespace();
+
+        if (this.pos < this.length && this.input.charAt(this.pos) == ',') {
+            this.pos++;
+            this.skipWhitespace();
+
+            return true;
+        }
+
+        return false;
+    }
+
+    private int skipUnquoted() {
+        while (this.pos < this.length && isUnquoted(this.input.charAt(this.pos))) {
+            this.pos++;
+        }
+
+        return this.pos;
+    }
+
+    private void skipWhitespace() {
+        while (this.pos < this.length && Character.isWhitespace(this.input.charAt(this.pos))) {
+            this.pos++;
+        }
+    }
+
+    private char peek() {
+        return this.pos < this.length ? this.input.charAt(this.pos) : 0;
+    }
+
+    private char peekValue() {
+        this.skipWhitespace();
+        return this.peek();
+    }
+
+    private void expect(char c) throws IOException {
+        this.skipWhitespace();
+
+        if (this.pos >= this.length || this.input.charAt(this.pos) != c) {
+            throw this.error("Expected '" + c + "'");
+        }
+
+        this.pos++;
+    }
+
+    private IOException error(String message) {
+        int from = Math.max(0, this.pos - 16);
+        String context = (from > 0 ? "..." : "") + this.input.substring(from, Math.min(this.pos, this.length));
+
+        return new IOException(message + " at position " + this.pos + ": " + context + "<--[HERE]");
+    }
+
+    private static NbtType typeOf(byte id) {
+        return NbtType.values()[id - 1];
+    }
+
+    private static boolean isUnquoted(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                || c == '_' || c == '-' || c == '.' || c == '+';
+    }
+
+    /**
+     * Returns the kind of map the compound tags parsed by this parser are backed by.
+     *
+     * @return the {@link MapStrategy} currently in use by this parser.
+     */
+    public MapStrategy getMapStrategy() {
+        return this.mapStrategy;
+    }
+
+    /**
+     * Sets the kind of map the compound tags parsed by this parser are backed by.
+     *
+     * @param mapStrategy the new {@link MapStrategy} to be set.
+     */
+    public void setMapStrategy(@NonNull MapStrategy mapStrategy) {
+        this.mapStrategy = mapStrategy;
+    }
+
+    /**
+     * Returns true if this parser uses shared, frozen tags for the byte, short, int and empty string entries of compounds.
+     *
+     * @return true if values are shared.
+     */
+    public boolean isSharingValues() {
+        return this.sharingValues;
+    }
+
+    /**
+     * Sets whether this parser uses shared, frozen tags for the byte, short, int and empty string entries of compounds.
+     * See {@link NbtReader#setSharingValues(boolean)}.
+     *
+     * @param sharingValues true to share values.
+     */
+    public void setSharingValues(boolean sharingValues) {
+        this.sharingValues = sharingValues;
+    }
+}
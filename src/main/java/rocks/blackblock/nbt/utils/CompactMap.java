@@ -0,0 +1,435 @@
+package rocks.blackblock.nbt.utils;
+
+import java.util.*;
+
+/**
+ * An insertion-ordered map made of two parallel arrays, for the many small maps an NBT structure holds.
+ * Up to 8 entries are found with a linear scan; beyond that, an open-addressing index of {@code int}s is added.
+ * There are no per-entry objects, so a small map costs little more than its two arrays.
+ * <p>
+ * Removing an entry from a small map shifts the entries after it. Once the index is in use, a removed entry leaves a gap instead,
+ * and the gaps are closed once they outnumber the entries, so removal takes amortized constant time at any size.
+ * Like {@link HashMap}, this map is not thread-safe.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ * @since   1.6.0
+ */
+public class CompactMap<K, V> extends AbstractMap<K, V> {
+    private static final int LINEAR_LIMIT = 8;
+
+    // Marks the key of a removed entry, until the gaps are closed
+    private static final Object REMOVED = new Object();
+
+    private Object[] keys;
+    private Object[] values;
+    private int size;
+
+    // The number of positions in use, including those of removed entries. Equal to the size while there is no index
+    private int end;
+
+    // Positions (plus one) of the entries by hash, or null while the map is small enough to scan
+    private int[] index;
+
+    private int modCount;
+
+    /**
+     * Constructs an empty map with room for 4 entries.
+     */
+    public CompactMap() {
+        this(4);
+    }
+
+    /**
+     * Constructs an empty map with room for the given number of entries.
+     *
+     * @param expectedSize the number of entries the map is expected to hold.
+     */
+    public CompactMap(int expectedSize) {
+        int capacity = Math.max(expectedSize, 1);
+
+        this.keys = new Object[capacity];
+        this.values = new Object[capacity];
+
+        if (expectedSize > LINEAR_LIMIT) {
+            this.index = new int[tableSizeFor(expectedSize * 2)];
+        }
+    }
+
+    /**
+     * Constructs a map holding the entries of the given map, in its iteration order.
+     *
+     * @param map the map whose entries are to be copied.
+     */
+    public CompactMap(Map<? extends K, ? extends V> map) {
+        this(map.size());
+        this.putAll(map);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int position = this.indexOf(key);
+
+        return position < 0 ? null : (V) this.values[position];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.indexOf(key) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        int position = this.indexOf(key);
+
+        if (position >= 0) {
+            V previous = (V) this.values[position];
+            this.values[position] = value;
+            return previous;
+        }
+
+        if (this.end == this.keys.length && this.end - this.size >= this.size) {
+            this.compact();
+        }
+
+        if (this.end == this.keys.length) {
+            int capacity = this.end < 4 ? 4 : this.end + (this.end >> 1);
+
+            this.keys = Arrays.copyOf(this.keys, capacity);
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+
+        position = this.end++;
+        this.keys[position] = key;
+        this.values[position] = value;
+        this.size++;
+        this.modCount++;
+
+        // The index has a slot for every position in use, so its load is measured against the end rather than the size
+        if (this.index != null && this.end * 2 <= this.index.length) {
+            this.insertIndex(position);
+        } else if (this.size > LINEAR_LIMIT) {
+            this.rebuildIndex();
+        }
+
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int position = this.indexOf(key);
+
+        if (position < 0) {
+            return null;
+        }
+
+        V previous = (V) this.values[position];
+        this.removeAt(position, true);
+
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.keys, 0, this.end, null);
+        Arrays.fill(this.values, 0, this.end, null);
+
+        this.size = 0;
+        this.end = 0;
+        this.index = null;
+        this.modCount++;
+    }
+
+    /**
+     * Shrinks the backing arrays to the number of entries in the map.
+     */
+    public void trimToSize() {
+        if (this.end > this.size) {
+            this.compact();
+        }
+
+        if (this.keys.length > this.size) {
+            this.keys = Arrays.copyOf(this.keys, Math.max(this.size, 1));
+            this.values = Arrays.copyOf(this.values, Math.max(this.size, 1));
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(java.util.function.BiConsumer<? super K, ? super V> action) {
+        int expected = this.modCount;
+
+        for (int i = 0; i < this.end; i++) {
+            if (this.keys[i] == REMOVED) {
+                continue;
+            }
+
+            action.accept((K) this.keys[i], (V) this.values[i]);
+
+            if (this.modCount != expected) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return CompactMap.this.size;
+            }
+
+            @Override
+            public void clear() {
+                CompactMap.this.clear();
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        if (this.index == null) {
+            for (int i = 0; i < this.size; i++) {
+                Object k = this.keys[i];
+
+                if (k == key || (key != null && key.equals(k))) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+
+        int mask = this.index.length - 1;
+        int slot = hash(key) & mask;
+        int entry;
+
+        while ((entry = this.index[slot]) != 0) {
+            Object k = this.keys[entry - 1];
+
+            if (k == key || (key != null && key.equals(k))) {
+                return entry - 1;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Removes the entry at the given position. Without an index, the entries after it are shifted down.
+     * With one, its key is marked as removed (its slot in the index then simply never matches),
+     * and the gaps are closed when they outnumber the entries, unless an iterator relies on the positions staying put.
+     */
+    private void removeAt(int position, boolean compact) {
+        this.size--;
+        this.modCount++;
+
+        if (this.index == null) {
+            int moved = this.end - position - 1;
+
+            if (moved > 0) {
+                System.arraycopy(this.keys, position + 1, this.keys, position, moved);
+                System.arraycopy(this.values, position + 1, this.values, position, moved);
+            }
+
+            this.end--;
+            this.keys[this.end] = null;
+            this.values[this.end] = null;
+
+            return;
+        }
+
+        this.keys[position] = REMOVED;
+        this.values[position] = null;
+
+        if (compact && (this.size <= LINEAR_LIMIT || this.end - this.size > this.size)) {
+            this.compact();
+        }
+    }
+
+    /**
+     * Closes the gaps left by removed entries, keeping the order of the others, and rebuilds or drops the index to match.
+     */
+    private void compact() {
+        int count = 0;
+
+        for (int i = 0; i < this.end; i++) {
+            if (this.keys[i] != REMOVED) {
+                this.keys[count] = this.keys[i];
+                this.values[count] = this.values[i];
+                count++;
+            }
+        }
+
+        Arrays.fill(this.keys, count, this.end, null);
+        Arrays.fill(this.values, count, this.end, null);
+        this.end = count;
+
+        if (this.size <= LINEAR_LIMIT) {
+            this.index = null;
+        } else {
+            this.rebuildIndex();
+        }
+    }
+
+    private void insertIndex(int position) {
+        int mask = this.index.length - 1;
+        int slot = hash(this.keys[position]) & mask;
+
+        while (this.index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+
+        this.index[slot] = position + 1;
+    }
+
+    private void rebuildIndex() {
+        if (this.end > this.size) {
+            // Closing the gaps rebuilds the index too
+            this.compact();
+            return;
+        }
+
+        int length = tableSizeFor(this.size * 2);
+
+        if (this.index == null || this.index.length < length) {
+            this.index = new int[length];
+        } else {
+            Arrays.fill(this.index, 0);
+        }
+
+        for (int i = 0; i < this.size; i++) {
+            this.insertIndex(i);
+        }
+    }
+
+    private static int hash(Object key) {
+        int h = Objects.hashCode(key) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int n) {
+        return n <= 16 ? 16 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+        private int next = this.skipRemoved(0);
+        private int last = -1;
+        private int expected = CompactMap.this.modCount;
+
+        @Override
+        public boolean hasNext() {
+            return this.next < CompactMap.this.end;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (CompactMap.this.modCount != this.expected) {
+                throw new ConcurrentModificationException();
+            }
+
+            if (this.next >= CompactMap.this.end) {
+                throw new NoSuchElementException();
+            }
+
+            this.last = this.next;
+            this.next = this.skipRemoved(this.next + 1);
+
+            return new MapEntry(this.last);
+        }
+
+        private int skipRemoved(int position) {
+            while (position < CompactMap.this.end && CompactMap.this.keys[position] == REMOVED) {
+                position++;
+            }
+
+            return position;
+        }
+
+        @Override
+        public void remove() {
+            if (this.last < 0) {
+                throw new IllegalStateException();
+            }
+
+            if (CompactMap.this.modCount != this.expected) {
+                throw new ConcurrentModificationException();
+            }
+
+            // Without an index the entries after it shift down, with one they stay where they are
+            if (CompactMap.this.index == null) {
+                this.next = this.last;
+            }
+
+            CompactMap.this.removeAt(this.last, false);
+
+            this.last = -1;
+            this.expected = CompactMap.this.modCount;
+        }
+    }
+
+    private class MapEntry implements Entry<K, V> {
+        private final int position;
+
+        MapEntry(int position) {
+            this.position = position;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K getKey() {
+            return (K) CompactMap.this.keys[this.position];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V getValue() {
+            return (V) CompactMap.this.values[this.position];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V setValue(V value) {
+            V previous = (V) CompactMap.this.values[this.position];
+            CompactMap.this.values[this.position] = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) return false;
+            Entry<?, ?> that = (Entry<?, ?>) o;
+            return Objects.equals(this.getKey(), that.getKey()) && Objects.equals(this.getValue(), that.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(this.getKey()) ^ Objects.hashCode(this.getValue());
+        }
+
+        @Override
+        public String toString() {
+            return this.getKey() + "=" + this.getValue();
+        }
+    }
+}
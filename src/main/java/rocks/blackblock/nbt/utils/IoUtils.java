@@ -0,0 +1,387 @@
+package rocks.blackblock.nbt.utils;
+
+import rocks.blackblock.nbt.api.NbtElement;
+import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
+import rocks.blackblock.nbt.io.ByteBufferInput;
+import rocks.blackblock.nbt.io.ByteBufferOutput;
+import rocks.blackblock.nbt.io.NbtInput;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Helpers for moving over NBT payloads without decoding them.
+ *
+ * @since   1.6.0
+ */
+public class IoUtils {
+    // The size of the chunks bulk array I/O goes through when the stream is not backed by a buffer
+    private static final int CHUNK_SIZE = 8192;
+
+    /**
+     * The largest number of elements a collection is presized for from a length prefix read from a stream.
+     * Longer collections grow as their elements are read, so a forged length cannot force a huge allocation.
+     */
+    public static final int MAX_INITIAL_CAPACITY = 1024;
+
+    /**
+     * Returns the payload size in bytes of a fixed-width tag type,
+     * or -1 if the payload size depends on the data.
+     *
+     * @param typeId the tag type ID.
+     * @return the payload size of the tag type, or -1.
+     */
+    public static int getFixedPayloadSize(byte typeId) {
+        switch (typeId) {
+            case 1:
+                return 1;
+            case 2:
+                return 2;
+            case 3:
+            case 5:
+                return 4;
+            case 4:
+            case 6:
+                return 8;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Returns the width in bytes of a single element of an array tag type (byte, int or long array),
+     * or -1 if the tag type is not an array tag.
+     *
+     * @param typeId the tag type ID.
+     * @return the element width of the array tag type, or -1.
+     */
+    public static int getArrayElementSize(byte typeId) {
+        switch (typeId) {
+            case 7:
+                return 1;
+            case 11:
+                return 4;
+            case 12:
+                return 8;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Skips exactly {@code count} bytes. Unlike {@link DataInput#skipBytes(int)}, this never skips less.
+     *
+     * @param input the stream to skip in.
+     * @param count the number of bytes to skip.
+     * @throws IOException if any I/O error occurs, or the end of the stream is reached first.
+     */
+    public static void skipFully(DataInput input, long count) throws IOException {
+        if (count < 0) {
+            throw new IOException("Cannot skip a negative amount of bytes (" + count + ").");
+        }
+
+        while (count > 0) {
+            int skipped = input.skipBytes((int) Math.min(count, Integer.MAX_VALUE));
+
+            if (skipped <= 0) {
+                // Some streams refuse to skip, reading a byte tells us if we hit the end
+                input.readByte();
+                skipped = 1;
+            }
+
+            count -= skipped;
+        }
+    }
+
+    /**
+     * Skips a modified UTF-8 string, as written by {@link java.io.DataOutput#writeUTF(String)}.
+     *
+     * @param input the stream to skip in.
+     * @throws IOException if any I/O error occurs.
+     */
+    public static void skipUTF(DataInput input) throws IOException {
+        skipFully(input, input.readUnsignedShort());
+    }
+
+    /**
+     * Reads a modified UTF-8 string whose 2-byte length prefix has already been read,
+     * through the string cache of the input if it has one.
+     *
+     * @param input the stream to read from.
+     * @param length the encoded length of the string.
+     * @return the decoded string.
+     * @throws IOException if any I/O error occurs.
+     */
+    public static String readUTF(DataInput input, int length) throws IOException {
+        if (input instanceof NbtInput) {
+            return ((NbtInput) input).readUTF(length);
+        }
+
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+
+        return ModifiedUtf8.decode(bytes, 0, length);
+    }
+
+    /**
+     * Skips the payload of a tag of the given type, without instantiating anything for the standard tag types.
+     * Custom tag types have no known layout, so those are read using the registry and discarded.
+     *
+     * @param input the stream to skip in.
+     * @param typeId the type ID of the tag whose payload is next in the stream.
+     * @param depth the current depth of the NBT data structure.
+     * @param registry the {@link NbtTypeRegistry} used for custom tag types.
+     * @throws IOException if any I/O error occurs.
+     */
+    public static void skipPayload(DataInput input, byte typeId, int depth, NbtTypeRegistry registry) throws IOException {
+        if (depth > 512) {
+            throw new IOException("NBT structure too complex (depth > 512).");
+        }
+
+        int fixed = getFixedPayloadSize(typeId);
+
+        if (fixed > 0) {
+            skipFully(input, fixed);
+            return;
+        }
+
+        int width = getArrayElementSize(typeId);
+
+        if (width > 0) {
+            skipFully(input, readLength(input) * (long) width);
+            return;
+        }
+
+        switch (typeId) {
+            case 8:
+                skipUTF(input);
+                return;
+            case 9:
+                byte listType = input.readByte();
+                skipListElements(input, listType, readLength(input), depth, registry);
+                return;
+            case 10:
+                byte nextTypeId;
+
+                while ((nextTypeId = input.readByte()) != 0) {
+                    skipUTF(input);
+                    skipPayload(input, nextTypeId, depth + 1, registry);
+                }
+
+                return;
+            default:
+                NbtElement element = registry.createInstanceFromId(typeId);
+
+                if (element == null) {
+                    throw new IOException("Tag type with ID " + typeId + " not present in tag type registry.");
+                }
+
+                element.read(input, depth, registry);
+        }
+    }
+
+    /**
+     * Skips the elements of a list tag whose header (element type and length) has already been read.
+     *
+     * @param input the stream to skip in.
+     * @param listType the type ID of the list's elements.
+     * @param length the number of elements to skip.
+     * @param depth the depth of the list tag itself.
+     * @param registry the {@link NbtTypeRegistry} used for custom tag types.
+     * @throws IOException if any I/O error occurs.
+     */
+    public static void skipListElements(DataInput input, byte listType, int length, int depth, NbtTypeRegistry registry) throws IOException {
+        int fixed = getFixedPayloadSize(listType);
+
+        if (fixed > 0) {
+            skipFully(input, length * (long) fixed);
+            return;
+        }
+
+        for (int i = 0; i < length; i++) {
+            skipPayload(input, listType, depth + 1, registry);
+        }
+    }
+
+    /**
+     * Reads a length prefix, rejecting negative values.
+     *
+     * @param input the stream to read from.
+     * @return the length read from the stream.
+     * @throws IOException if any I/O error occurs or the length is negative.
+     */
+    public static int readLength(DataInput input) throws IOException {
+        int length = input.readInt();
+
+        if (length < 0) {
+            throw new IOException("Negative length (" + length + ") in NBT structure.");
+        }
+
+        return length;
+    }
+
+    /**
+     * Returns the capacity to presize a collection for, given a length prefix read from a stream.
+     *
+     * @since   1.6.0
+     *
+     * @param length the length read from the stream.
+     * @return the length, capped at {@link #MAX_INITIAL_CAPACITY}.
+     */
+    public static int initialCapacity(int length) {
+        return Math.min(length, MAX_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Reads big-endian {@code int}s into the given array. Inputs backed by a buffer copy them in one go,
+     * any other input is read in chunks that are converted at once, instead of calling {@link DataInput#readInt()} per value.
+     *
+     * @since   1.6.0
+     *
+     * @param input the stream to read from.
+     * @param values the array to read into.
+     * @param length the number of values to read.
+     * @throws IOException if any I/O error occurs.
+     */
+    public static void readInts(DataInput input, int[] values, int length) throws IOException {
+        readInts(input, values, 0, length);
+    }
+
+    /**
+     * Reads big-endian {@code int}s into part of the given array, in bulk like {@link #readInts(DataInput, int[], int)}.
+     *
+     * @since   1.6.0
+     *
+     * @param input the stream to read from.
+     * @param values the array to read into.
+     * @param offset the index of the first value to read.
+     * @param length the number of values to read.
+     * @throws IOException if any I/O error occurs.
+     */
+    public static void readInts(DataInput input, int[] values, int offset, int length) throws IOException {
+        if (input instanceof ByteBufferInput) {
+            ((ByteBufferInput) input).readInts(values, offset, length);
+            return;
+        }
+
+        byte[] chunk = new byte[(int) Math.min(length * 4L, CHUNK_SIZE)];
+        IntBuffer view = ByteBuffer.wrap(chunk).asIntBuffer();
+
+        for (int done = 0; done < length; ) {
+            int count = Math.min(length - done, chunk.length / 4);
+            input.readFully(chunk, 0, count * 4);
+
+            view.clear();
+            view.get(values, offset + done, count);
+            done += count;
+        }
+    }
+
+    /**
+     * Reads big-endian {@code long}s into the given array, in bulk like {@link #readInts(DataInput, int[], int)}.
+     *
+     * @since   1.6.0
+     *
+     * @param input the stream to read from.
+     * @param values the array to read into.
+     * @param length the number of values to read.
+     * @throws IOException if any I/O error occurs.
+     */
+    public static void readLongs(DataInput input, long[] values, int length) throws IOException {
+        readLongs(input, values, 0, length);
+    }
+
+    /**
+     * Reads big-endian {@code long}s into part of the given array, in bulk like {@link #readLongs(DataInput, long[], int)}.
+     *
+     * @since   1.6.0
+     *
+     * @param input the stream to read from.
+     * @param values the array to read into.
+     * @param offset the index of the first value to read.
+     * @param length the number of values to read.
+     * @throws IOException if any I/O error occurs.
+     */
+    public static void readLongs(DataInput input, long[] values, int offset, int length) throws IOException {
+        if (input instanceof ByteBufferInput) {
+            ((ByteBufferInput) input).readLongs(values, offset, length);
+            return;
+        }
+
+        byte[] chunk = new byte[(int) Math.min(length * 8L, CHUNK_SIZE)];
+        LongBuffer view = ByteBuffer.wrap(chunk).asLongBuffer();
+
+        for (int done = 0; done < length; ) {
+            int count = Math.min(length - done, chunk.length / 8);
+            input.readFully(chunk, 0, count * 8);
+
+            view.clear();
+            view.get(values, offset + done, count);
+            done += count;
+        }
+    }
+
+    /**
+     * Writes the first {@code length} values of the given array as big-endian {@code int}s. Outputs backed by a buffer
+     * copy them in one go, any other output is written in converted chunks, instead of calling {@link DataOutput#writeInt(int)} per value.
+     *
+     * @since   1.6.0
+     *
+     * @param output the stream to write to.
+     * @param values the array holding the values.
+     * @param length the number of values to write.
+     * @throws IOException if any I/O error occurs.
+     */
+    public static void writeInts(DataOutput output, int[] values, int length) throws IOException {
+        if (output instanceof ByteBufferOutput) {
+            ((ByteBufferOutput) output).writeInts(values, 0, length);
+            return;
+        }
+
+        byte[] chunk = new byte[(int) Math.min(length * 4L, CHUNK_SIZE)];
+        IntBuffer view = ByteBuffer.wrap(chunk).asIntBuffer();
+
+        for (int done = 0; done < length; ) {
+            int count = Math.min(length - done, chunk.length / 4);
+
+            view.clear();
+            view.put(values, done, count);
+            output.write(chunk, 0, count * 4);
+            done += count;
+        }
+    }
+
+    /**
+     * Writes the first {@code length} values of the given array as big-endian {@code long}s,
+     * in bulk like {@link #writeInts(DataOutput, int[], int)}.
+     *
+     * @since   1.6.0
+     *
+     * @param output the stream to write to.
+     * @param values the array holding the values.
+     * @param length the number of values to write.
+     * @throws IOException if any I/O error occurs.
+     */
+    public static void writeLongs(DataOutput output, long[] values, int length) throws IOException {
+        if (output instanceof ByteBufferOutput) {
+            ((ByteBufferOutput) output).writeLongs(values, 0, length);
+            return;
+        }
+
+        byte[] chunk = new byte[(int) Math.min(length * 8L, CHUNK_SIZE)];
+        LongBuffer view = ByteBuffer.wrap(chunk).asLongBuffer();
+
+        for (int done = 0; done < length; ) {
+            int count = Math.min(length - done, chunk.length / 8);
+
+            view.clear();
+            view.put(values, done, count);
+            output.write(chunk, 0, count * 8);
+            done += count;
+        }
+    }
+}
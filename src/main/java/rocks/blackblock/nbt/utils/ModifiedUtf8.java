@@ -0,0 +1,287 @@
+package rocks.blackblock.nbt.utils;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Helpers for the modified UTF-8 encoding used by {@link java.io.DataOutput#writeUTF(String)},
+ * which is how every string and key in the binary NBT format is stored.
+ * Both directions have a fast path for pure ASCII, which almost every key and ID is.
+ *
+ * @since   1.6.0
+ */
+public class ModifiedUtf8 {
+
+    /**
+     * Strings up to this many characters are kept in the encoded key cache.
+     */
+    public static final int MAX_CACHED_KEY_LENGTH = 32;
+
+    private static final int KEY_CACHE_SIZE = 1024;
+
+    // Direct-mapped cache of encoded keys. Entries are immutable, so racing writers only cost a cache miss.
+    private static final EncodedKey[] KEY_CACHE = new EncodedKey[KEY_CACHE_SIZE];
+
+    /**
+     * Returns the number of bytes the given string takes up in modified UTF-8, not including the 2-byte length prefix.
+     *
+     * @param str the string to measure.
+     * @return the encoded length of the string.
+     */
+    public static int getEncodedLength(String str) {
+        int length = str.length();
+        int result = length;
+
+        for (int i = 0; i < length; i++) {
+            char c = str.charAt(i);
+
+            if (c >= 0x80 || c == 0) {
+                result += c >= 0x800 ? 2 : 1;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Encodes the given string, including the 2-byte length prefix, exactly as {@link DataOutput#writeUTF(String)} would.
+     *
+     * @param str the string to encode.
+     * @return the encoded string.
+     * @throws UTFDataFormatException if the encoded string is longer than 65535 bytes.
+     */
+    public static byte[] encode(String str) throws UTFDataFormatException {
+        int length = getEncodedLength(str);
+
+        if (length > 65535) {
+            throw new UTFDataFormatException("encoded string too long: " + length + " bytes");
+        }
+
+        byte[] result = new byte[length + 2];
+        result[0] = (byte) (length >>> 8);
+        result[1] = (byte) length;
+
+        int chars = str.length();
+
+        if (length == chars) {
+            // Pure ASCII without any NUL characters
+            for (int i = 0; i < chars; i++) {
+                result[i + 2] = (byte) str.charAt(i);
+            }
+
+            return result;
+        }
+
+        int pos = 2;
+
+        for (int i = 0; i < chars; i++) {
+            char c = str.charAt(i);
+
+            if (c != 0 && c < 0x80) {
+                result[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                result[pos++] = (byte) (0xC0 | (c >> 6));
+                result[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                result[pos++] = (byte) (0xE0 | (c >> 12));
+                result[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                result[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the encoded form of a (short) key, including the length prefix, from a shared cache.
+     * The returned array must not be modified.
+     *
+     * @param key the key to encode, at most {@link #MAX_CACHED_KEY_LENGTH} characters long.
+     * @return the encoded key.
+     * @throws UTFDataFormatException if the encoded key is longer than 65535 bytes.
+     */
+    public static byte[] getEncodedKey(String key) throws UTFDataFormatException {
+        if (key.length() > MAX_CACHED_KEY_LENGTH) {
+            return encode(key);
+        }
+
+        int slot = (key.hashCode() * 0x9E3779B9 >>> 16) & (KEY_CACHE_SIZE - 1);
+        EncodedKey entry = KEY_CACHE[slot];
+
+        if (entry != null && (entry.key == key || entry.key.equals(key))) {
+            return entry.bytes;
+        }
+
+        byte[] bytes = encode(key);
+        KEY_CACHE[slot] = new EncodedKey(key, bytes);
+
+        return bytes;
+    }
+
+    /**
+     * Writes a compound key or root name, using the encoded key cache for short keys.
+     * The written bytes are the same as those of {@link DataOutput#writeUTF(String)}.
+     *
+     * @param output the stream to write to.
+     * @param key the key to write.
+     * @throws IOException if any I/O error occurs.
+     */
+    public static void writeKey(DataOutput output, String key) throws IOException {
+        if (key.length() > MAX_CACHED_KEY_LENGTH) {
+            output.writeUTF(key);
+            return;
+        }
+
+        output.write(getEncodedKey(key));
+    }
+
+    /**
+     * Decodes a modified UTF-8 string (without its length prefix).
+     *
+     * @param bytes the array holding the encoded string.
+     * @param offset the offset of the first byte.
+     * @param length the number of bytes to decode.
+     * @return the decoded string.
+     * @throws UTFDataFormatException if the bytes are not valid modified UTF-8.
+     */
+    public static String decode(byte[] bytes, int offset, int length) throws UTFDataFormatException {
+        int end = offset + length;
+        int i = offset;
+
+        while (i < end && bytes[i] >= 0) {
+            i++;
+        }
+
+        if (i == end) {
+            // Pure ASCII: one byte per char, which is exactly what ISO-8859-1 decodes (into a compact string)
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+
+        char[] chars = new char[length];
+        int count = 0;
+
+        for (int j = offset; j < i; j++) {
+            chars[count++] = (char) bytes[j];
+        }
+
+        while (i < end) {
+            int c = bytes[i] & 0xFF;
+
+            switch (c >> 4) {
+                case 0: case 1: case 2: case 3: case 4: case 5: case 6: case 7:
+                    i++;
+                    chars[count++] = (char) c;
+                    break;
+                case 12: case 13: {
+                    if (i + 2 > end) {
+                        throw new UTFDataFormatException("malformed input: partial character at end");
+                    }
+
+                    int c2 = bytes[i + 1];
+
+                    if ((c2 & 0xC0) != 0x80) {
+                        throw new UTFDataFormatException("malformed input around byte " + (i + 1 - offset));
+                    }
+
+                    chars[count++] = (char) (((c & 0x1F) << 6) | (c2 & 0x3F));
+                    i += 2;
+                    break;
+                }
+                case 14: {
+                    if (i + 3 > end) {
+                        throw new UTFDataFormatException("malformed input: partial character at end");
+                    }
+
+                    int c2 = bytes[i + 1];
+                    int c3 = bytes[i + 2];
+
+                    if ((c2 & 0xC0) != 0x80 || (c3 & 0xC0) != 0x80) {
+                        throw new UTFDataFormatException("malformed input around byte " + (i + 2 - offset));
+                    }
+
+                    chars[count++] = (char) (((c & 0x0F) << 12) | ((c2 & 0x3F) << 6) | (c3 & 0x3F));
+                    i += 3;
+                    break;
+                }
+                default:
+                    throw new UTFDataFormatException("malformed input around byte " + (i - offset));
+            }
+        }
+
+        return new String(chars, 0, count);
+    }
+
+    /**
+     * Returns the {@link String#hashCode()} of a modified UTF-8 string (without its length prefix), without decoding it into a string.
+     *
+     * @param bytes the array holding the encoded string.
+     * @param offset the offset of the first byte.
+     * @param length the number of bytes to hash.
+     * @return the hash code of the decoded string.
+     * @throws UTFDataFormatException if the bytes are not valid modified UTF-8.
+     */
+    public static int hashCode(byte[] bytes, int offset, int length) throws UTFDataFormatException {
+        int end = offset + length;
+        int i = offset;
+        int hash = 0;
+
+        while (i < end) {
+            int c = bytes[i] & 0xFF;
+
+            switch (c >> 4) {
+                case 0: case 1: case 2: case 3: case 4: case 5: case 6: case 7:
+                    i++;
+                    break;
+                case 12: case 13: {
+                    if (i + 2 > end) {
+                        throw new UTFDataFormatException("malformed input: partial character at end");
+                    }
+
+                    int c2 = bytes[i + 1];
+
+                    if ((c2 & 0xC0) != 0x80) {
+                        throw new UTFDataFormatException("malformed input around byte " + (i + 1 - offset));
+                    }
+
+                    c = ((c & 0x1F) << 6) | (c2 & 0x3F);
+                    i += 2;
+                    break;
+                }
+                case 14: {
+                    if (i + 3 > end) {
+                        throw new UTFDataFormatException("malformed input: partial character at end");
+                    }
+
+                    int c2 = bytes[i + 1];
+                    int c3 = bytes[i + 2];
+
+                    if ((c2 & 0xC0) != 0x80 || (c3 & 0xC0) != 0x80) {
+                        throw new UTFDataFormatException("malformed input around byte " + (i + 2 - offset));
+                    }
+
+                    c = ((c & 0x0F) << 12) | ((c2 & 0x3F) << 6) | (c3 & 0x3F);
+                    i += 3;
+                    break;
+                }
+                default:
+                    throw new UTFDataFormatException("malformed input around byte " + (i - offset));
+            }
+
+            hash = 31 * hash + (char) c;
+        }
+
+        return hash;
+    }
+
+    private static class EncodedKey {
+        final String key;
+        final byte[] bytes;
+
+        EncodedKey(String key, byte[] bytes) {
+            this.key = key;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package rocks.blackblock.nbt.utils;
+
+import java.io.UTFDataFormatException;
+import java.util.Arrays;
+
+/**
+ * A small canonicalizing cache of decoded modified UTF-8 strings, keyed by their encoded bytes.
+ * Repeated keys and values ("id", "Count", "minecraft:stone") decode to one shared {@code String} instance,
+ * and a hit costs a hash and a byte comparison instead of a decode and an allocation.
+ * <p>
+ * The cache is direct-mapped and bounded, so it never grows: a colliding string simply replaces the previous one.
+ * It is not thread-safe; every reader gets its own by default, but one can be shared between readers on the same thread.
+ *
+ * @since   1.6.0
+ */
+public class StringCache {
+    /**
+     * Encoded strings longer than this many bytes are decoded without being cached.
+     */
+    public static final int MAX_LENGTH = 64;
+
+    private final byte[][] keys;
+    private final String[] values;
+    private final int mask;
+
+    /**
+     * Constructs a cache with 512 slots.
+     */
+    public StringCache() {
+        this(512);
+    }
+
+    /**
+     * Constructs a cache with the given number of slots, rounded up to a power of two.
+     *
+     * @param size the number of slots.
+     */
+    public StringCache(int size) {
+        int slots = size <= 16 ? 16 : Integer.highestOneBit(size - 1) << 1;
+
+        this.keys = new byte[slots][];
+        this.values = new String[slots];
+        this.mask = slots - 1;
+    }
+
+    /**
+     * Returns the string encoded in the given bytes, reusing a previously decoded instance if there is one.
+     *
+     * @param bytes the array holding the encoded string.
+     * @param offset the offset of the first byte.
+     * @param length the number of bytes of the encoded string.
+     * @return the decoded string.
+     * @throws UTFDataFormatException if the bytes are not valid modified UTF-8.
+     */
+    public String get(byte[] bytes, int offset, int length) throws UTFDataFormatException {
+        if (length > MAX_LENGTH) {
+            return ModifiedUtf8.decode(bytes, offset, length);
+        }
+
+        int hash = length;
+
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+
+        int slot = (hash * 0x9E3779B9 >>> 16) & this.mask;
+        byte[] key = this.keys[slot];
+
+        if (key != null && Arrays.equals(key, 0, key.length, bytes, offset, offset + length)) {
+            return this.values[slot];
+        }
+
+        String result = ModifiedUtf8.decode(bytes, offset, length);
+
+        this.keys[slot] = Arrays.copyOfRange(bytes, offset, offset + length);
+        this.values[slot] = result;
+
+        return result;
+    }
+}
@@ -1,41 +1,171 @@
 package rocks.blackblock.nbt.utils;
 
+import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
 import rocks.blackblock.nbt.api.snbt.SnbtConfig;
+import rocks.blackblock.nbt.api.snbt.SnbtSerializable;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class StringUtils {
+    // Appended in slices for indentation, so indenting never allocates
+    private static final String SPACES = new String(new char[64]).replace("\0", " ");
+
     public static String escapeSnbt(String str) {
-        StringBuilder sb = new StringBuilder(" ");
+        StringBuilder sb = new StringBuilder(str.length() + 2);
+
+        try {
+            appendSnbtString(sb, str);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
 
+        return sb.toString();
+    }
+
+    /**
+     * Writes a quoted SNBT string, using the quote that needs no escaping when the string only contains one kind.
+     * Strings without quotes or backslashes are written in one call.
+     *
+     * @since   1.6.0
+     *
+     * @param output the output to write to.
+     * @param str the string to write.
+     * @throws IOException if the output throws one.
+     */
+    public static void appendSnbtString(Appendable output, String str) throws IOException {
         char quote = 0;
+        boolean escapes = false;
+
         for (int i = 0; i < str.length(); ++i) {
             char current = str.charAt(i);
 
             if (current == '\\') {
-                sb.append('\\');
+                escapes = true;
             } else if (current == '"' || current == '\'') {
                 if (quote == 0) {
                     quote = current == '"' ? '\'' : '"';
+                } else if (quote == current) {
+                    escapes = true;
                 }
+            }
+        }
 
-                if (quote == current) {
-                    sb.append('\\');
+        if (quote == 0) {
+            quote = '"';
+        }
+
+        output.append(quote);
+
+        if (!escapes) {
+            output.append(str);
+        } else {
+            int start = 0;
+
+            for (int i = 0; i < str.length(); ++i) {
+                char current = str.charAt(i);
+
+                if (current == '\\' || current == quote) {
+                    output.append(str, start, i).append('\\');
+                    start = i;
                 }
             }
 
-            sb.append(current);
+            output.append(str, start, str.length());
         }
 
-        if (quote == 0) {
-            quote = '"';
+        output.append(quote);
+    }
+
+    /**
+     * Writes a compound key, unquoted if it only consists of the characters SNBT allows in unquoted keys.
+     *
+     * @since   1.6.0
+     *
+     * @param output the output to write to.
+     * @param key the key to write.
+     * @throws IOException if the output throws one.
+     */
+    public static void appendSnbtKey(Appendable output, String key) throws IOException {
+        if (key.isEmpty()) {
+            output.append("\"\"");
+            return;
         }
 
-        sb.setCharAt(0, quote);
-        sb.append(quote);
+        for (int i = 0; i < key.length(); ++i) {
+            char c = key.charAt(i);
+
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                    || c == '_' || c == '-' || c == '.' || c == '+')) {
+                appendSnbtString(output, key);
+                return;
+            }
+        }
+
+        output.append(key);
+    }
+
+    /**
+     * Writes the indentation for the given depth, without allocating a new string for it.
+     *
+     * @since   1.6.0
+     *
+     * @param output the output to write to.
+     * @param depth the depth to indent to.
+     * @param config the config holding the number of spaces per level.
+     * @throws IOException if the output throws one.
+     */
+    public static void appendIndent(Appendable output, int depth, SnbtConfig config) throws IOException {
+        int count = depth * config.getIndentSpaces();
+
+        while (count > 0) {
+            int length = Math.min(count, SPACES.length());
+            output.append(SPACES, 0, length);
+            count -= length;
+        }
+    }
+
+    /**
+     * Writes a {@code long} in decimal, straight into the buffer if the output is a {@link StringBuilder}.
+     *
+     * @since   1.6.0
+     *
+     * @param output the output to write to.
+     * @param value the value to write.
+     * @throws IOException if the output throws one.
+     */
+    public static void appendLong(Appendable output, long value) throws IOException {
+        if (output instanceof StringBuilder) {
+            ((StringBuilder) output).append(value);
+        } else {
+            output.append(Long.toString(value));
+        }
+    }
+
+    /**
+     * Returns the SNBT of the given tag, written by {@link SnbtSerializable#writeSnbt} into a single buffer.
+     *
+     * @since   1.6.0
+     *
+     * @param tag the tag to serialize.
+     * @param depth the depth of the tag, for indentation.
+     * @param registry the tag type registry.
+     * @param config the SNBT config.
+     * @return the SNBT string.
+     */
+    public static String toSnbt(SnbtSerializable tag, int depth, NbtTypeRegistry registry, SnbtConfig config) {
+        StringBuilder sb = new StringBuilder();
+
+        try {
+            tag.writeSnbt(sb, depth, registry, config);
+        } catch (IOException e) {
+            // Only thrown by the tag itself, as a StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
 
         return sb.toString();
     }
@@ -0,0 +1,47 @@
+package rocks.blackblock.nbt.test;
+
+/**
+ * Minimal assertions for the tests in this package, which run as plain programs like {@link NbtTest}.
+ * A failed check throws an {@link AssertionError}, so a test exits with an error at the first failure.
+ */
+final class Checks {
+    private Checks() {
+    }
+
+    /**
+     * Fails if the condition does not hold.
+     *
+     * @param condition the condition to check.
+     * @param description what is being checked, shown when it fails.
+     */
+    static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError("Check failed: " + description);
+        }
+    }
+
+    /**
+     * Fails unless the action throws an exception of the given type.
+     *
+     * @param type the expected exception type.
+     * @param action the action to run.
+     * @param description what is being checked, shown when it fails.
+     */
+    static void checkThrows(Class<? extends Throwable> type, Action action, String description) {
+        try {
+            action.run();
+        } catch (Throwable e) {
+            if (type.isInstance(e)) {
+                return;
+            }
+
+            throw new AssertionError("Check failed: " + description + " (threw " + e + ")", e);
+        }
+
+        throw new AssertionError("Check failed: " + description + " (nothing thrown)");
+    }
+
+    interface Action {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,145 @@
+package rocks.blackblock.nbt.test;
+
+import rocks.blackblock.nbt.utils.CompactMap;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static rocks.blackblock.nbt.test.Checks.check;
+import static rocks.blackblock.nbt.test.Checks.checkThrows;
+
+/**
+ * Checks {@link CompactMap} against the semantics of a {@link LinkedHashMap}, on both sides of its index threshold.
+ */
+public class CompactMapTest {
+
+    public static void main(String[] args) {
+        randomOperations();
+        iteratorRemoval();
+        drain();
+
+        System.out.println("CompactMapTest passed");
+    }
+
+    /**
+     * Applies the same random puts, removes and clears to both maps, comparing them after every step.
+     */
+    private static void randomOperations() {
+        Random random = new Random(42);
+
+        for (int keyRange : new int[] {4, 12, 100, 2000}) {
+            Map<String, Integer> expected = new LinkedHashMap<>();
+            CompactMap<String, Integer> actual = new CompactMap<>(random.nextInt(20));
+
+            for (int i = 0; i < 20000; i++) {
+                String key = "k" + random.nextInt(keyRange);
+                int operation = random.nextInt(100);
+
+                if (operation < 55) {
+                    check(equal(expected.put(key, i), actual.put(key, i)), "put returns the previous value");
+                } else if (operation < 95) {
+                    check(equal(expected.remove(key), actual.remove(key)), "remove returns the removed value");
+                } else if (operation < 96) {
+                    expected.clear();
+                    actual.clear();
+                } else if (operation < 97) {
+                    actual.trimToSize();
+                }
+
+                check(expected.containsKey(key) == actual.containsKey(key), "containsKey after an operation");
+
+                if (i % 97 == 0) {
+                    checkSame(expected, actual, "maps of up to " + keyRange + " keys");
+                }
+            }
+
+            checkSame(expected, actual, "maps of up to " + keyRange + " keys");
+            check(new CompactMap<>(expected).equals(expected), "copying a map keeps its entries");
+        }
+    }
+
+    /**
+     * Removes entries through the iterator, small and large, and checks that the order of the others is kept.
+     */
+    private static void iteratorRemoval() {
+        for (int size : new int[] {5, 8, 9, 50, 1500}) {
+            Map<Integer, Integer> expected = new LinkedHashMap<>();
+            CompactMap<Integer, Integer> actual = new CompactMap<>();
+
+            for (int i = 0; i < size; i++) {
+                expected.put(i, i);
+                actual.put(i, i);
+            }
+
+            expected.keySet().removeIf(key -> key % 3 != 0);
+
+            for (Iterator<Map.Entry<Integer, Integer>> iterator = actual.entrySet().iterator(); iterator.hasNext(); ) {
+                if (iterator.next().getKey() % 3 != 0) {
+                    iterator.remove();
+                }
+            }
+
+            checkSame(expected, actual, "iterator removal from " + size + " entries");
+
+            actual.put(-1, -1);
+            expected.put(-1, -1);
+            checkSame(expected, actual, "putting after iterator removal from " + size + " entries");
+        }
+
+        CompactMap<Integer, Integer> map = new CompactMap<>();
+        map.put(1, 1);
+        map.put(2, 2);
+        map.put(3, 3);
+
+        checkThrows(ConcurrentModificationException.class, () -> {
+            for (Integer key : map.keySet()) {
+                map.remove(key);
+            }
+        }, "changing the map while iterating over it");
+        checkThrows(IllegalStateException.class, () -> map.entrySet().iterator().remove(), "removing before next()");
+    }
+
+    /**
+     * Removing every key of a large map must not be quadratic.
+     */
+    private static void drain() {
+        int size = 200_000;
+        CompactMap<String, Integer> map = new CompactMap<>();
+
+        for (int i = 0; i < size; i++) {
+            map.put("key" + i, i);
+        }
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < size; i++) {
+            check(map.remove("key" + i) == i, "draining returns each value");
+        }
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        check(map.isEmpty() && !map.entrySet().iterator().hasNext(), "a drained map is empty");
+        check(millis < 2000, "draining " + size + " keys took " + millis + " ms");
+    }
+
+    private static <K, V> void checkSame(Map<K, V> expected, CompactMap<K, V> actual, String description) {
+        check(expected.size() == actual.size(), description + ": size");
+        check(expected.equals(actual) && actual.equals(expected), description + ": entries");
+        check(expected.hashCode() == actual.hashCode(), description + ": hash code");
+
+        List<K> order = new ArrayList<>();
+        actual.forEach((key, value) -> order.add(key));
+
+        check(new ArrayList<>(expected.keySet()).equals(order), description + ": insertion order (forEach)");
+        check(new ArrayList<>(expected.keySet()).equals(new ArrayList<>(actual.keySet())), description + ": insertion order (iterator)");
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,207 @@
+package rocks.blackblock.nbt.test;
+
+import rocks.blackblock.nbt.elements.array.NbtLongArray;
+import rocks.blackblock.nbt.elements.array.PackedLongArrayView;
+import rocks.blackblock.nbt.elements.array.PackedLongArrayView.Layout;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static rocks.blackblock.nbt.test.Checks.check;
+import static rocks.blackblock.nbt.test.Checks.checkThrows;
+
+/**
+ * Checks every operation of {@link PackedLongArrayView} for every number of bits in both layouts,
+ * against a plain bit-by-bit packing of the same entries.
+ */
+public class PackedLongArrayViewTest {
+    private static final int[] SIZES = {0, 1, 63, 64, 65, 256, 4096, 4097};
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+
+        for (Layout layout : Layout.values()) {
+            for (int bits = 1; bits <= 32; bits++) {
+                for (int size : SIZES) {
+                    setAndGet(layout, bits, size, random);
+                    packAndUnpack(layout, bits, size, random);
+                    resize(layout, bits, size, random);
+                }
+            }
+        }
+
+        knownLengths();
+        errors();
+
+        System.out.println("PackedLongArrayViewTest passed");
+    }
+
+    private static void setAndGet(Layout layout, int bits, int size, Random random) {
+        String name = layout + " " + bits + " bits, " + size + " entries";
+        PackedLongArrayView view = PackedLongArrayView.allocate(size, bits, layout);
+        int[] expected = randomValues(size, bits, random);
+
+        check(view.getArray().size() == PackedLongArrayView.requiredLength(size, bits, layout), name + ": allocated length");
+
+        for (int i = 0; i < size; i++) {
+            view.set(i, expected[i]);
+        }
+
+        check(Arrays.equals(view.getArray().getValue(), reference(expected, bits, layout)), name + ": set packs like the reference");
+
+        for (int i = 0; i < size; i++) {
+            check(view.get(i) == expected[i], name + ": get " + i);
+        }
+
+        // Overwriting entries in a random order must leave their neighbours untouched
+        for (int n = 0; n < size; n++) {
+            int i = random.nextInt(size);
+            expected[i] = randomValues(1, bits, random)[0];
+            view.set(i, expected[i]);
+        }
+
+        check(Arrays.equals(view.getArray().getValue(), reference(expected, bits, layout)), name + ": overwritten entries");
+        check(Arrays.equals(view.unpack(), expected), name + ": unpack after set");
+    }
+
+    private static void packAndUnpack(Layout layout, int bits, int size, Random random) {
+        String name = layout + " " + bits + " bits, " + size + " entries";
+        int[] expected = randomValues(size, bits, random);
+        long[] packed = reference(expected, bits, layout);
+
+        PackedLongArrayView view = new PackedLongArrayView(new NbtLongArray(packed.clone()), size, bits, layout);
+        check(Arrays.equals(view.unpack(), expected), name + ": unpack of a reference array");
+
+        int[] target = new int[size + 3];
+        Arrays.fill(target, -1);
+        view.unpackTo(target);
+        check(Arrays.equals(Arrays.copyOf(target, size), expected), name + ": unpackTo");
+        check(size + 3 == target.length && target[size] == -1, name + ": unpackTo leaves the rest of the array alone");
+
+        // Packing over existing data must replace it completely
+        long[] garbage = new long[packed.length];
+        Arrays.fill(garbage, -1L);
+        PackedLongArrayView dirty = new PackedLongArrayView(new NbtLongArray(garbage), size, bits, layout);
+        dirty.packFrom(Arrays.copyOf(expected, size + 2));
+        check(Arrays.equals(dirty.getArray().getValue(), packed), name + ": packFrom over existing data");
+    }
+
+    private static void resize(Layout layout, int bits, int size, Random random) {
+        String name = layout + " " + bits + " bits, " + size + " entries";
+        int[] expected = randomValues(size, bits, random);
+        PackedLongArrayView view = PackedLongArrayView.allocate(size, bits, layout);
+        NbtLongArray array = view.getArray();
+        view.packFrom(expected);
+
+        int wider = Math.min(bits + 1 + random.nextInt(4), 32);
+        view.resize(wider);
+
+        check(view.getBits() == wider && view.getArray() == array, name + ": resize keeps the tag");
+        check(Arrays.equals(array.getValue(), reference(expected, wider, layout)), name + ": resize to " + wider + " bits");
+
+        // Narrowing works down to the width of the largest entry
+        int needed = 1;
+
+        for (int value : expected) {
+            needed = Math.max(needed, 32 - Integer.numberOfLeadingZeros(value));
+        }
+
+        if (needed > 1) {
+            int tooNarrow = needed - 1;
+            checkThrows(IllegalArgumentException.class, () -> view.resize(tooNarrow), name + ": resize to " + tooNarrow + " bits is rejected");
+            check(view.getBits() == wider && Arrays.equals(view.unpack(), expected), name + ": a rejected resize changes nothing");
+        }
+
+        view.resize(needed);
+
+        check(Arrays.equals(array.getValue(), reference(expected, needed, layout)), name + ": resize to " + needed + " bits");
+
+        for (int i = 0; i < size; i++) {
+            check(view.get(i) == expected[i], name + ": get " + i + " after resizing");
+        }
+    }
+
+    private static void knownLengths() {
+        // A 1.16+ section of 4096 block states with 5 bits each takes 342 longs, and 320 before that
+        check(PackedLongArrayView.requiredLength(4096, 5, Layout.ALIGNED) == 342, "aligned section length");
+        check(PackedLongArrayView.requiredLength(4096, 5, Layout.SPANNING) == 320, "spanning section length");
+
+        // A heightmap of 256 entries of 9 bits
+        check(PackedLongArrayView.requiredLength(256, 9, Layout.ALIGNED) == 37, "aligned heightmap length");
+        check(PackedLongArrayView.requiredLength(256, 9, Layout.SPANNING) == 36, "spanning heightmap length");
+
+        PackedLongArrayView view = PackedLongArrayView.allocate(3, 32, Layout.SPANNING);
+        view.set(1, -1);
+        check(view.get(1) == -1 && view.get(0) == 0 && view.get(2) == 0, "32-bit entries are unsigned and independent");
+        check(view.getArray().getValue()[0] == 0xFFFFFFFF00000000L, "32-bit entries share a long");
+    }
+
+    private static void errors() {
+        PackedLongArrayView view = PackedLongArrayView.allocate(10, 4, Layout.ALIGNED);
+
+        checkThrows(IllegalArgumentException.class, () -> view.set(0, 16), "an entry that does not fit is rejected");
+        checkThrows(IllegalArgumentException.class, () -> view.set(0, -1), "a negative entry is rejected");
+        checkThrows(IndexOutOfBoundsException.class, () -> view.get(10), "get past the end is rejected");
+        checkThrows(IndexOutOfBoundsException.class, () -> view.set(-1, 0), "set before the start is rejected");
+        checkThrows(IllegalArgumentException.class, () -> view.packFrom(new int[9]), "packFrom of too few values is rejected");
+        checkThrows(IllegalArgumentException.class, () -> view.packFrom(new int[] {0, 0, 0, 0, 0, 0, 0, 0, 0, 16}), "packFrom of an entry that does not fit is rejected");
+        checkThrows(IllegalArgumentException.class, () -> view.unpackTo(new int[9]), "unpackTo a short array is rejected");
+        checkThrows(IllegalArgumentException.class, () -> view.resize(0), "resize to 0 bits is rejected");
+        checkThrows(IllegalArgumentException.class, () -> view.resize(33), "resize to 33 bits is rejected");
+        checkThrows(IllegalArgumentException.class, () -> PackedLongArrayView.allocate(10, 0, Layout.SPANNING), "0 bits is rejected");
+        checkThrows(IllegalArgumentException.class, () -> PackedLongArrayView.allocate(-1, 4, Layout.SPANNING), "a negative size is rejected");
+        checkThrows(IllegalArgumentException.class, () -> new PackedLongArrayView(new NbtLongArray(new long[1]), 17, 4, Layout.ALIGNED), "a short array is rejected");
+
+        view.set(3, 9);
+        view.getArray().freeze();
+
+        check(view.get(3) == 9, "a frozen array can still be read");
+        checkThrows(UnsupportedOperationException.class, () -> view.set(3, 1), "set on a frozen array is rejected");
+        checkThrows(UnsupportedOperationException.class, () -> view.packFrom(new int[10]), "packFrom on a frozen array is rejected");
+        checkThrows(UnsupportedOperationException.class, () -> view.resize(5), "resize of a frozen array is rejected");
+    }
+
+    private static int[] randomValues(int size, int bits, Random random) {
+        int[] values = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            // Mix the extremes in with random entries, so the highest bits are always exercised
+            switch (random.nextInt(4)) {
+                case 0:
+                    values[i] = 0;
+                    break;
+                case 1:
+                    values[i] = (int) ((1L << bits) - 1);
+                    break;
+                default:
+                    values[i] = (int) (random.nextLong() >>> (64 - bits));
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Packs the given entries one bit at a time, as the layouts are defined.
+     */
+    private static long[] reference(int[] values, int bits, Layout layout) {
+        long[] data = new long[PackedLongArrayView.requiredLength(values.length, bits, layout)];
+        int valuesPerLong = 64 / bits;
+
+        for (int i = 0; i < values.length; i++) {
+            for (int bit = 0; bit < bits; bit++) {
+                if ((values[i] >>> bit & 1) == 0) {
+                    continue;
+                }
+
+                long position = layout == Layout.ALIGNED
+                        ? (long) (i / valuesPerLong) * 64 + (i % valuesPerLong) * bits + bit
+                        : (long) i * bits + bit;
+
+                data[(int) (position >>> 6)] |= 1L << (position & 63);
+            }
+        }
+
+        return data;
+    }
+}
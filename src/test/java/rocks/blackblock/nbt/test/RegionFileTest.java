@@ -0,0 +1,278 @@
+package rocks.blackblock.nbt.test;
+
+import rocks.blackblock.nbt.anvil.RegionFile;
+import rocks.blackblock.nbt.anvil.RegionFileWriter;
+import rocks.blackblock.nbt.elements.array.NbtByteArray;
+import rocks.blackblock.nbt.elements.collection.NbtCompound;
+import rocks.blackblock.nbt.elements.primitive.NbtString;
+import rocks.blackblock.nbt.io.CompressionType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static rocks.blackblock.nbt.test.Checks.check;
+
+/**
+ * Checks that chunks written with {@link RegionFileWriter} read back through {@link RegionFile},
+ * including rewritten, deleted and oversized (external) chunks.
+ */
+public class RegionFileTest {
+    private static final Random RANDOM = new Random(7);
+
+    public static void main(String[] args) throws Exception {
+        File directory = Files.createTempDirectory("region-test").toFile();
+
+        try {
+            for (CompressionType compression : new CompressionType[] {CompressionType.ZLIB, CompressionType.GZIP, CompressionType.NONE}) {
+                roundTrip(new File(directory, "r.0.0.mca"), compression);
+            }
+
+            rewrite(new File(directory, "r.1.0.mca"));
+            delete(new File(directory, "r.2.0.mca"));
+            oversized(new File(directory, "r.-1.2.mca"));
+            reopen(new File(directory, "r.3.0.mca"));
+            invalidHeader(new File(directory, "r.4.0.mca"));
+            concurrentWrites(new File(directory, "r.5.0.mca"));
+        } finally {
+            deleteRecursively(directory);
+        }
+
+        System.out.println("RegionFileTest passed");
+    }
+
+    private static void roundTrip(File file, CompressionType compression) throws IOException {
+        Files.deleteIfExists(file.toPath());
+
+        NbtCompound first = chunk(0, 0, 100);
+        NbtCompound last = chunk(31, 31, 10000);
+
+        try (RegionFileWriter writer = new RegionFileWriter(file, compression)) {
+            writer.writeChunk(0, 0, first, 1234);
+            writer.writeChunk(31, 31, last, 5678);
+
+            check(writer.hasChunk(0, 0) && writer.getTimestamp(31, 31) == 5678, compression + ": the writer tracks its chunks");
+        }
+
+        check(file.length() % RegionFile.SECTOR_SIZE == 0, compression + ": the file ends on a sector boundary");
+
+        try (RegionFile region = new RegionFile(file)) {
+            check(region.readChunk(0, 0).equals(first), compression + ": first chunk");
+            check(region.readChunk(31, 31).equals(last), compression + ": last chunk");
+            check(region.getTimestamp(0, 0) == 1234 && region.getTimestamp(31, 31) == 5678, compression + ": timestamps");
+            check(!region.hasChunk(1, 0) && region.readChunk(1, 0) == null, compression + ": missing chunk");
+            check(region.getTimestamp(1, 0) == 0, compression + ": missing chunk timestamp");
+
+            // World coordinates are accepted too, as only the lowest 5 bits are used
+            check(region.readChunk(32, 64).equals(first), compression + ": world coordinates");
+            check(region.readChunk(-1, -1).equals(last), compression + ": negative world coordinates");
+        }
+    }
+
+    private static void rewrite(File file) throws IOException {
+        NbtCompound current = null;
+
+        try (RegionFileWriter writer = new RegionFileWriter(file)) {
+            // Grow and shrink the same chunk, flushing in between so released sectors are reused
+            for (int i = 0; i < 40; i++) {
+                int size = i % 2 == 0 ? 20_000 : 200;
+                current = chunk(3, 4, size);
+                writer.writeChunk(3, 4, current, i);
+                writer.writeChunk(5, 6, chunk(5, 6, 500), i);
+                writer.flush();
+            }
+        }
+
+        try (RegionFile region = new RegionFile(file)) {
+            check(region.readChunk(3, 4).equals(current), "the last version of a rewritten chunk is read");
+            check(region.getTimestamp(3, 4) == 39, "the last timestamp of a rewritten chunk is read");
+            check(region.readChunk(5, 6) != null, "a neighbouring chunk survives the rewrites");
+        }
+
+        // Incompressible data of 20000 bytes takes 5 sectors; reusing freed sectors keeps the file far below 40 rewrites' worth
+        check(file.length() <= RegionFile.HEADER_SIZE + 20L * RegionFile.SECTOR_SIZE, "rewritten chunks reuse their sectors (" + file.length() + " bytes)");
+
+        try (RegionFileWriter writer = new RegionFileWriter(file)) {
+            // Without a flush in between, the sectors of the old version are not reused yet
+            writer.writeChunk(7, 7, chunk(7, 7, 100), 1);
+            NbtCompound replacement = chunk(7, 7, 100);
+            writer.writeChunk(7, 7, replacement, 2);
+
+            try (RegionFile region = new RegionFile(file)) {
+                check(region.readChunk(7, 7).equals(replacement), "a chunk rewritten before a flush reads back");
+            }
+        }
+    }
+
+    private static void delete(File file) throws IOException {
+        try (RegionFileWriter writer = new RegionFileWriter(file)) {
+            writer.writeChunk(1, 1, chunk(1, 1, 100));
+            writer.writeChunk(2, 2, chunk(2, 2, 100));
+            writer.deleteChunk(1, 1);
+            writer.deleteChunk(9, 9);
+
+            check(!writer.hasChunk(1, 1) && writer.getTimestamp(1, 1) == 0, "the writer forgets a deleted chunk");
+        }
+
+        try (RegionFile region = new RegionFile(file)) {
+            check(!region.hasChunk(1, 1) && region.readChunk(1, 1) == null, "a deleted chunk is gone");
+            check(region.getTimestamp(1, 1) == 0, "a deleted chunk has no timestamp");
+            check(region.readChunk(2, 2) != null, "the other chunk survives the deletion");
+            check(!region.hasChunk(9, 9), "deleting a missing chunk does nothing");
+        }
+
+        // The freed sectors are reused for the next chunk after a flush
+        long length = file.length();
+
+        try (RegionFileWriter writer = new RegionFileWriter(file)) {
+            writer.writeChunk(3, 3, chunk(3, 3, 100));
+        }
+
+        check(file.length() == length, "a new chunk takes the sectors of the deleted one");
+    }
+
+    private static void oversized(File file) throws IOException {
+        // Random bytes do not compress, so this needs more than 255 sectors
+        NbtCompound large = chunk(5, 7, 1_200_000);
+        NbtCompound small = chunk(5, 7, 100);
+        File external;
+
+        try (RegionFileWriter writer = new RegionFileWriter(file)) {
+            external = writer.getExternalFile(5, 7);
+            check(external.getName().equals("c.-27.71.mcc"), "the external file is named after the world coordinates: " + external.getName());
+
+            writer.writeChunk(5, 7, large);
+            writer.writeChunk(6, 7, large);
+        }
+
+        check(external.isFile(), "an oversized chunk is written to an external file");
+        check(file.length() < 1024 * 1024, "an oversized chunk takes a single sector in the region file");
+
+        try (RegionFile region = new RegionFile(file)) {
+            check(region.getExternalFile(-27, 71).equals(external), "the reader finds the same external file");
+            check(region.readChunk(5, 7).equals(large), "an oversized chunk reads back from its external file");
+            check(region.readChunk(6, 7).equals(large), "a second oversized chunk reads back");
+        }
+
+        try (RegionFileWriter writer = new RegionFileWriter(file)) {
+            writer.writeChunk(5, 7, small);
+            check(!external.exists(), "rewriting an oversized chunk with a small one removes the external file");
+
+            writer.deleteChunk(6, 7);
+            check(!writer.getExternalFile(6, 7).exists(), "deleting an oversized chunk removes the external file");
+        }
+
+        try (RegionFile region = new RegionFile(file)) {
+            check(region.readChunk(5, 7).equals(small), "the small version replaces the oversized one");
+            check(region.readChunk(6, 7) == null, "the deleted oversized chunk is gone");
+        }
+
+        File[] leftovers = file.getParentFile().listFiles((dir, name) -> name.endsWith(".tmp"));
+        check(leftovers != null && leftovers.length == 0, "no temporary files are left behind");
+    }
+
+    private static void reopen(File file) throws IOException {
+        NbtCompound first = chunk(0, 1, 3000);
+        NbtCompound second = chunk(0, 2, 3000);
+
+        try (RegionFileWriter writer = new RegionFileWriter(file, CompressionType.GZIP)) {
+            writer.writeChunk(0, 1, first);
+        }
+
+        // A new writer must find the existing chunks, and not write over their sectors
+        try (RegionFileWriter writer = new RegionFileWriter(file, CompressionType.NONE)) {
+            check(writer.hasChunk(0, 1), "a reopened writer sees the existing chunk");
+            writer.writeChunk(0, 2, second);
+        }
+
+        try (RegionFile region = new RegionFile(file)) {
+            check(region.readChunk(0, 1).equals(first), "a chunk written before reopening is intact");
+            check(region.readChunk(0, 2).equals(second), "a chunk written after reopening, with another compression, reads back");
+        }
+    }
+
+    private static void invalidHeader(File file) throws IOException {
+        Files.write(file.toPath(), new byte[0]);
+
+        try (RegionFile region = new RegionFile(file)) {
+            check(!region.hasChunk(0, 0) && region.readChunk(0, 0) == null, "an empty file has no chunks");
+        }
+
+        // A header entry pointing past the end of the file is dropped by the writer
+        ByteBuffer header = ByteBuffer.allocate(RegionFile.HEADER_SIZE);
+        header.putInt(0, (100 << 8) | 1);
+        Files.write(file.toPath(), header.array());
+
+        try (RegionFileWriter writer = new RegionFileWriter(file)) {
+            check(!writer.hasChunk(0, 0), "the writer ignores a location outside the file");
+            writer.writeChunk(1, 0, chunk(1, 0, 100));
+        }
+
+        check(file.length() == RegionFile.HEADER_SIZE + RegionFile.SECTOR_SIZE, "the writer allocates right after the header");
+    }
+
+    private static void concurrentWrites(File file) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<NbtCompound> chunks = new ArrayList<>();
+
+        for (int i = 0; i < 1024; i++) {
+            chunks.add(chunk(i & 31, i >> 5, 50 + RANDOM.nextInt(6000)));
+        }
+
+        try (RegionFileWriter writer = new RegionFileWriter(file)) {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int i = 0; i < 1024; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    writer.writeChunk(index & 31, index >> 5, chunks.get(index));
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        try (RegionFile region = new RegionFile(file)) {
+            for (int i = 0; i < 1024; i++) {
+                check(chunks.get(i).equals(region.readChunk(i & 31, i >> 5)), "chunk " + i + " written concurrently");
+            }
+        }
+    }
+
+    private static NbtCompound chunk(int x, int z, int payload) {
+        byte[] bytes = new byte[payload];
+        RANDOM.nextBytes(bytes);
+
+        NbtCompound chunk = new NbtCompound();
+        chunk.putInt("xPos", x);
+        chunk.putInt("zPos", z);
+        chunk.put("Status", new NbtString("minecraft:full"));
+        chunk.put("Payload", new NbtByteArray(bytes));
+
+        return chunk;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+
+        file.delete();
+    }
+}
@@ -0,0 +1,109 @@
+package rocks.blackblock.nbt.test;
+
+import rocks.blackblock.nbt.api.NbtElement;
+import rocks.blackblock.nbt.api.registry.NbtTypeRegistry;
+import rocks.blackblock.nbt.elements.collection.NbtCompound;
+import rocks.blackblock.nbt.elements.collection.NbtList;
+import rocks.blackblock.nbt.elements.primitive.NbtInt;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static rocks.blackblock.nbt.test.Checks.check;
+
+/**
+ * Checks that copy-on-write snapshots stay independent of the live tree, and that they never make the live tree unreadable.
+ */
+public class SnapshotTest {
+
+    public static void main(String[] args) {
+        isolation();
+        customTags();
+
+        System.out.println("SnapshotTest passed");
+    }
+
+    private static void isolation() {
+        NbtCompound live = new NbtCompound();
+        NbtCompound child = new NbtCompound();
+        child.putInt("a", 1);
+        live.put("child", child);
+        live.put("frozen", NbtInt.of(5));
+
+        NbtCompound snapshot = live.snapshot();
+
+        check(live.get("frozen") == snapshot.get("frozen"), "frozen tags are handed out without copying");
+
+        NbtCompound fetched = live.getCompound("child");
+        fetched.putInt("a", 2);
+
+        check(fetched != child, "a tag taken out after the snapshot is a copy of its own");
+        check(live.getCompound("child") == fetched, "the copy replaces the shared tag");
+        check(snapshot.getCompound("child").getInt("a").getValue() == 1, "the snapshot keeps the old value");
+        check(live.getCompound("child").getInt("a").getValue() == 2, "the live tree has the new value");
+
+        snapshot.getCompound("child").putInt("a", 3);
+        check(live.getCompound("child").getInt("a").getValue() == 2, "changing the snapshot leaves the live tree alone");
+
+        live.freeze();
+        check(!snapshot.getCompound("child").isFrozen(), "freezing the live tree leaves the snapshot mutable");
+    }
+
+    private static void customTags() {
+        NbtCompound live = new NbtCompound();
+        CustomTag tag = new CustomTag(7);
+        live.put("custom", tag);
+
+        NbtList<NbtElement> list = new NbtList<>();
+        list.add(new CustomTag(8));
+        live.put("list", list);
+
+        NbtCompound snapshot = live.snapshot();
+
+        check(live.get("custom") == tag, "a custom tag is handed out as it is after a snapshot");
+        check(live.getValue().size() == 2, "the live map of a compound holding a custom tag can be reached");
+        check(((NbtList<?>) live.get("list")).get(0) instanceof CustomTag, "a list holding a custom tag can be read");
+        check(snapshot.get("custom") == tag, "the snapshot shares the custom tag");
+
+        check(tag.copy() != tag && tag.copy().getValue().equals(7), "a custom tag is copied through its class");
+        check(tag.toImmutable().isFrozen(), "a custom tag can be made immutable");
+    }
+
+    /**
+     * A tag type that is in no registry, and has neither a copy nor a snapshot of its own.
+     */
+    private static class CustomTag extends NbtElement {
+        private int value;
+
+        private CustomTag() {
+        }
+
+        private CustomTag(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public byte getTypeId() {
+            return 20;
+        }
+
+        @Override
+        public Object getValue() {
+            return this.value;
+        }
+
+        @Override
+        public void write(DataOutput output, int depth, NbtTypeRegistry registry) throws IOException {
+            output.writeInt(this.value);
+        }
+
+        @Override
+        public CustomTag read(DataInput input, int depth, NbtTypeRegistry registry) throws IOException {
+            this.checkMutable();
+            this.value = input.readInt();
+
+            return this;
+        }
+    }
+}
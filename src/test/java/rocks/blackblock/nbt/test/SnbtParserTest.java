@@ -0,0 +1,227 @@
+package rocks.blackblock.nbt.test;
+
+import rocks.blackblock.nbt.Nbt;
+import rocks.blackblock.nbt.api.NbtElement;
+import rocks.blackblock.nbt.elements.NbtType;
+import rocks.blackblock.nbt.elements.array.NbtByteArray;
+import rocks.blackblock.nbt.elements.array.NbtIntArray;
+import rocks.blackblock.nbt.elements.array.NbtLongArray;
+import rocks.blackblock.nbt.elements.collection.NbtCompound;
+import rocks.blackblock.nbt.elements.collection.NbtList;
+import rocks.blackblock.nbt.elements.primitive.*;
+import rocks.blackblock.nbt.io.SnbtParser;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static rocks.blackblock.nbt.test.Checks.check;
+import static rocks.blackblock.nbt.test.Checks.checkThrows;
+
+/**
+ * Checks the SNBT parser against the formats the game accepts, and that everything {@link Nbt#toSnbt(NbtCompound)} writes parses back.
+ */
+public class SnbtParserTest {
+    private static final SnbtParser PARSER = new SnbtParser();
+
+    public static void main(String[] args) throws IOException {
+        suffixes();
+        outOfRange();
+        escapes();
+        lists();
+        arrays();
+        malformed();
+        roundTrip();
+
+        System.out.println("SnbtParserTest passed");
+    }
+
+    private static void suffixes() throws IOException {
+        checkValue("1b", NbtType.BYTE, (byte) 1);
+        checkValue("-2B", NbtType.BYTE, (byte) -2);
+        checkValue("300s", NbtType.SHORT, (short) 300);
+        checkValue("-4S", NbtType.SHORT, (short) -4);
+        checkValue("5", NbtType.INT, 5);
+        checkValue("+6", NbtType.INT, 6);
+        checkValue("7l", NbtType.LONG, 7L);
+        checkValue("-8000000000L", NbtType.LONG, -8000000000L);
+        checkValue("1.5f", NbtType.FLOAT, 1.5f);
+        checkValue("2F", NbtType.FLOAT, 2f);
+        checkValue("2.5d", NbtType.DOUBLE, 2.5);
+        checkValue("3D", NbtType.DOUBLE, 3.0);
+        checkValue("1.0", NbtType.DOUBLE, 1.0);
+        checkValue("-.5", NbtType.DOUBLE, -0.5);
+        checkValue("1.5e2", NbtType.DOUBLE, 150.0);
+        checkValue("true", NbtType.BYTE, (byte) 1);
+        checkValue("FALSE", NbtType.BYTE, (byte) 0);
+        checkValue("-128b", NbtType.BYTE, Byte.MIN_VALUE);
+        checkValue("32767s", NbtType.SHORT, Short.MAX_VALUE);
+        checkValue("2147483647", NbtType.INT, Integer.MAX_VALUE);
+        checkValue("-9223372036854775808L", NbtType.LONG, Long.MIN_VALUE);
+    }
+
+    private static void outOfRange() throws IOException {
+        // Words that look like numbers but are out of range or malformed are strings, as in the game
+        checkValue("128b", NbtType.STRING, "128b");
+        checkValue("-129b", NbtType.STRING, "-129b");
+        checkValue("32768s", NbtType.STRING, "32768s");
+        checkValue("2147483648", NbtType.STRING, "2147483648");
+        checkValue("9223372036854775808L", NbtType.STRING, "9223372036854775808L");
+        checkValue("99999999999999999999L", NbtType.STRING, "99999999999999999999L");
+        checkValue("01", NbtType.STRING, "01");
+        checkValue("1e3", NbtType.STRING, "1e3");
+        checkValue("1.5x", NbtType.STRING, "1.5x");
+        checkValue("-", NbtType.STRING, "-");
+        checkValue("b", NbtType.STRING, "b");
+        checkValue("truely", NbtType.STRING, "truely");
+    }
+
+    private static void escapes() throws IOException {
+        checkValue("\"plain\"", NbtType.STRING, "plain");
+        checkValue("''", NbtType.STRING, "");
+        checkValue("\"a\\\"b\"", NbtType.STRING, "a\"b");
+        checkValue("'it\\'s'", NbtType.STRING, "it's");
+        checkValue("\"it's\"", NbtType.STRING, "it's");
+        checkValue("'say \"hi\"'", NbtType.STRING, "say \"hi\"");
+        checkValue("\"\\\\ \\b\\f\\n\\r\\t\"", NbtType.STRING, "\\ \b\f\n\r\t");
+        checkValue("\"\\u00e9\\u20AC\"", NbtType.STRING, "\u00e9\u20ac");
+        checkValue("\"123\"", NbtType.STRING, "123");
+
+        NbtCompound compound = parse("{\"a key\": 1, 'b\\'': 2, c.d-e_f+g: 3}");
+        check(compound.getInt("a key").getValue() == 1, "double-quoted key");
+        check(compound.getInt("b'").getValue() == 2, "single-quoted key with an escape");
+        check(compound.getInt("c.d-e_f+g").getValue() == 3, "unquoted key with punctuation");
+
+        checkThrows(IOException.class, () -> parse("\"\\q\""), "an unknown escape is rejected");
+        checkThrows(IOException.class, () -> parse("\"\\u12\""), "a short unicode escape is rejected");
+        checkThrows(IOException.class, () -> parse("\"\\u12g4\""), "a non-hex unicode escape is rejected");
+        checkThrows(IOException.class, () -> parse("\"open"), "an unclosed string is rejected");
+        checkThrows(IOException.class, () -> parse("'open\\'"), "a string ending in an escaped quote is rejected");
+    }
+
+    private static void lists() throws IOException {
+        NbtList<?> ints = parse("[1, 2, 3]");
+        check(ints.getListType() == NbtType.INT.getId() && ints.size() == 3 && ints.getInt(2) == 3, "list of ints");
+
+        NbtList<?> bytes = parse("[1b, true, -1b]");
+        check(bytes.getListType() == NbtType.BYTE.getId() && bytes.getByte(1) == 1 && bytes.getByte(2) == -1, "list of bytes");
+
+        NbtList<?> doubles = parse("[1.0, 2d, .5]");
+        check(doubles.getListType() == NbtType.DOUBLE.getId() && doubles.getDouble(2) == 0.5, "list of doubles");
+
+        NbtList<?> floats = parse("[1f, 2.5F]");
+        check(floats.getListType() == NbtType.FLOAT.getId() && floats.getFloat(1) == 2.5f, "list of floats");
+
+        NbtList<?> longs = parse("[1L, -2l]");
+        check(longs.getListType() == NbtType.LONG.getId() && longs.getLong(1) == -2L, "list of longs");
+
+        NbtList<?> strings = parse("[\"a\", b, 'c', 128b]");
+        check(strings.getListType() == NbtType.STRING.getId() && strings.size() == 4, "list of strings");
+        check(((NbtString) strings.get(3)).getValue().equals("128b"), "an out-of-range byte in a list of strings");
+
+        NbtList<?> compounds = parse("[{a: 1}, {}, ]");
+        check(compounds.getListType() == NbtType.COMPOUND.getId() && compounds.size() == 2, "list of compounds with a trailing comma");
+
+        NbtList<?> nested = parse("[[1], [a, b], []]");
+        check(nested.getListType() == NbtType.LIST.getId() && nested.size() == 3, "list of lists of different types");
+
+        NbtList<?> empty = parse("[ ]");
+        check(empty.size() == 0, "empty list");
+
+        checkThrows(IOException.class, () -> parse("[1, 2b]"), "an int list rejects a byte");
+        checkThrows(IOException.class, () -> parse("[1b, 2]"), "a byte list rejects an int");
+        checkThrows(IOException.class, () -> parse("[1, 2.0]"), "an int list rejects a double");
+        checkThrows(IOException.class, () -> parse("[1, a]"), "an int list rejects a string");
+        checkThrows(IOException.class, () -> parse("[a, 1]"), "a string list rejects an int");
+        checkThrows(IOException.class, () -> parse("[1, {}]"), "an int list rejects a compound");
+        checkThrows(IOException.class, () -> parse("[{}, []]"), "a compound list rejects a list");
+        checkThrows(IOException.class, () -> parse("[[], {}]"), "a list of lists rejects a compound");
+    }
+
+    private static void arrays() throws IOException {
+        NbtByteArray bytes = parse("[B; 1b, -2b, true]");
+        check(Arrays.equals(bytes.getValue(), new byte[] {1, -2, 1}), "byte array");
+
+        NbtIntArray ints = parse("[I;1,2,-3]");
+        check(Arrays.equals(ints.getValue(), new int[] {1, 2, -3}), "int array");
+
+        NbtLongArray longs = parse("[L; 1L, -9223372036854775808L]");
+        check(Arrays.equals(longs.getValue(), new long[] {1, Long.MIN_VALUE}), "long array");
+
+        NbtIntArray empty = parse("[I;]");
+        check(empty.getValue().length == 0, "empty array");
+
+        NbtLongArray large = parse("[L;" + String.join(",", Collections.nCopies(100, "5L")) + "]");
+        check(large.getValue().length == 100 && large.getValue()[99] == 5, "array larger than the initial buffer");
+
+        checkThrows(IOException.class, () -> parse("[I; 1, 2L]"), "an int array rejects a long");
+        checkThrows(IOException.class, () -> parse("[B; 1]"), "a byte array rejects an int");
+        checkThrows(IOException.class, () -> parse("[L; 1]"), "a long array rejects an int");
+        checkThrows(IOException.class, () -> parse("[I; a]"), "an int array rejects a string");
+        checkThrows(IOException.class, () -> parse("[I; [1]]"), "an int array rejects a list");
+        checkThrows(IOException.class, () -> parse("[X; 1]"), "an unknown array type is rejected");
+    }
+
+    private static void malformed() {
+        checkThrows(IOException.class, () -> parse(""), "empty input is rejected");
+        checkThrows(IOException.class, () -> parse("{a: 1"), "an unclosed compound is rejected");
+        checkThrows(IOException.class, () -> parse("{a 1}"), "a missing colon is rejected");
+        checkThrows(IOException.class, () -> parse("{: 1}"), "a missing key is rejected");
+        checkThrows(IOException.class, () -> parse("{a: }"), "a missing value is rejected");
+        checkThrows(IOException.class, () -> parse("[1, 2"), "an unclosed list is rejected");
+        checkThrows(IOException.class, () -> parse("{} {}"), "trailing data is rejected");
+
+        StringBuilder deep = new StringBuilder();
+
+        for (int i = 0; i < 600; i++) {
+            deep.append('[');
+        }
+
+        checkThrows(IOException.class, () -> parse(deep.toString()), "nesting beyond 512 levels is rejected");
+    }
+
+    private static void roundTrip() throws IOException {
+        NbtCompound root = new NbtCompound();
+        root.put("byte", new NbtByte(null, (byte) -5));
+        root.put("short", new NbtShort(null, (short) 1234));
+        root.put("int", new NbtInt(null, -981735));
+        root.put("long", new NbtLong(null, Long.MAX_VALUE));
+        root.put("float", new NbtFloat(null, 0.25f));
+        root.put("double", new NbtDouble(null, -1.0E-10));
+        root.put("string", new NbtString("quotes \" and ' and \\ and\nlines"));
+        root.put("word", new NbtString("123"));
+        root.put("bytes", new NbtByteArray(new byte[] {0, -124, 127}));
+        root.put("ints", new NbtIntArray(new int[] {Integer.MIN_VALUE, 0, 4}));
+        root.put("longs", new NbtLongArray(new long[] {Long.MIN_VALUE, 12490812L}));
+        root.put("intList", NbtList.ofInts(null, new int[] {1, 2, 3}));
+        root.put("doubleList", NbtList.ofDoubles(null, new double[] {0.5, -2}));
+
+        NbtCompound child = new NbtCompound();
+        child.put("key with spaces", new NbtString(""));
+        root.put("child", child);
+
+        NbtList<NbtCompound> compounds = new NbtList<>();
+        compounds.add(new NbtCompound());
+        compounds.add(child.copy());
+        root.put("compounds", compounds);
+
+        Nbt nbt = new Nbt();
+        String snbt = nbt.toSnbt(root);
+        NbtCompound parsed = nbt.fromSnbt(snbt);
+
+        check(parsed.equals(root), "a compound written as SNBT parses back to an equal compound: " + snbt);
+        check(nbt.toSnbt(parsed).equals(snbt), "the parsed compound writes the same SNBT");
+    }
+
+    private static void checkValue(String snbt, NbtType type, Object value) throws IOException {
+        NbtElement element = parse(snbt);
+
+        check(element.getTypeId() == type.getId(), snbt + " is a " + type + ", not a type " + element.getTypeId());
+        check(element.getValue().equals(value), snbt + " is " + value + ", not " + element.getValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends NbtElement> T parse(String snbt) throws IOException {
+        return (T) PARSER.parse(snbt);
+    }
+}